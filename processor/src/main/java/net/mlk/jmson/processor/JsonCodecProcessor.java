@@ -0,0 +1,278 @@
+package net.mlk.jmson.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * annotation processor generating JsonCodec for every JsonConvertible class of the compilation.
+ * generated codec creates instances and accesses fields with plain java code, so JsonConverter
+ * doesn't need reflection for them. private fields are accessed through var handles of a private lookup,
+ * codec is in the same package and module as the class. JsonObject and JsonField values are still read
+ * by converter, final, static and JsonIgnore fields are left to reflection.
+ * processor is triggered by jmson annotations and claims them, so builds with -Xlint:all -Werror
+ * don't fail on unclaimed annotations. round with any of them gets codecs for all its convertible classes,
+ * classes compiled without jmson annotations use method handles, or codec generated at runtime if enabled
+ */
+@SupportedAnnotationTypes("net.mlk.jmson.annotations.*")
+public final class JsonCodecProcessor extends AbstractProcessor {
+    private static final String CONVERTIBLE = "net.mlk.jmson.utils.JsonConvertible";
+    private static final String CODEC = "net.mlk.jmson.utils.JsonCodec";
+    private static final String IGNORE = "net.mlk.jmson.annotations.JsonIgnore";
+    private static final String SUFFIX = "$JsonCodec";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement convertible = this.processingEnv.getElementUtils().getTypeElement(CONVERTIBLE);
+        if (convertible != null) {
+            for (Element element : roundEnv.getRootElements()) {
+                this.visit(element, convertible.asType());
+            }
+        }
+        // only jmson annotations are supported, other processors don't need them
+        return true;
+    }
+
+    /**
+     * generate codecs for the class and its member classes
+     * @param element root or member element
+     * @param convertible JsonConvertible type
+     */
+    private void visit(Element element, TypeMirror convertible) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        Types types = this.processingEnv.getTypeUtils();
+        if (type.getKind() == ElementKind.CLASS && isAccessible(type)
+                && types.isAssignable(types.erasure(type.asType()), convertible)) {
+            this.generate(type);
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            this.visit(enclosed, convertible);
+        }
+    }
+
+    /**
+     * @param type class
+     * @return true if class can be used from generated class of the same package
+     */
+    private static boolean isAccessible(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement current = (TypeElement) element;
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            } else if (current.getNestingKind() == NestingKind.MEMBER) {
+                if (!current.getModifiers().contains(Modifier.STATIC) && current.getKind() == ElementKind.CLASS
+                        && current.getEnclosingElement().getKind() == ElementKind.CLASS) {
+                    return false;
+                }
+            } else if (current.getNestingKind() != NestingKind.TOP_LEVEL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * write codec source of the class
+     * @param type convertible class
+     */
+    private void generate(TypeElement type) {
+        String instantiation = this.instantiation(type);
+        if (instantiation == null) {
+            return;
+        }
+        Elements elements = this.processingEnv.getElementUtils();
+        Types types = this.processingEnv.getTypeUtils();
+        PackageElement pkg = elements.getPackageOf(type);
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (pkg.isUnnamed() ? binaryName : binaryName.substring(pkg.getQualifiedName().length() + 1)) + SUFFIX;
+        String className = types.erasure(type.asType()).toString();
+
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.FINAL) && !modifiers.contains(Modifier.STATIC) && !this.isIgnored(field)) {
+                fields.add(field);
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!pkg.isUnnamed()) {
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        // comment instead of @Generated, unclaimed annotation of generated source would be a lint warning too
+        source.append("// generated by ").append(JsonCodecProcessor.class.getName()).append("\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"cast\"})\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements ").append(CODEC).append("<").append(className).append("> {\n");
+        boolean hasPrivate = false;
+        for (int i = 0; i < fields.size(); i++) {
+            if (isPrivate(fields.get(i))) {
+                source.append("    private static final java.lang.invoke.VarHandle ").append(handleName(i))
+                        .append(" = handle(\"").append(fields.get(i).getSimpleName()).append("\", ")
+                        .append(types.erasure(fields.get(i).asType())).append(".class);\n");
+                hasPrivate = true;
+            }
+        }
+        source.append("\n");
+        if (hasPrivate) {
+            source.append("    private static java.lang.invoke.VarHandle handle(String name, Class<?> type) {\n")
+                    .append("        try {\n")
+                    .append("            return java.lang.invoke.MethodHandles.privateLookupIn(").append(className)
+                    .append(".class, java.lang.invoke.MethodHandles.lookup())\n")
+                    .append("                    .findVarHandle(").append(className).append(".class, name, type);\n")
+                    .append("        } catch (ReflectiveOperationException ex) {\n")
+                    .append("            throw new ExceptionInInitializerError(ex);\n")
+                    .append("        }\n    }\n\n");
+        }
+
+        source.append("    @Override\n    public String[] fields() {\n        return new String[] {");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "\"" : ", \"").append(fields.get(i).getSimpleName()).append("\"");
+        }
+        source.append("};\n    }\n\n");
+
+        source.append("    @Override\n    public ").append(className).append(" newInstance() {\n        ")
+                .append(instantiation).append(";\n    }\n\n");
+
+        source.append("    @Override\n    public Object get(").append(className).append(" instance, int field) {\n");
+        source.append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            source.append("            case ").append(i).append(":\n                return ");
+            if (isPrivate(field)) {
+                source.append("(").append(types.erasure(field.asType())).append(") ").append(handleName(i)).append(".get(instance);\n");
+            } else {
+                source.append("instance.").append(field.getSimpleName()).append(";\n");
+            }
+        }
+        appendDefault(source);
+
+        source.append("    @Override\n    public void set(").append(className).append(" instance, int field, Object value) {\n");
+        source.append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            TypeMirror fieldType = fields.get(i).asType();
+            String cast = fieldType.getKind().isPrimitive()
+                    ? types.boxedClass((PrimitiveType) fieldType).getQualifiedName().toString()
+                    : types.erasure(fieldType).toString();
+            // var handle is called with exact field type, so boxed value is unboxed here like in assignment
+            String value = isPrivate(fields.get(i)) && fieldType.getKind().isPrimitive()
+                    ? "(" + types.erasure(fieldType) + ") (" + cast + ") value" : "(" + cast + ") value";
+            appendAssignment(source, i, fields.get(i), value);
+        }
+        appendDefault(source);
+
+        appendPrimitiveSetter(source, className, "setInt", "int", TypeKind.INT, fields);
+        appendPrimitiveSetter(source, className, "setLong", "long", TypeKind.LONG, fields);
+        appendPrimitiveSetter(source, className, "setDouble", "double", TypeKind.DOUBLE, fields);
+        appendPrimitiveSetter(source, className, "setBoolean", "boolean", TypeKind.BOOLEAN, fields);
+        source.setLength(source.length() - 1);
+        source.append("}\n");
+
+        String qualifiedName = pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException ex) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Can't write " + qualifiedName + ": " + ex.getMessage(), type);
+        }
+    }
+
+    /**
+     * @param type class
+     * @return body of newInstance method throwing the same exception as reflection would
+     *         or null if class has private default constructor that only reflection can call
+     */
+    private String instantiation(TypeElement type) {
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "throw new RuntimeException(new InstantiationException(\"" + binaryName + "\"))";
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                if (constructor.getModifiers().contains(Modifier.PRIVATE) || !constructor.getThrownTypes().isEmpty()) {
+                    return null;
+                }
+                return "return new " + this.processingEnv.getTypeUtils().erasure(type.asType()) + "()";
+            }
+        }
+        return "throw new RuntimeException(new NoSuchMethodException(\"" + binaryName + ".<init>()\"))";
+    }
+
+    /**
+     * @param field field
+     * @return true if field has JsonIgnore annotation
+     */
+    private boolean isIgnored(VariableElement field) {
+        return field.getAnnotationMirrors().stream()
+                .anyMatch(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(IGNORE));
+    }
+
+    private static void appendPrimitiveSetter(StringBuilder source, String className, String method, String type,
+                                              TypeKind kind, List<VariableElement> fields) {
+        source.append("    @Override\n    public void ").append(method).append("(").append(className)
+                .append(" instance, int field, ").append(type).append(" value) {\n");
+        source.append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).asType().getKind() == kind) {
+                appendAssignment(source, i, fields.get(i), "value");
+            }
+        }
+        appendDefault(source);
+    }
+
+    private static void appendAssignment(StringBuilder source, int index, VariableElement field, String value) {
+        source.append("            case ").append(index).append(":\n                ");
+        if (isPrivate(field)) {
+            source.append(handleName(index)).append(".set(instance, ").append(value).append(");\n                return;\n");
+        } else {
+            source.append("instance.").append(field.getSimpleName()).append(" = ").append(value).append(";\n                return;\n");
+        }
+    }
+
+    private static boolean isPrivate(VariableElement field) {
+        return field.getModifiers().contains(Modifier.PRIVATE);
+    }
+
+    /**
+     * @param index field index
+     * @return name of the var handle constant of private field
+     */
+    private static String handleName(int index) {
+        return "FIELD_" + index;
+    }
+
+    private static void appendDefault(StringBuilder source) {
+        source.append("            default:\n                throw new IndexOutOfBoundsException(\"Field \" + field);\n");
+        source.append("        }\n    }\n\n");
+    }
+
+}
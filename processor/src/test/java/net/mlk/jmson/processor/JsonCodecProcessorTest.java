@@ -0,0 +1,202 @@
+package net.mlk.jmson.processor;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.utils.JsonCodec;
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class JsonCodecProcessorTest {
+    private static final String DTO = "package demo;\n"
+            + "import net.mlk.jmson.annotations.JsonField;\n"
+            + "import net.mlk.jmson.annotations.JsonIgnore;\n"
+            + "import net.mlk.jmson.annotations.JsonObject;\n"
+            + "import net.mlk.jmson.utils.JsonConvertible;\n"
+            + "@JsonObject(ignoreNull = true)\n"
+            + "public class Dto implements JsonConvertible {\n"
+            + "    @JsonField(key = \"n\")\n"
+            + "    int number;\n"
+            + "    long count;\n"
+            + "    double price;\n"
+            + "    boolean active;\n"
+            + "    String name;\n"
+            + "    java.util.List<String> tags;\n"
+            + "    @JsonIgnore\n"
+            + "    String ignored;\n"
+            + "    private String hidden;\n"
+            + "    private int secret;\n"
+            + "    final String constant = \"c\";\n"
+            + "    static String shared;\n"
+            + "    public static class Nested implements JsonConvertible {\n"
+            + "        Integer value;\n"
+            + "    }\n"
+            + "    public abstract static class Base implements JsonConvertible {\n"
+            + "        int id;\n"
+            + "    }\n"
+            + "    public static class Private implements JsonConvertible {\n"
+            + "        private Private() {\n"
+            + "        }\n"
+            + "    }\n"
+            + "}\n";
+    private static final String PLAIN = "package demo;\n"
+            + "public class Plain implements net.mlk.jmson.utils.JsonConvertible {\n"
+            + "    String text;\n"
+            + "}\n";
+
+    /**
+     * result of one compilation
+     */
+    private static final class Compilation {
+        final Path classes;
+        final Path sources;
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        final boolean success;
+
+        Compilation(String... sources) throws IOException {
+            this.classes = Files.createTempDirectory("classes");
+            this.sources = Files.createTempDirectory("sources");
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+            List<JavaFileObject> units = new ArrayList<>();
+            for (String source : sources) {
+                String name = source.substring(source.indexOf("class ") + 6, source.indexOf(' ', source.indexOf("class ") + 6));
+                units.add(new SimpleJavaFileObject(URI.create("string:///demo/" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        return source;
+                    }
+                });
+            }
+            try (StandardJavaFileManager files = compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8)) {
+                List<String> options = Arrays.asList("-Xlint:all", "-Werror",
+                        "-classpath", System.getProperty("java.class.path"),
+                        "-d", this.classes.toString(), "-s", this.sources.toString());
+                JavaCompiler.CompilationTask task = compiler.getTask(null, files, collector, options, null, units);
+                task.setProcessors(Collections.singletonList(new JsonCodecProcessor()));
+                this.success = task.call();
+            }
+            this.diagnostics = collector.getDiagnostics();
+        }
+
+        String source(String name) throws IOException {
+            Path path = this.sources.resolve("demo").resolve(name + ".java");
+            return Files.exists(path) ? new String(Files.readAllBytes(path), StandardCharsets.UTF_8) : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        JsonCodec<Object> codec(ClassLoader loader, String name) throws ReflectiveOperationException {
+            return (JsonCodec<Object>) loader.loadClass("demo." + name + JsonCodec.SUFFIX).getDeclaredConstructor().newInstance();
+        }
+
+        URLClassLoader loader() throws IOException {
+            return new URLClassLoader(new URL[] {this.classes.toUri().toURL()}, JsonCodecProcessorTest.class.getClassLoader());
+        }
+    }
+
+    public static void testCompilesWithoutWarningsUnderWerror() throws IOException {
+        Compilation compilation = new Compilation(DTO);
+        assertTrue(compilation.success, compilation.diagnostics.toString());
+        assertEquals(Collections.emptyList(), compilation.diagnostics);
+    }
+
+    public static void testGeneratedSource() throws IOException {
+        String source = new Compilation(DTO).source("Dto$JsonCodec");
+        assertTrue(source != null, "Dto$JsonCodec is not generated");
+        assertTrue(source.startsWith("package demo;\n"), source);
+        assertTrue(source.contains("public final class Dto$JsonCodec implements net.mlk.jmson.utils.JsonCodec<demo.Dto> {"), source);
+        assertTrue(source.contains("return new String[] {\"number\", \"count\", \"price\", \"active\", \"name\", \"tags\", "
+                + "\"hidden\", \"secret\"};"), source);
+        assertTrue(source.contains("public demo.Dto newInstance() {\n        return new demo.Dto();"), source);
+        assertTrue(source.contains("instance.tags = (java.util.List) value;"), source);
+        assertTrue(source.contains("public void setInt(demo.Dto instance, int field, int value) {\n"
+                + "        switch (field) {\n            case 0:\n                instance.number = value;"), source);
+        assertTrue(source.contains("private static final java.lang.invoke.VarHandle FIELD_6 = handle(\"hidden\", java.lang.String.class);"), source);
+        assertTrue(source.contains("FIELD_7.set(instance, (int) (java.lang.Integer) value);"), source);
+        assertTrue(source.contains("return (int) FIELD_7.get(instance);"), source);
+        for (String field : new String[] {"ignored", "hidden", "secret", "constant", "shared"}) {
+            assertTrue(!source.contains("instance." + field), field + " is accessed by codec");
+        }
+    }
+
+    public static void testNestedAndAbstractClasses() throws IOException {
+        Compilation compilation = new Compilation(DTO);
+        assertTrue(compilation.source("Dto$Nested$JsonCodec") != null, "nested codec is not generated");
+        assertTrue(compilation.source("Dto$Base$JsonCodec").contains(
+                "throw new RuntimeException(new InstantiationException(\"demo.Dto$Base\"));"), "abstract codec");
+        assertEquals(null, compilation.source("Dto$Private$JsonCodec"));
+    }
+
+    public static void testUnannotatedClassesOfTheRound() throws IOException {
+        Compilation compilation = new Compilation(DTO, PLAIN);
+        assertTrue(compilation.source("Plain$JsonCodec") != null, "codec of class without annotations");
+        assertEquals(null, new Compilation(PLAIN).source("Plain$JsonCodec"));
+    }
+
+    public static void testConverterUsesPrivateFieldsOfCodec() throws IOException, ReflectiveOperationException {
+        Compilation compilation = new Compilation(DTO);
+        try (URLClassLoader loader = compilation.loader()) {
+            Class<? extends JsonConvertible> type = loader.loadClass("demo.Dto").asSubclass(JsonConvertible.class);
+            JsonConvertible dto = JsonConverter.convertToObject(new Json("{\"hidden\":\"h\", \"secret\":3}"), type);
+            JsonCodec<Object> codec = compilation.codec(loader, "Dto");
+            assertEquals(Arrays.asList("h", 3), Arrays.asList(codec.get(dto, 6), codec.get(dto, 7)));
+            assertEquals(5, codec.get(JsonConverter.readValue("{\"secret\":5}", type), 7));
+            assertEquals("h", JsonConverter.convertToJson(dto).get("hidden"));
+        }
+    }
+
+    public static void testGeneratedCodecAccessesFields() throws IOException, ReflectiveOperationException {
+        Compilation compilation = new Compilation(DTO);
+        try (URLClassLoader loader = compilation.loader()) {
+            JsonCodec<Object> codec = compilation.codec(loader, "Dto");
+            Object dto = codec.newInstance();
+            assertEquals("demo.Dto", dto.getClass().getName());
+            codec.setInt(dto, 0, 5);
+            codec.setLong(dto, 1, 6L);
+            codec.setDouble(dto, 2, 7.5);
+            codec.setBoolean(dto, 3, true);
+            codec.set(dto, 4, "x");
+            codec.set(dto, 5, Arrays.asList("a", "b"));
+            assertEquals(Arrays.asList(5, 6L, 7.5, true, "x", Arrays.asList("a", "b")),
+                    Arrays.asList(codec.get(dto, 0), codec.get(dto, 1), codec.get(dto, 2), codec.get(dto, 3),
+                            codec.get(dto, 4), codec.get(dto, 5)));
+            codec.set(dto, 0, 9);
+            assertEquals(9, codec.get(dto, 0));
+            codec.set(dto, 6, "h");
+            codec.setInt(dto, 7, 3);
+            assertEquals(Arrays.asList("h", 3), Arrays.asList(codec.get(dto, 6), codec.get(dto, 7)));
+            codec.set(dto, 7, 4);
+            assertEquals(4, codec.get(dto, 7));
+            assertThrows(IndexOutOfBoundsException.class, () -> codec.get(dto, 8));
+            assertThrows(IndexOutOfBoundsException.class, () -> codec.setInt(dto, 1, 1));
+            assertThrows(ClassCastException.class, () -> codec.set(dto, 4, 1));
+            assertThrows(ClassCastException.class, () -> codec.set(dto, 6, 1));
+
+            JsonCodec<Object> base = compilation.codec(loader, "Dto$Base");
+            RuntimeException ex = assertThrows(RuntimeException.class, base::newInstance);
+            assertTrue(ex.getCause() instanceof InstantiationException, String.valueOf(ex.getCause()));
+        }
+    }
+
+}
@@ -0,0 +1,399 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * non-blocking push parser of utf-8 input.
+ * input is fed by chunks of any size as it arrives, tokens and values are returned
+ * as soon as they are complete and parse state is kept between chunks.
+ * only the current incomplete token is buffered, methods never wait for input
+ */
+public final class AsyncJsonParser {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int DOCUMENT = 1;
+    private static final int ARRAY_START = 2;
+    private static final int ARRAY_VALUE = 3;
+    private static final int ARRAY_AFTER = 4;
+    private static final int OBJECT_START = 5;
+    private static final int OBJECT_NAME = 6;
+    private static final int OBJECT_COLON = 7;
+    private static final int OBJECT_VALUE = 8;
+    private static final int OBJECT_AFTER = 9;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long consumed;
+    private int resume;
+    private boolean ended;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+    private String name;
+    private Object value;
+
+    private boolean parseTypes = true;
+    private KeyCache keyCache;
+    private boolean compact;
+    private Utf8Parser decoder;
+    private final List<Object> containers = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+
+    public AsyncJsonParser() {
+        this.stack[this.stackSize++] = DOCUMENT;
+    }
+
+    /**
+     * @param parseTypes if false integers become a string etc
+     * @return this
+     */
+    public AsyncJsonParser parseTypes(boolean parseTypes) {
+        this.parseTypes = parseTypes;
+        return this;
+    }
+
+    /**
+     * @param compact if true objects built by nextValue store values in array by key layout
+     *                shared with objects of the same keys and arrays of numbers store them in primitive array
+     * @return this
+     */
+    public AsyncJsonParser compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * @param keyCache cache to take repeated names from or null to create new string for every name
+     * @return this
+     */
+    public AsyncJsonParser keyCache(KeyCache keyCache) {
+        this.keyCache = keyCache;
+        this.decoder = null;
+        return this;
+    }
+
+    /**
+     * copy remaining bytes of the chunk, buffer position is moved to its limit
+     * @param chunk next part of the input
+     * @return this
+     */
+    public AsyncJsonParser feed(ByteBuffer chunk) {
+        if (this.ended) {
+            throw new IllegalStateException("Input is already ended");
+        }
+        int length = chunk.remaining();
+        this.ensureCapacity(length);
+        chunk.get(this.buffer, this.limit, length);
+        this.limit += length;
+        return this;
+    }
+
+    /**
+     * @param bytes next part of the input
+     * @return this
+     */
+    public AsyncJsonParser feed(byte[] bytes) {
+        return this.feed(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * mark that no more input will be fed, last literal is completed by the end of input
+     * @return this
+     */
+    public AsyncJsonParser endOfInput() {
+        this.ended = true;
+        return this;
+    }
+
+    /**
+     * @return next token, null if more input is needed or END_DOCUMENT after the end of input
+     */
+    public JsonToken nextToken() {
+        if (this.consumed + this.pos == 0 && this.limit > 0 && this.buffer[0] == (byte) 0xef) {
+            if (this.limit < 3 && !this.ended) {
+                return null;
+            } else if (this.limit >= 3 && this.buffer[1] == (byte) 0xbb && this.buffer[2] == (byte) 0xbf) {
+                this.pos = 3;
+            }
+        }
+        while (true) {
+            int p = this.skipWhitespace(this.pos);
+            this.pos = p;
+            if (p == this.limit) {
+                if (!this.ended) {
+                    return null;
+                } else if (this.stackSize != 1) {
+                    throw this.syntaxError("Unexpected end of input", p);
+                }
+                return JsonToken.END_DOCUMENT;
+            }
+            byte c = this.buffer[p];
+            int scope = this.stack[this.stackSize - 1];
+            switch (scope) {
+                case ARRAY_AFTER:
+                    if (c == ',') {
+                        this.stack[this.stackSize - 1] = ARRAY_VALUE;
+                        this.pos++;
+                        continue;
+                    } else if (c == ']') {
+                        return this.close(JsonToken.END_ARRAY);
+                    }
+                    throw this.syntaxError("Expected ',' or ']'", p);
+                case OBJECT_AFTER:
+                    if (c == ',') {
+                        this.stack[this.stackSize - 1] = OBJECT_NAME;
+                        this.pos++;
+                        continue;
+                    } else if (c == '}') {
+                        return this.close(JsonToken.END_OBJECT);
+                    }
+                    throw this.syntaxError("Expected ',' or '}'", p);
+                case OBJECT_COLON:
+                    if (c != ':') {
+                        throw this.syntaxError("Expected ':'", p);
+                    }
+                    this.stack[this.stackSize - 1] = OBJECT_VALUE;
+                    this.pos++;
+                    continue;
+                case OBJECT_START:
+                    if (c == '}') {
+                        return this.close(JsonToken.END_OBJECT);
+                    }
+                    return this.nextName(p, c);
+                case OBJECT_NAME:
+                    return this.nextName(p, c);
+                case ARRAY_START:
+                    if (c == ']') {
+                        return this.close(JsonToken.END_ARRAY);
+                    }
+                    return this.nextValueToken(p, c);
+                default:
+                    return this.nextValueToken(p, c);
+            }
+        }
+    }
+
+    /**
+     * build next root object or array from tokens, partially built value is kept between calls
+     * @return Json or JsonList, null if more input is needed or input is ended
+     */
+    public JsonObject nextValue() {
+        List<Object> containers = this.containers;
+        JsonToken token;
+        while ((token = this.nextToken()) != null && token != JsonToken.END_DOCUMENT) {
+            Object value;
+            switch (token) {
+                case BEGIN_OBJECT:
+                    value = this.compact ? new CompactJson(this.parseTypes) : new Json().parseTypes(this.parseTypes);
+                    break;
+                case BEGIN_ARRAY:
+                    value = this.compact ? new NumericJsonList(this.parseTypes) : new JsonList().parseTypes(this.parseTypes);
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    value = containers.remove(containers.size() - 1);
+                    this.names.remove(this.names.size() - 1);
+                    if (value instanceof Json) {
+                        ((Json) value).trim();
+                    } else {
+                        ((JsonList) value).trim();
+                    }
+                    if (containers.isEmpty()) {
+                        return (JsonObject) value;
+                    }
+                    continue;
+                case NAME:
+                    this.names.set(this.names.size() - 1, this.name);
+                    continue;
+                default:
+                    value = this.value;
+            }
+
+            if (containers.isEmpty()) {
+                if (!(value instanceof JsonObject)) {
+                    throw this.syntaxError("Expected object or array", this.pos);
+                }
+            } else {
+                Object parent = containers.get(containers.size() - 1);
+                if (parent instanceof Json) {
+                    ((Json) parent).put(this.names.get(this.names.size() - 1), value);
+                } else {
+                    ((JsonList) parent).add(value);
+                }
+            }
+            if (value instanceof JsonObject) {
+                containers.add(value);
+                this.names.add(null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return name of the last NAME token
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return value of the last scalar token
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    /**
+     * @return count of bytes consumed from the start of input
+     */
+    public long getPosition() {
+        return this.consumed + this.pos;
+    }
+
+    private JsonToken close(JsonToken token) {
+        this.pos++;
+        this.stackSize--;
+        return token;
+    }
+
+    private JsonToken nextName(int p, byte c) {
+        int end = this.tokenEnd(p, c);
+        if (end == -1) {
+            return null;
+        } else if (c == '"') {
+            this.name = this.decoder().parseName(p, end);
+        } else if (end == p) {
+            throw this.syntaxError("Expected name", p);
+        } else {
+            this.name = new String(this.buffer, p, end - p, StandardCharsets.UTF_8);
+            if (this.keyCache != null) {
+                this.name = this.keyCache.get(this.name);
+            }
+        }
+        this.pos = end;
+        this.stack[this.stackSize - 1] = OBJECT_COLON;
+        return JsonToken.NAME;
+    }
+
+    private JsonToken nextValueToken(int p, byte c) {
+        int scope = this.stack[this.stackSize - 1];
+        int after = scope == ARRAY_START || scope == ARRAY_VALUE ? ARRAY_AFTER : scope == DOCUMENT ? DOCUMENT : OBJECT_AFTER;
+        if (c == '{' || c == '[') {
+            this.stack[this.stackSize - 1] = after;
+            if (this.stackSize == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+            }
+            this.stack[this.stackSize++] = c == '{' ? OBJECT_START : ARRAY_START;
+            this.pos = p + 1;
+            return c == '{' ? JsonToken.BEGIN_OBJECT : JsonToken.BEGIN_ARRAY;
+        }
+
+        int end = this.tokenEnd(p, c);
+        if (end == -1) {
+            return null;
+        } else if (end == p) {
+            throw this.syntaxError("Expected value", p);
+        }
+        Object value = this.decoder().parseToken(p, end);
+        JsonToken token;
+        if (c == '"') {
+            token = JsonToken.STRING;
+        } else if (value instanceof Number) {
+            token = JsonToken.NUMBER;
+        } else if (value instanceof Boolean) {
+            token = JsonToken.BOOLEAN;
+        } else if (value == null) {
+            token = JsonToken.NULL;
+        } else {
+            token = JsonToken.STRING;
+        }
+        if (!this.parseTypes && c != '"') {
+            value = new String(this.buffer, p, end - p, StandardCharsets.UTF_8);
+        }
+        this.value = value;
+        this.pos = end;
+        this.stack[this.stackSize - 1] = after;
+        return token;
+    }
+
+    /**
+     * find end of the quoted or bare token, scanning of long strings resumes where previous chunk ended
+     * @param p index of the first byte of the token
+     * @param c first byte of the token
+     * @return index after the token or -1 if more input is needed
+     */
+    private int tokenEnd(int p, byte c) {
+        byte[] buffer = this.buffer;
+        int limit = this.limit;
+        if (c == '"') {
+            int i = Math.max(p + 1, this.resume);
+            while (i < limit) {
+                byte b = buffer[i];
+                if (b == '"') {
+                    this.resume = 0;
+                    return i + 1;
+                }
+                i += b == '\\' ? 2 : 1;
+            }
+            if (this.ended) {
+                throw this.syntaxError("Unterminated string", p);
+            }
+            this.resume = i > limit ? i - 2 : i;
+            return -1;
+        }
+        for (int i = p; i < limit; i++) {
+            byte b = buffer[i];
+            if (b == ',' || b == ':' || b == '}' || b == ']' || b == '{' || b == '[' || b == '"'
+                    || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                return i;
+            }
+        }
+        return this.ended ? limit : -1;
+    }
+
+    private int skipWhitespace(int p) {
+        while (p < this.limit) {
+            byte b = this.buffer[p];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * drop consumed bytes and grow buffer for the next chunk
+     * @param length length of the chunk
+     */
+    private void ensureCapacity(int length) {
+        if (this.pos != 0) {
+            System.arraycopy(this.buffer, this.pos, this.buffer, 0, this.limit - this.pos);
+            this.limit -= this.pos;
+            this.resume = Math.max(0, this.resume - this.pos);
+            this.consumed += this.pos;
+            this.pos = 0;
+        }
+        if (this.buffer.length - this.limit < length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.limit + length));
+            this.decoder = null;
+        }
+    }
+
+    private Utf8Parser decoder() {
+        if (this.decoder == null) {
+            this.decoder = new Utf8Parser(ByteBuffer.wrap(this.buffer), true).keyCache(this.keyCache);
+        }
+        return this.decoder;
+    }
+
+    private RuntimeException syntaxError(String message, int position) {
+        return new RuntimeException(message + " at " + (this.consumed + position));
+    }
+
+}
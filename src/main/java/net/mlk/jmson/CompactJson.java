@@ -0,0 +1,490 @@
+package net.mlk.jmson;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * json storing values in flat array laid out by shared shape.
+ * shape is ordered list of keys shared by all objects which got the same keys in the same order,
+ * so object keeps only array of values instead of hash table and entry per key, keys are shared too.
+ * removing keys, compute methods or too many keys move object to ordinary map storage
+ */
+final class CompactJson extends Json {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_KEYS = 64;
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private Shape shape = Shape.EMPTY;
+    private Object[] values = NO_VALUES;
+
+    CompactJson(boolean parseTypes) {
+        this.parseTypes(parseTypes);
+    }
+
+    /**
+     * move values to map storage, object stays there until cleared
+     */
+    private void inflate() {
+        Shape shape = this.shape;
+        if (shape == null) {
+            return;
+        }
+        Object[] values = this.values;
+        this.shape = null;
+        this.values = null;
+        for (int i = 0; i < shape.keys.length; i++) {
+            super.put(shape.keys[i], values[i]);
+        }
+    }
+
+    /**
+     * @return shared key layout or null if values are moved to map storage
+     */
+    Shape shape() {
+        return this.shape;
+    }
+
+    /**
+     * drop unused capacity of values, called when parser has read the whole object
+     */
+    @Override
+    void trim() {
+        if (this.shape != null && this.values.length != this.shape.keys.length) {
+            this.values = Arrays.copyOf(this.values, this.shape.keys.length);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.shape != null ? this.shape.keys.length : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (this.shape == null) {
+            return super.get(key);
+        }
+        int index = this.shape.indexOf(key);
+        return index != -1 ? this.values[index] : null;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        if (this.shape == null) {
+            return super.getOrDefault(key, defaultValue);
+        }
+        int index = this.shape.indexOf(key);
+        return index != -1 ? this.values[index] : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.shape != null ? this.shape.indexOf(key) != -1 : super.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (this.shape == null) {
+            return super.containsValue(value);
+        }
+        for (int i = 0; i < this.shape.keys.length; i++) {
+            if (Objects.equals(value, this.values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Shape shape = this.shape;
+        if (shape != null) {
+            int index = shape.indexOf(key);
+            if (index != -1) {
+                Object previous = this.values[index];
+                this.values[index] = value;
+                return previous;
+            }
+            int size = shape.keys.length;
+            if (size < MAX_KEYS) {
+                if (this.values.length == size) {
+                    this.values = Arrays.copyOf(this.values, Math.max(4, size * 2));
+                }
+                this.shape = shape.with(key);
+                this.values[size] = value;
+                return null;
+            }
+            this.inflate();
+        }
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        for (Map.Entry<? extends String, ?> entry : map.entrySet()) {
+            this.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (this.shape != null && this.shape.indexOf(key) == -1) {
+            return null;
+        }
+        this.inflate();
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        this.inflate();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        if (this.shape == null) {
+            return super.putIfAbsent(key, value);
+        }
+        Object current = this.get(key);
+        return current == null ? this.put(key, value) : current;
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        if (this.shape == null) {
+            return super.replace(key, value);
+        }
+        return this.containsKey(key) ? this.put(key, value) : null;
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        this.inflate();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        this.inflate();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        this.inflate();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        this.inflate();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        this.inflate();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        Shape shape = this.shape;
+        if (shape == null) {
+            super.forEach(action);
+            return;
+        }
+        for (int i = 0; i < shape.keys.length; i++) {
+            action.accept(shape.keys[i], this.values[i]);
+            if (this.shape != shape) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        Shape shape = this.shape;
+        if (shape == null) {
+            super.replaceAll(function);
+            return;
+        }
+        for (int i = 0; i < shape.keys.length; i++) {
+            this.values[i] = function.apply(shape.keys[i], this.values[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.shape = Shape.EMPTY;
+        this.values = NO_VALUES;
+    }
+
+    @Override
+    public Object clone() {
+        CompactJson json = (CompactJson) super.clone();
+        if (json.values != null) {
+            json.values = json.values.clone();
+        }
+        return json;
+    }
+
+    /**
+     * serialized as ordinary json, hash map serialization doesn't see values array
+     * @return copy of this json
+     */
+    private Object writeReplace() {
+        return this.copy();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return this.shape != null ? new KeySet() : super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return this.shape != null ? new Values() : super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return this.shape != null ? new EntrySet() : super.entrySet();
+    }
+
+    /**
+     * iterator over keys of the shape, removal is not supported
+     * @param <T> type of the elements
+     */
+    private abstract class ShapeIterator<T> implements Iterator<T> {
+        private final Shape shape = CompactJson.this.shape;
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.shape.keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (CompactJson.this.shape != this.shape) {
+                throw new ConcurrentModificationException();
+            } else if (this.next == this.shape.keys.length) {
+                throw new NoSuchElementException();
+            }
+            return this.element(this.next++);
+        }
+
+        abstract T element(int index);
+    }
+
+    private final class KeySet extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            return new ShapeIterator<String>() {
+                @Override
+                String element(int index) {
+                    return CompactJson.this.shape.keys[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactJson.this.size();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return CompactJson.this.containsKey(key);
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            boolean contains = CompactJson.this.containsKey(key);
+            CompactJson.this.remove(key);
+            return contains;
+        }
+    }
+
+    private final class Values extends AbstractCollection<Object> {
+        @Override
+        public Iterator<Object> iterator() {
+            return new ShapeIterator<Object>() {
+                @Override
+                Object element(int index) {
+                    return CompactJson.this.values[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactJson.this.size();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new ShapeIterator<Map.Entry<String, Object>>() {
+                @Override
+                Map.Entry<String, Object> element(int index) {
+                    return new Entry(index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return CompactJson.this.size();
+        }
+    }
+
+    /**
+     * entry writing value through to the object
+     */
+    private final class Entry implements Map.Entry<String, Object> {
+        private final String key;
+        private final int index;
+
+        Entry(int index) {
+            this.key = CompactJson.this.shape.keys[index];
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public Object getValue() {
+            return CompactJson.this.shape != null ? CompactJson.this.values[this.index] : CompactJson.this.get(this.key);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            if (CompactJson.this.shape == null) {
+                return CompactJson.this.put(this.key, value);
+            }
+            Object previous = CompactJson.this.values[this.index];
+            CompactJson.this.values[this.index] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return this.key.equals(entry.getKey()) && Objects.equals(this.getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.getValue();
+        }
+    }
+
+    /**
+     * ordered key layout, shapes form a tree from the empty one by added keys.
+     * count of shared shapes is bounded, objects with rare layouts get own not cached shape
+     */
+    static final class Shape {
+        private static final int MAX_SHAPES = 16384;
+        private static final int MAX_TRANSITIONS = 64;
+        private static final int LINEAR_SEARCH_KEYS = 8;
+        private static final AtomicInteger SHAPES = new AtomicInteger();
+        static final Shape EMPTY = new Shape(new String[0]);
+
+        final String[] keys;
+        private final Map<String, Integer> index;
+        private final ConcurrentHashMap<String, Shape> transitions = new ConcurrentHashMap<>();
+
+        private Shape(String[] keys) {
+            this.keys = keys;
+            if (keys.length > LINEAR_SEARCH_KEYS) {
+                this.index = new HashMap<>();
+                for (int i = 0; i < keys.length; i++) {
+                    this.index.put(keys[i], i);
+                }
+            } else {
+                this.index = null;
+            }
+        }
+
+        /**
+         * @param key key
+         * @return index of the key or -1
+         */
+        int indexOf(Object key) {
+            if (this.index != null) {
+                Integer index = this.index.get(key);
+                return index != null ? index : -1;
+            }
+            String[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param key new key
+         * @return shape with the key added to the end
+         */
+        Shape with(String key) {
+            Shape next = this.transitions.get(key);
+            if (next == null) {
+                String[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+                keys[this.keys.length] = key;
+                next = new Shape(keys);
+                if (this.transitions.size() < MAX_TRANSITIONS && SHAPES.get() < MAX_SHAPES) {
+                    Shape existing = this.transitions.putIfAbsent(key, next);
+                    if (existing != null) {
+                        next = existing;
+                    } else {
+                        SHAPES.incrementAndGet();
+                    }
+                }
+            }
+            return next;
+        }
+    }
+
+}
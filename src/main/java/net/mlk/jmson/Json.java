@@ -1,11 +1,12 @@
 package net.mlk.jmson;
 
-import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.NumberCodec;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.temporal.Temporal;
 import java.util.*;
 
 /**
@@ -27,24 +28,198 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
     }
 
     public Json(File file) {
-        this(file, true);
+        this(file.toPath(), true);
     }
 
     public Json(File file, boolean parseTypes) {
+        this(file.toPath(), parseTypes);
+    }
+
+    public Json(Path path) {
+        this(path, true);
+    }
+
+    public Json(Path path, boolean parseTypes) {
         this.parseTypes = parseTypes;
 
-        try (FileInputStream inputStream = new FileInputStream(file)) {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            int b;
-            while ((b = inputStream.read()) != -1) {
-                byteArrayOutputStream.write(b);
-            }
-            this.parseFromString(byteArrayOutputStream.toString());
+        ByteBuffer mapped = Utf8Parser.map(path);
+        if (mapped != null) {
+            new Utf8Parser(mapped, parseTypes).parseDocument(this);
+            return;
+        }
+        try (JsonReader reader = new JsonReader(path)) {
+            new JsonParser(reader, parseTypes).parseDocument(this);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    public Json(Reader reader) {
+        this(reader, true);
+    }
+
+    public Json(Reader reader, boolean parseTypes) {
+        this.parseTypes = parseTypes;
+        new JsonParser(new JsonReader(reader), parseTypes).parseDocument(this);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded object
+     * @return new Json
+     */
+    public static Json parse(byte[] bytes) {
+        return parse(bytes, 0, bytes.length, true);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded object
+     * @param offset index of the first byte
+     * @param length count of bytes
+     * @return new Json
+     */
+    public static Json parse(byte[] bytes, int offset, int length) {
+        return parse(bytes, offset, length, true);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded object
+     * @param offset index of the first byte
+     * @param length count of bytes
+     * @param parseTypes if false integers become a string etc
+     * @return new Json
+     */
+    public static Json parse(byte[] bytes, int offset, int length, boolean parseTypes) {
+        return parse(ByteBuffer.wrap(bytes, offset, length), parseTypes);
+    }
+
+    /**
+     * parse utf-8 bytes between position and limit,
+     * buffer position is not changed
+     * @param buffer utf-8 encoded object
+     * @return new Json
+     */
+    public static Json parse(ByteBuffer buffer) {
+        return parse(buffer, true);
+    }
+
+    /**
+     * parse utf-8 bytes between position and limit,
+     * buffer position is not changed
+     * @param buffer utf-8 encoded object
+     * @param parseTypes if false integers become a string etc
+     * @return new Json
+     */
+    public static Json parse(ByteBuffer buffer, boolean parseTypes) {
+        Json json = new Json().parseTypes(parseTypes);
+        return new Utf8Parser(buffer, parseTypes).parseDocument(json);
+    }
+
+    /**
+     * parse only keys of the projection, other values are skipped without being parsed
+     * @param rawJson json string
+     * @param projection key paths to keep
+     * @return new Json
+     */
+    public static Json parse(String rawJson, JsonProjection projection) {
+        return parse(rawJson, projection, true);
+    }
+
+    /**
+     * parse only keys of the projection, other values are skipped without being parsed
+     * @param rawJson json string
+     * @param projection key paths to keep
+     * @param parseTypes if false integers become a string etc
+     * @return new Json
+     */
+    public static Json parse(String rawJson, JsonProjection projection, boolean parseTypes) {
+        Json json = new Json().parseTypes(parseTypes);
+        return new JsonParser(new JsonReader(rawJson), parseTypes).parseDocument(json, projection);
+    }
+
+    /**
+     * parse only keys of the projection from utf-8 bytes,
+     * other values are skipped without being decoded
+     * @param bytes utf-8 encoded object
+     * @param projection key paths to keep
+     * @return new Json
+     */
+    public static Json parse(byte[] bytes, JsonProjection projection) {
+        return parse(bytes, projection, true);
+    }
+
+    /**
+     * parse only keys of the projection from utf-8 bytes,
+     * other values are skipped without being decoded
+     * @param bytes utf-8 encoded object
+     * @param projection key paths to keep
+     * @param parseTypes if false integers become a string etc
+     * @return new Json
+     */
+    public static Json parse(byte[] bytes, JsonProjection projection, boolean parseTypes) {
+        Json json = new Json().parseTypes(parseTypes);
+        return new Utf8Parser(ByteBuffer.wrap(bytes), parseTypes).parseDocument(json, projection);
+    }
+
+    /**
+     * create json that parses values on the first access.
+     * only keys and value bounds are read, nested objects are lazy too
+     * and untouched values are written back by toString as they are in source
+     * @param rawJson json string
+     * @return lazy Json
+     */
+    public static Json lazy(String rawJson) {
+        return lazy(rawJson, true);
+    }
+
+    /**
+     * create json that parses values on the first access.
+     * only keys and value bounds are read, nested objects are lazy too
+     * and untouched values are written back by toString as they are in source
+     * @param rawJson json string
+     * @param parseTypes if false integers become a string etc
+     * @return lazy Json
+     */
+    public static Json lazy(String rawJson, boolean parseTypes) {
+        if (!isJson(rawJson)) {
+            throw new RuntimeException("Not json object. " + rawJson);
+        }
+        return new LazyJson(rawJson.toCharArray(), 0, rawJson.length(), parseTypes);
+    }
+
+    /**
+     * create json from utf-8 bytes that parses values on the first access,
+     * bytes are not copied and must not be changed while json is used
+     * @param bytes utf-8 encoded object
+     * @return lazy Json
+     */
+    public static Json lazy(byte[] bytes) {
+        return lazy(bytes, true);
+    }
+
+    /**
+     * create json from utf-8 bytes that parses values on the first access,
+     * bytes are not copied and must not be changed while json is used
+     * @param bytes utf-8 encoded object
+     * @param parseTypes if false integers become a string etc
+     * @return lazy Json
+     */
+    public static Json lazy(byte[] bytes, boolean parseTypes) {
+        return new LazyJson(bytes, 0, bytes.length, parseTypes);
+    }
+
+    /**
+     * create json storing values in array by key layout shared with other objects of the same keys.
+     * it takes several times less memory than ordinary json for many small objects of the same shape,
+     * removing keys and compute methods switch it to ordinary storage
+     * @return empty compact json
+     */
+    public static Json compact() {
+        return new CompactJson(true);
+    }
+
     /**
      * @return copied json
      */
@@ -63,7 +238,7 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
      * @return this
      */
     public Json append(String key, Object value) {
-        super.put(key, value);
+        this.put(key, value);
         return this;
     }
 
@@ -72,7 +247,7 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
      * @return string if exists
      */
     public String getString(String key) {
-        return String.valueOf(super.get(key));
+        return String.valueOf(this.get(key));
     }
 
     /**
@@ -118,6 +293,10 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
      * @throws IllegalStateException if not exists
      */
     public long getLong(String key) {
+        Object obj = this.get(key);
+        if (obj instanceof Integer || obj instanceof Long) {
+            return ((Number) obj).longValue();
+        }
         String value = this.getString(key);
         if (value == null) {
             throw new IllegalStateException("Element " + key + " doesn't exists in json.");
@@ -141,11 +320,15 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
      * @throws IllegalStateException if not exists
      */
     public double getDouble(String key) {
+        Object obj = this.get(key);
+        if (obj instanceof Double) {
+            return (Double) obj;
+        }
         String value = this.getString(key);
         if (value == null) {
             throw new IllegalStateException("Element " + key + " doesn't exists in json.");
         }
-        return Double.parseDouble(value);
+        return NumberCodec.parseDouble(value);
     }
 
     /**
@@ -165,13 +348,11 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
         if (obj == null) {
             return null;
         }
-        String value = obj.toString();
-        if (!(obj instanceof JsonList) && JsonList.isList(value)) {
-            return new JsonList(value);
-        } else if (!(obj instanceof JsonList)) {
-            return null;
+        if (obj instanceof JsonList) {
+            return (JsonList) obj;
         }
-        return (JsonList) obj;
+        String value = obj.toString();
+        return JsonList.isList(value) ? new JsonList(value) : null;
     }
 
     /**
@@ -184,13 +365,11 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
             return null;
         }
 
-        String value = obj.toString();
-        if (!(obj instanceof Json) && Json.isJson(value)) {
-            return new Json(value);
-        } else if (!(obj instanceof Json)) {
-            return null;
+        if (obj instanceof Json) {
+            return (Json) obj;
         }
-        return (Json) obj;
+        String value = obj.toString();
+        return Json.isJson(value) ? new Json(value) : null;
     }
 
     /**
@@ -230,58 +409,8 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
         if (!isJson(rawJson)) {
             throw new RuntimeException("Not json object. " + rawJson);
         }
-        if (rawJson.length() - 2 <= 0) {
-            return this;
-        }
-        super.clear();
-
-        boolean quoted = false;
-        StringBuilder block = new StringBuilder();
-        String[] pair = new String[2];
-        int level = 0;
-        for (int i = 1; i < rawJson.length(); i++) {
-            char currentChar = rawJson.charAt(i);
-            char prevChar = rawJson.charAt(i - 1);
-            level += (!quoted && (currentChar == '{' || currentChar == '[')) ? 1 :
-                    (!quoted && (currentChar == '}' || currentChar == ']')) ? -1 : 0;
-
-            if (level == 0 || i + 1 == rawJson.length()) {
-                if (!quoted && currentChar == ',' || i  == rawJson.length() - 1) {
-                    if (pair[0] == null) {
-                        throw new RuntimeException("Expected value, but It's not at " + i);
-                    }
-                    pair[1] = JsonConverter.decodeUnicode(block.toString());
-
-                    if (Json.isJson(pair[1]) && prevChar != '\"') {
-                        super.put(pair[0], new Json(pair[1].trim(), this.parseTypes));
-                    } else if (JsonList.isList(pair[1]) && prevChar != '\"') {
-                        super.put(pair[0], new JsonList(pair[1].trim(), this.parseTypes));
-                    } else {
-                        if (this.parseTypes && prevChar != '\"') {
-                            super.put(pair[0], JsonConverter.autoParseToType(pair[1]));
-                        } else {
-                            super.put(pair[0], pair[1]);
-                        }
-                    }
-                    pair = new String[2];
-                    block.setLength(0);
-                    continue;
-                } else if (!quoted && currentChar == ':') {
-                    pair[0] = block.toString().trim();
-                    block.setLength(0);
-                    continue;
-                } else if (currentChar == '\"' && prevChar != '\\') {
-                    quoted = !quoted;
-                    continue;
-                }
-            }
-
-            if (currentChar == ' ' && level != 0 || quoted || currentChar != ' ') {
-                block.append(currentChar);
-            }
-        }
-
-        return this;
+        this.clear();
+        return new JsonParser(new JsonReader(rawJson), this.parseTypes).parseDocument(this);
     }
 
     /**
@@ -311,24 +440,49 @@ public class Json extends LinkedHashMap<String, Object> implements JsonObject {
         return rawJson != null && rawJson.trim().startsWith("{") && rawJson.endsWith("}");
     }
 
+    /**
+     * write json to writer without building the whole string,
+     * writer is flushed but not closed
+     * @param writer writer
+     */
+    public void writeTo(Writer writer) {
+        new JsonWriter(writer).value(this).flush();
+    }
+
+    /**
+     * write json to stream in utf-8,
+     * stream is flushed but not closed
+     * @param outputStream stream
+     */
+    public void writeTo(OutputStream outputStream) {
+        new JsonWriter(outputStream).value(this).flush();
+    }
+
+    /**
+     * @return parse types parameter
+     */
+    boolean isParseTypes() {
+        return this.parseTypes;
+    }
+
+    /**
+     * called by parsers when the whole object is read, compact json drops unused capacity
+     */
+    void trim() {
+    }
+
+    /**
+     * @return entries to write, lazy json returns them without parsing
+     */
+    Set<Map.Entry<String, Object>> rawEntries() {
+        return this.entrySet();
+    }
+
     @Override
     public String toString() {
-        StringBuilder json = new StringBuilder("{");
-        Iterator<Map.Entry<String, Object>> entryIterator = super.entrySet().iterator();
-        while (entryIterator.hasNext()) {
-            Map.Entry<String, Object> entry = entryIterator.next();
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            if ((!(value instanceof String || value instanceof Temporal) && this.parseTypes) || value instanceof JsonObject) {
-                json.append("\"").append(key).append("\":").append(value);
-            } else {
-                json.append("\"").append(key).append("\":\"").append(value).append("\"");
-            }
-            if (entryIterator.hasNext()) {
-                json.append(", ");
-            }
-        }
-        return json.append("}").toString();
+        StringBuilder builder = new StringBuilder();
+        new JsonWriter(builder).value(this).flush();
+        return builder.toString();
     }
 
 }
@@ -0,0 +1,145 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * reader of newline delimited json (json lines).
+ * records are pulled one by one through single JsonReader,
+ * so buffer is reused and memory doesn't depend on the count of records
+ */
+public final class JsonLines implements Iterator<Json>, Closeable {
+    private final JsonReader reader;
+
+    public JsonLines(Reader in) {
+        this(new JsonReader(in));
+    }
+
+    public JsonLines(InputStream in) {
+        this(new JsonReader(in));
+    }
+
+    public JsonLines(Path path) {
+        this(new JsonReader(path));
+    }
+
+    private JsonLines(JsonReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * set parse types parameter for the records
+     * @param parseTypes if false integers become a string etc
+     * @return this
+     */
+    public JsonLines parseTypes(boolean parseTypes) {
+        this.reader.parseTypes(parseTypes);
+        return this;
+    }
+
+    /**
+     * @param compact if true records store values in array by key layout shared between records
+     *                and arrays of numbers store them in primitive array
+     * @return this
+     */
+    public JsonLines compact(boolean compact) {
+        this.reader.compact(compact);
+        return this;
+    }
+
+    /**
+     * @param keyCache cache to share keys of the records or null to create new string for every key
+     * @return this
+     */
+    public JsonLines keyCache(KeyCache keyCache) {
+        this.reader.keyCache(keyCache);
+        return this;
+    }
+
+    /**
+     * @return true if input has one more record
+     */
+    @Override
+    public boolean hasNext() {
+        return this.reader.hasNextDocument();
+    }
+
+    /**
+     * @return next record
+     */
+    @Override
+    public Json next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.reader.readJson();
+    }
+
+    /**
+     * read next record straight into new object without building json tree
+     * @param clazz class of the record
+     * @param <T> class that extends JsonConvertible
+     * @return next record
+     */
+    public <T extends JsonConvertible> T next(Class<T> clazz) {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return JsonConverter.readValue(this.reader, clazz);
+    }
+
+    /**
+     * @return sequential stream of records, closing stream closes input
+     */
+    public Stream<Json> stream() {
+        return this.stream(this);
+    }
+
+    /**
+     * @param clazz class of the records
+     * @param <T> class that extends JsonConvertible
+     * @return sequential stream of objects, closing stream closes input
+     */
+    public <T extends JsonConvertible> Stream<T> stream(Class<T> clazz) {
+        return this.stream(new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return JsonLines.this.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return JsonLines.this.next(clazz);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private <T> Stream<T> stream(Iterator<T> iterator) {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                this.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,78 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * writer of newline delimited json (json lines).
+ * every record is encoded by single JsonWriter and ended with '\n',
+ * nothing is kept after the record is written
+ */
+public final class JsonLinesWriter implements Closeable, Flushable {
+    private final JsonWriter writer;
+
+    public JsonLinesWriter(Writer out) {
+        this.writer = new JsonWriter(out).compact(true);
+    }
+
+    public JsonLinesWriter(OutputStream out) {
+        this.writer = new JsonWriter(out).compact(true);
+    }
+
+    /**
+     * open file for appending, file is created if not exists
+     * @param path file path
+     */
+    public JsonLinesWriter(Path path) {
+        this(open(path));
+    }
+
+    /**
+     * @param json record to write
+     * @return this
+     */
+    public JsonLinesWriter write(Json json) {
+        this.writer.value(json).endLine();
+        return this;
+    }
+
+    /**
+     * write object without building json tree
+     * @param instance record to write
+     * @param <T> class that extends JsonConvertible
+     * @return this
+     */
+    public <T extends JsonConvertible> JsonLinesWriter write(T instance) {
+        JsonConverter.writeValue(instance, this.writer);
+        this.writer.endLine();
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    private static OutputStream open(Path path) {
+        try {
+            return Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+}
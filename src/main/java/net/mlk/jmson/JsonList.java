@@ -1,11 +1,21 @@
 package net.mlk.jmson;
 
 import net.mlk.jmson.utils.JsonConverter;
-
-import java.nio.charset.StandardCharsets;
+import net.mlk.jmson.utils.NumberCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * JsonList class
@@ -25,6 +35,106 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
         this.parseFromString(rawList);
     }
 
+    public JsonList(File file) {
+        this(file.toPath(), true);
+    }
+
+    public JsonList(File file, boolean parseTypes) {
+        this(file.toPath(), parseTypes);
+    }
+
+    public JsonList(Path path) {
+        this(path, true);
+    }
+
+    public JsonList(Path path, boolean parseTypes) {
+        this.parseTypes = parseTypes;
+
+        ByteBuffer mapped = Utf8Parser.map(path);
+        if (mapped != null) {
+            new Utf8Parser(mapped, parseTypes).parseDocument(this);
+            return;
+        }
+        try (JsonReader reader = new JsonReader(path)) {
+            new JsonParser(reader, parseTypes).parseDocument(this);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public JsonList(Reader reader) {
+        this(reader, true);
+    }
+
+    public JsonList(Reader reader, boolean parseTypes) {
+        this.parseTypes = parseTypes;
+        new JsonParser(new JsonReader(reader), parseTypes).parseDocument(this);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded list
+     * @return new JsonList
+     */
+    public static JsonList parse(byte[] bytes) {
+        return parse(bytes, 0, bytes.length, true);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded list
+     * @param offset index of the first byte
+     * @param length count of bytes
+     * @return new JsonList
+     */
+    public static JsonList parse(byte[] bytes, int offset, int length) {
+        return parse(bytes, offset, length, true);
+    }
+
+    /**
+     * parse utf-8 bytes without decoding them to string first
+     * @param bytes utf-8 encoded list
+     * @param offset index of the first byte
+     * @param length count of bytes
+     * @param parseTypes if false integers become a string etc
+     * @return new JsonList
+     */
+    public static JsonList parse(byte[] bytes, int offset, int length, boolean parseTypes) {
+        return parse(ByteBuffer.wrap(bytes, offset, length), parseTypes);
+    }
+
+    /**
+     * parse utf-8 bytes between position and limit,
+     * buffer position is not changed
+     * @param buffer utf-8 encoded list
+     * @return new JsonList
+     */
+    public static JsonList parse(ByteBuffer buffer) {
+        return parse(buffer, true);
+    }
+
+    /**
+     * parse utf-8 bytes between position and limit,
+     * buffer position is not changed
+     * @param buffer utf-8 encoded list
+     * @param parseTypes if false integers become a string etc
+     * @return new JsonList
+     */
+    public static JsonList parse(ByteBuffer buffer, boolean parseTypes) {
+        JsonList list = new JsonList().parseTypes(parseTypes);
+        return new Utf8Parser(buffer, parseTypes).parseDocument(list);
+    }
+
+    /**
+     * create list storing numbers in primitive array instead of boxed objects.
+     * get and iteration return the same Integer, Long, Float and Double values as ordinary list,
+     * any other value, insert in the middle or removal switch it to ordinary storage
+     * @return empty compact list
+     */
+    public static JsonList compact() {
+        return new NumericJsonList(true);
+    }
+
     /**
      * @return copied list
      */
@@ -42,7 +152,7 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      * @return this
      */
     public JsonList append(Object value) {
-        super.add(value);
+        this.add(value);
         return this;
     }
 
@@ -56,7 +166,7 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      * @return string
      */
     public String getString(int index) {
-        return String.valueOf(super.get(index));
+        return String.valueOf(this.get(index));
     }
 
     /**
@@ -101,6 +211,10 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      * @throws IllegalStateException if not exists
      */
     public long getLong(int index) {
+        Object obj = this.get(index);
+        if (obj instanceof Integer || obj instanceof Long) {
+            return ((Number) obj).longValue();
+        }
         String value = this.getString(index);
         if (value == null) {
             throw new IllegalStateException("Element at " + index + " doesn't exists in json.");
@@ -123,13 +237,70 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      * @throws IllegalStateException if not exists
      */
     public double getDouble(int index) {
+        Object obj = this.get(index);
+        if (obj instanceof Double) {
+            return (Double) obj;
+        }
         String value = this.getString(index);
         if (value == null) {
             throw new IllegalStateException("Element at " + index + " doesn't exists in json.");
         }
-        return Double.parseDouble(value);
+        return NumberCodec.parseDouble(value);
+    }
+
+    /**
+     * @return all elements as int, elements are read as by getInteger
+     */
+    public int[] toIntArray() {
+        int[] array = new int[this.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.getInteger(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return all elements as long, elements are read as by getLong
+     */
+    public long[] toLongArray() {
+        long[] array = new long[this.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.getLong(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return all elements as double, elements are read as by getDouble
+     */
+    public double[] toDoubleArray() {
+        double[] array = new double[this.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.getDouble(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return stream of the elements read as by getInteger
+     */
+    public IntStream intStream() {
+        return Arrays.stream(this.toIntArray());
     }
 
+    /**
+     * @return stream of the elements read as by getLong
+     */
+    public LongStream longStream() {
+        return Arrays.stream(this.toLongArray());
+    }
+
+    /**
+     * @return stream of the elements read as by getDouble
+     */
+    public DoubleStream doubleStream() {
+        return Arrays.stream(this.toDoubleArray());
+    }
 
     /**
      * @param index index of the value
@@ -148,13 +319,11 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
         if (obj == null) {
             return null;
         }
-        String value = obj.toString();
-        if (!(obj instanceof JsonList) && JsonList.isList(value)) {
-            return new JsonList(value);
-        } else if (!(obj instanceof JsonList)) {
-            return null;
+        if (obj instanceof JsonList) {
+            return (JsonList) obj;
         }
-        return (JsonList) obj;
+        String value = obj.toString();
+        return JsonList.isList(value) ? new JsonList(value) : null;
     }
 
     /**
@@ -167,13 +336,11 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
             return null;
         }
 
-        String value = obj.toString();
-        if (!(obj instanceof Json) && Json.isJson(value)) {
-            return new Json(value);
-        } else if (!(obj instanceof Json)) {
-            return null;
+        if (obj instanceof Json) {
+            return (Json) obj;
         }
-        return (Json) obj;
+        String value = obj.toString();
+        return Json.isJson(value) ? new Json(value) : null;
     }
 
     /**
@@ -182,7 +349,7 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      */
     public List<Json> getListWithJsons(int index) {
         List<Json> result = new ArrayList<>();
-        for (Object obj : ((JsonList)super.get(index))) {
+        for (Object obj : ((JsonList)this.get(index))) {
             if (obj instanceof Json) {
                 result.add((Json) obj);
             }
@@ -209,7 +376,7 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
      */
     public List<JsonList> getListWithLists(int index) {
         List<JsonList> result = new ArrayList<>();
-        for (Object obj : ((JsonList)super.get(index))) {
+        for (Object obj : ((JsonList)this.get(index))) {
             if (obj instanceof JsonList) {
                 result.add((JsonList) obj);
             }
@@ -255,49 +422,8 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
         if (!isList(rawList)) {
             throw new RuntimeException("Not list object. " + rawList);
         }
-        if (rawList.length() - 2 <= 0) {
-            return this;
-        }
-        super.clear();
-
-        int level = 0;
-        boolean quoted = false;
-        StringBuilder block = new StringBuilder();
-        for (int i = 1; i < rawList.length(); i++) {
-            char currentChar = rawList.charAt(i);
-            char prevChar = rawList.charAt(i - 1);
-            level += (!quoted && (currentChar == '{' || currentChar == '[')) ? 1 :
-                    (!quoted && (currentChar == '}' || currentChar == ']')) ? -1 : 0;
-
-            if (level == 0 || i == rawList.length() - 1) {
-                if (currentChar == '\"' && prevChar != '\"') {
-                    quoted = !quoted;
-                    continue;
-                } else if (!quoted && currentChar == ',' || i == rawList.length() - 1) {
-                    String value = block.toString();
-                    if (Json.isJson(value) && prevChar != '\"') {
-                        super.add(new Json(value, this.parseTypes));
-                    } else if (JsonList.isList(value) && prevChar != '\"') {
-                        super.add(new JsonList(value, this.parseTypes));
-                    } else {
-                        if (this.parseTypes && prevChar != '\"') {
-                            super.add(JsonConverter.autoParseToType(value));
-                        } else {
-                            super.add(value);
-                        }
-                    }
-                    block.setLength(0);
-                    continue;
-                }
-            }
-
-            // Test condition
-            if (currentChar == ' ' && level != 0 || quoted || currentChar != ' ') {
-                block.append(currentChar);
-            }
-        }
-
-        return this;
+        this.clear();
+        return new JsonParser(new JsonReader(rawList), this.parseTypes).parseDocument(this);
     }
 
     /**
@@ -327,26 +453,42 @@ public class JsonList extends ArrayList<Object> implements JsonObject {
         return rawList != null && rawList.trim().startsWith("[") && rawList.endsWith("]");
     }
 
+    /**
+     * write list to writer without building the whole string,
+     * writer is flushed but not closed
+     * @param writer writer
+     */
+    public void writeTo(Writer writer) {
+        new JsonWriter(writer).value(this).flush();
+    }
+
+    /**
+     * write list to stream in utf-8,
+     * stream is flushed but not closed
+     * @param outputStream stream
+     */
+    public void writeTo(OutputStream outputStream) {
+        new JsonWriter(outputStream).value(this).flush();
+    }
+
+    /**
+     * @return parse types parameter
+     */
+    boolean isParseTypes() {
+        return this.parseTypes;
+    }
+
+    /**
+     * called by parsers when the whole array is read, compact list drops unused capacity
+     */
+    void trim() {
+    }
+
     @Override
     public String toString() {
-        StringBuilder list = new StringBuilder("[");
-
-        Iterator<Object> iterator = super.iterator();
-        while (iterator.hasNext()) {
-            Object value = iterator.next();
-            if ((!(value instanceof String) && this.parseTypes) || value instanceof JsonObject) {
-                list.append(value);
-            } else {
-                byte[] encodedBytes = value.toString().getBytes(StandardCharsets.UTF_8);
-                String encodedValue = new String(encodedBytes, StandardCharsets.UTF_8);
-                list.append("\"").append(encodedValue).append("\"");
-            }
-            if (iterator.hasNext()) {
-                list.append(", ");
-            }
-        }
-
-        return list.append("]").toString();
+        StringBuilder builder = new StringBuilder();
+        new JsonWriter(builder).value(this).flush();
+        return builder.toString();
     }
 
 }
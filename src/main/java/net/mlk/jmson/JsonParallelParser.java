@@ -0,0 +1,526 @@
+package net.mlk.jmson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * multi-core parser of newline delimited json and large top level arrays in utf-8.
+ * input is split into chunks at record boundaries: newlines for json lines and
+ * top level commas found by a quick sequential scan for arrays, then chunks are parsed on the pool.
+ * only a few chunks per thread are kept in memory, so files larger than memory can be streamed
+ */
+public final class JsonParallelParser {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int SCAN_WINDOW = 1 << 26;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private boolean parseTypes = true;
+    private boolean ordered = true;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private KeyCache keyCache;
+    private boolean compact;
+
+    /**
+     * @param pool pool to parse chunks on, common pool by default
+     * @return this
+     */
+    public JsonParallelParser pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * @param parseTypes if false integers become a string etc
+     * @return this
+     */
+    public JsonParallelParser parseTypes(boolean parseTypes) {
+        this.parseTypes = parseTypes;
+        return this;
+    }
+
+    /**
+     * @param ordered if false values come in the order chunks are parsed, not in the input order
+     * @return this
+     */
+    public JsonParallelParser ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * @param compact if true objects store values in array by key layout shared with objects of the same keys
+     *                and arrays of numbers store them in primitive array
+     * @return this
+     */
+    public JsonParallelParser compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * @param keyCache cache to share keys between records or null to create new string for every key,
+     *                 chunks are parsed at once, so cache should be concurrent
+     * @return this
+     */
+    public JsonParallelParser keyCache(KeyCache keyCache) {
+        this.keyCache = keyCache;
+        return this;
+    }
+
+    /**
+     * @param chunkSize count of bytes parsed by single task, chunk is extended to the record boundary
+     * @return this
+     */
+    public JsonParallelParser chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * @param bytes utf-8 json lines
+     * @return list of the records
+     */
+    public JsonList parseLines(byte[] bytes) {
+        return this.collect(this.streamLines(bytes));
+    }
+
+    /**
+     * @param path file with json lines
+     * @return list of the records
+     */
+    public JsonList parseLines(Path path) {
+        try (Stream<Json> stream = this.streamLines(path)) {
+            return this.collect(stream);
+        }
+    }
+
+    /**
+     * @param bytes utf-8 json array
+     * @return list of the array elements
+     */
+    public JsonList parseList(byte[] bytes) {
+        return this.collect(this.streamList(bytes));
+    }
+
+    /**
+     * @param path file with json array
+     * @return list of the array elements
+     */
+    public JsonList parseList(Path path) {
+        try (Stream<Object> stream = this.streamList(path)) {
+            return this.collect(stream);
+        }
+    }
+
+    /**
+     * @param bytes utf-8 json lines
+     * @return stream of the records fed by parallel parsing
+     */
+    public Stream<Json> streamLines(byte[] bytes) {
+        return this.lines(new ArraySource(bytes));
+    }
+
+    /**
+     * @param path file with json lines
+     * @return stream of the records fed by parallel parsing, closing stream closes file
+     */
+    public Stream<Json> streamLines(Path path) {
+        return this.lines(new FileSource(path));
+    }
+
+    /**
+     * @param bytes utf-8 json array
+     * @return stream of the array elements fed by parallel parsing
+     */
+    public Stream<Object> streamList(byte[] bytes) {
+        return this.list(new ArraySource(bytes));
+    }
+
+    /**
+     * @param path file with json array
+     * @return stream of the array elements fed by parallel parsing, closing stream closes file
+     */
+    public Stream<Object> streamList(Path path) {
+        return this.list(new FileSource(path));
+    }
+
+    private <T> JsonList collect(Stream<T> stream) {
+        JsonList list = this.compact ? new NumericJsonList(this.parseTypes) : new JsonList().parseTypes(this.parseTypes);
+        stream.forEachOrdered(list::add);
+        list.trim();
+        return list;
+    }
+
+    /**
+     * split json lines by newlines after every chunk size bytes
+     * @param source input
+     * @return stream of the records
+     */
+    private Stream<Json> lines(Source source) {
+        List<long[]> chunks = new ArrayList<>();
+        long size = source.size();
+        long start = 0;
+        while (start < size) {
+            long end = size - start <= this.chunkSize ? size : source.lineEnd(start + this.chunkSize);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        boolean parseTypes = this.parseTypes;
+        KeyCache keyCache = this.keyCache;
+        boolean compact = this.compact;
+        return this.stream(source, chunks, chunk -> {
+            Utf8Parser parser = new Utf8Parser(source.slice(chunk[0], chunk[1]), parseTypes).keyCache(keyCache).compact(compact);
+            List<Json> records = new ArrayList<>();
+            Json json;
+            while ((json = parser.parseRecord()) != null) {
+                records.add(json);
+            }
+            return records;
+        });
+    }
+
+    /**
+     * split array by top level commas after every chunk size bytes
+     * @param source input
+     * @return stream of the elements
+     */
+    private Stream<Object> list(Source source) {
+        List<long[]> chunks = source.arrayChunks(this.chunkSize);
+        boolean parseTypes = this.parseTypes;
+        boolean single = chunks.size() == 1;
+        KeyCache keyCache = this.keyCache;
+        boolean compact = this.compact;
+        return this.stream(source, chunks, chunk -> {
+            JsonList list = new JsonList().parseTypes(parseTypes);
+            new Utf8Parser(source.slice(chunk[0], chunk[1]), parseTypes).keyCache(keyCache).compact(compact)
+                    .parseElements(list, !single);
+            return list;
+        });
+    }
+
+    /**
+     * parse chunks on the pool, at most two chunks per thread are parsed or waiting at once
+     * @param source input, closed with stream
+     * @param chunks bounds of the chunks
+     * @param parser chunk parser
+     * @return stream of the values
+     */
+    private <T> Stream<T> stream(Source source, List<long[]> chunks, ChunkParser<T> parser) {
+        ForkJoinPool pool = this.pool;
+        int window = Math.max(2, pool.getParallelism() * 2);
+        CompletionService<List<T>> completion = this.ordered ? null : new ExecutorCompletionService<>(pool);
+        ArrayDeque<Future<List<T>>> pending = new ArrayDeque<>();
+
+        Iterator<T> iterator = new Iterator<T>() {
+            private int submitted;
+            private int taken;
+            private Iterator<T> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.current.hasNext()) {
+                    if (this.taken == chunks.size()) {
+                        return false;
+                    }
+                    while (this.submitted < chunks.size() && this.submitted - this.taken < window) {
+                        long[] chunk = chunks.get(this.submitted++);
+                        Callable<List<T>> task = () -> {
+                            try {
+                                return parser.parse(chunk);
+                            } catch (RuntimeException ex) {
+                                throw new ChunkException(ex);
+                            }
+                        };
+                        pending.add(completion != null ? completion.submit(task) : pool.submit(task));
+                    }
+                    Future<List<T>> next = completion != null ? completion.poll() : pending.poll();
+                    try {
+                        if (next == null) {
+                            next = completion.take();
+                        }
+                        this.current = next.get().iterator();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(ex);
+                    } catch (ExecutionException ex) {
+                        throw ChunkException.unwrap(ex);
+                    }
+                    pending.remove(next);
+                    this.taken++;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.current.next();
+            }
+        };
+
+        // array elements can be null
+        int characteristics = this.ordered ? Spliterator.ORDERED : 0;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false)
+                .onClose(() -> {
+                    for (Future<List<T>> future : pending) {
+                        future.cancel(false);
+                    }
+                    source.close();
+                });
+    }
+
+    private interface ChunkParser<T> {
+        List<T> parse(long[] chunk);
+    }
+
+    /**
+     * wrapper of the exception thrown by chunk parser, so it can be told from exceptions of the pool
+     */
+    private static final class ChunkException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ChunkException(RuntimeException cause) {
+            super(cause);
+        }
+
+        /**
+         * @param ex exception of the task future, fork join pool can wrap it in a copy of the task exception
+         * @return exception thrown by chunk parser or runtime exception wrapping unexpected cause
+         */
+        static RuntimeException unwrap(ExecutionException ex) {
+            for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ChunkException && !(cause.getCause() instanceof ChunkException)) {
+                    return (RuntimeException) cause.getCause();
+                }
+            }
+            return new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * input bytes addressed by long positions
+     */
+    private abstract static class Source {
+
+        abstract long size();
+
+        /**
+         * @param start index of the first byte
+         * @param end index after the last byte
+         * @return bytes between position and limit
+         */
+        abstract ByteBuffer slice(long start, long end);
+
+        void close() {
+        }
+
+        /**
+         * @param from index to search from
+         * @return index after next newline or size if there is no newline
+         */
+        long lineEnd(long from) {
+            long size = this.size();
+            for (long start = from; start < size; start += SCAN_WINDOW) {
+                ByteBuffer window = this.slice(start, Math.min(size, start + SCAN_WINDOW));
+                for (int i = window.position(); i < window.limit(); i++) {
+                    if (window.get(i) == '\n') {
+                        return start + (i - window.position()) + 1;
+                    }
+                }
+            }
+            return size;
+        }
+
+        /**
+         * scan array once, tracking strings and nesting, and cut it by top level commas
+         * @param chunkSize min size of the chunk
+         * @return bounds of the chunks without brackets and cutting commas
+         */
+        List<long[]> arrayChunks(int chunkSize) {
+            long size = this.size();
+            long open = this.skipWhitespace(this.skipBom(size), size);
+            long close = this.trimWhitespace(open, size) - 1;
+            if (open >= size || this.byteAt(open) != '[' || close <= open || this.byteAt(close) != ']') {
+                throw new RuntimeException("Not list object");
+            }
+
+            List<long[]> chunks = new ArrayList<>();
+            long start = open + 1;
+            long next = start + chunkSize;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            for (long from = start; from < close; from += SCAN_WINDOW) {
+                ByteBuffer window = this.slice(from, Math.min(close, from + SCAN_WINDOW));
+                int offset = window.position();
+                for (int i = offset; i < window.limit(); i++) {
+                    byte b = window.get(i);
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                    } else if (b == ',' && depth == 0) {
+                        long position = from + (i - offset);
+                        if (position >= next) {
+                            chunks.add(new long[] {start, position});
+                            start = position + 1;
+                            next = start + chunkSize;
+                        }
+                    }
+                }
+            }
+            chunks.add(new long[] {start, close});
+            return chunks;
+        }
+
+        private byte byteAt(long index) {
+            ByteBuffer buffer = this.slice(index, index + 1);
+            return buffer.get(buffer.position());
+        }
+
+        /**
+         * @param size size of the input
+         * @return index after utf-8 byte order mark or 0 if input doesn't start with it
+         */
+        private long skipBom(long size) {
+            if (size < 3) {
+                return 0;
+            }
+            ByteBuffer bom = this.slice(0, 3);
+            int p = bom.position();
+            return bom.get(p) == (byte) 0xef && bom.get(p + 1) == (byte) 0xbb && bom.get(p + 2) == (byte) 0xbf ? 3 : 0;
+        }
+
+        /**
+         * @param from index to search from
+         * @param end index to search to
+         * @return index of the first not whitespace byte or end
+         */
+        private long skipWhitespace(long from, long end) {
+            for (long start = from; start < end; start += SCAN_WINDOW) {
+                ByteBuffer window = this.slice(start, Math.min(end, start + SCAN_WINDOW));
+                for (int i = window.position(); i < window.limit(); i++) {
+                    if (!isWhitespace(window.get(i))) {
+                        return start + (i - window.position());
+                    }
+                }
+            }
+            return end;
+        }
+
+        /**
+         * @param from index to search back to
+         * @param end index after the last byte
+         * @return index after the last not whitespace byte or from
+         */
+        private long trimWhitespace(long from, long end) {
+            for (long stop = end; stop > from; stop -= SCAN_WINDOW) {
+                long start = Math.max(from, stop - SCAN_WINDOW);
+                ByteBuffer window = this.slice(start, stop);
+                for (int i = window.limit() - 1; i >= window.position(); i--) {
+                    if (!isWhitespace(window.get(i))) {
+                        return start + (i - window.position()) + 1;
+                    }
+                }
+            }
+            return from;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+    }
+
+    private static final class ArraySource extends Source {
+        private final byte[] bytes;
+
+        ArraySource(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        long size() {
+            return this.bytes.length;
+        }
+
+        @Override
+        ByteBuffer slice(long start, long end) {
+            return ByteBuffer.wrap(this.bytes, (int) start, (int) (end - start));
+        }
+    }
+
+    /**
+     * file mapped by chunks, mapping is released by gc when chunk is parsed
+     */
+    private static final class FileSource extends Source {
+        private final FileChannel channel;
+        private final long size;
+
+        FileSource(Path path) {
+            try {
+                this.channel = FileChannel.open(path, StandardOpenOption.READ);
+                this.size = this.channel.size();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        long size() {
+            return this.size;
+        }
+
+        @Override
+        ByteBuffer slice(long start, long end) {
+            try {
+                return this.channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        void close() {
+            try {
+                this.channel.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+}
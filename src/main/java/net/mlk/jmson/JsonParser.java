@@ -0,0 +1,201 @@
+package net.mlk.jmson;
+
+/**
+ * recursive descent tree builder.
+ * pulls tokens from JsonReader once and builds
+ * Json / JsonList tree directly, nested values are never copied or rescanned
+ */
+final class JsonParser {
+    private final JsonReader reader;
+    private final boolean parseTypes;
+    private final boolean compact;
+
+    JsonParser(JsonReader reader, boolean parseTypes) {
+        this(reader, parseTypes, false);
+    }
+
+    JsonParser(JsonReader reader, boolean parseTypes, boolean compact) {
+        this.reader = reader;
+        this.parseTypes = parseTypes;
+        this.compact = compact;
+    }
+
+    /**
+     * @return new empty object of the parser storage mode
+     */
+    Json newJson() {
+        return this.compact ? new CompactJson(this.parseTypes) : new Json().parseTypes(this.parseTypes);
+    }
+
+    /**
+     * @return new empty list of the parser storage mode
+     */
+    JsonList newList() {
+        return this.compact ? new NumericJsonList(this.parseTypes) : new JsonList().parseTypes(this.parseTypes);
+    }
+
+    /**
+     * parse whole input as single object into json
+     * @param json json to fill
+     * @return json
+     */
+    Json parseDocument(Json json) {
+        this.parseJson(json);
+        this.ensureEnd();
+        return json;
+    }
+
+    /**
+     * parse whole input as single object into json, members out of projection are skipped
+     * @param json json to fill
+     * @param projection keys to keep
+     * @return json
+     */
+    Json parseDocument(Json json, JsonProjection projection) {
+        this.parseJson(json, projection);
+        this.ensureEnd();
+        return json;
+    }
+
+    /**
+     * parse whole input as single array into list
+     * @param list list to fill
+     * @return list
+     */
+    JsonList parseDocument(JsonList list) {
+        this.parseList(list);
+        this.ensureEnd();
+        return list;
+    }
+
+    /**
+     * read next object members into json
+     * @param json json to fill
+     * @return json
+     */
+    Json parseJson(Json json) {
+        JsonReader reader = this.reader;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            json.put(key, this.parseValue());
+        }
+        reader.endObject();
+        json.trim();
+        return json;
+    }
+
+    /**
+     * read next object members into json, members out of projection are skipped
+     * @param json json to fill
+     * @param projection keys to keep
+     * @return json
+     */
+    Json parseJson(Json json, JsonProjection projection) {
+        if (projection.isAll()) {
+            return this.parseJson(json);
+        }
+        JsonReader reader = this.reader;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            JsonProjection child = projection.child(key);
+            if (child == null) {
+                reader.skipValue();
+            } else {
+                json.put(key, this.parseValue(child));
+            }
+        }
+        reader.endObject();
+        json.trim();
+        return json;
+    }
+
+    /**
+     * read next array elements into list, projection is applied to every element
+     * @param list list to fill
+     * @param projection keys to keep
+     * @return list
+     */
+    JsonList parseList(JsonList list, JsonProjection projection) {
+        if (projection.isAll()) {
+            return this.parseList(list);
+        }
+        JsonReader reader = this.reader;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(this.parseValue(projection));
+        }
+        reader.endArray();
+        list.trim();
+        return list;
+    }
+
+    /**
+     * read next array elements into list
+     * @param list list to fill
+     * @return list
+     */
+    JsonList parseList(JsonList list) {
+        JsonReader reader = this.reader;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(this.parseValue());
+        }
+        reader.endArray();
+        list.trim();
+        return list;
+    }
+
+    /**
+     * @return next value of any type
+     */
+    Object parseValue() {
+        JsonReader reader = this.reader;
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return this.parseJson(this.newJson());
+            case BEGIN_ARRAY:
+                return this.parseList(this.newList());
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return this.parseTypes ? reader.nextNumber() : reader.nextString();
+            case BOOLEAN:
+                return this.parseTypes ? reader.nextBoolean() : reader.nextString();
+            case NULL:
+                if (this.parseTypes) {
+                    reader.nextNull();
+                    return null;
+                }
+                return reader.nextString();
+            default:
+                throw new RuntimeException("Expected value but was " + reader.peek() + " at " + reader.getPosition());
+        }
+    }
+
+    /**
+     * @param projection keys to keep if value is object or array of objects
+     * @return next value of any type
+     */
+    private Object parseValue(JsonProjection projection) {
+        switch (this.reader.peek()) {
+            case BEGIN_OBJECT:
+                return this.parseJson(this.newJson(), projection);
+            case BEGIN_ARRAY:
+                return this.parseList(this.newList(), projection);
+            default:
+                return this.parseValue();
+        }
+    }
+
+    /**
+     * check that only whitespaces left after root value
+     */
+    private void ensureEnd() {
+        if (this.reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new RuntimeException("Unexpected data after root value at " + this.reader.getPosition());
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package net.mlk.jmson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * compiled path to nested values, immutable and reusable from any thread.
+ * accepts json pointer "/meta/items/3/id" or dotted path "$.meta.items[*].id",
+ * evaluated against a Json/JsonList tree or against raw json, where values
+ * outside of the path are skipped by the reader without being materialized
+ */
+public final class JsonPath {
+    private final String path;
+    private final Step[] steps;
+    private final boolean definite;
+
+    private JsonPath(String path, Step[] steps) {
+        this.path = path;
+        this.steps = steps;
+        boolean definite = true;
+        for (Step step : steps) {
+            definite &= !step.wildcard;
+        }
+        this.definite = definite;
+    }
+
+    /**
+     * @param path json pointer or dotted path
+     * @return compiled path
+     */
+    public static JsonPath compile(String path) {
+        if (path == null) {
+            throw new NullPointerException("Path is null");
+        }
+        List<Step> steps = new ArrayList<>();
+        if (path.isEmpty() || path.charAt(0) == '/') {
+            compilePointer(path, steps);
+        } else if (path.charAt(0) == '$') {
+            compileDotted(path, steps);
+        } else {
+            throw new RuntimeException("Path must start with '/' or '$'. " + path);
+        }
+        return new JsonPath(path, steps.toArray(new Step[0]));
+    }
+
+    /**
+     * @param root Json or JsonList
+     * @return first matched value or null
+     */
+    public Object read(JsonObject root) {
+        if (this.definite) {
+            return this.get(root);
+        }
+        List<Object> result = new ArrayList<>(1);
+        this.select(root, 0, result, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * @param root Json or JsonList
+     * @return all matched values in document order
+     */
+    public List<Object> readAll(JsonObject root) {
+        List<Object> result = new ArrayList<>();
+        this.select(root, 0, result, Integer.MAX_VALUE);
+        return result;
+    }
+
+    /**
+     * read first matched value of the raw json,
+     * evaluation stops on the first match so rest of input is not read
+     * @param rawJson json string
+     * @return first matched value or null
+     */
+    public Object read(String rawJson) {
+        List<Object> result = new ArrayList<>(1);
+        this.select(new JsonReader(rawJson), 0, result, 1, false);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * @param rawJson json string
+     * @return all matched values in document order
+     */
+    public List<Object> readAll(String rawJson) {
+        List<Object> result = new ArrayList<>();
+        this.select(new JsonReader(rawJson), 0, result, Integer.MAX_VALUE, false);
+        return result;
+    }
+
+    /**
+     * read next value of the reader and return first match,
+     * whole value is consumed so reader can continue with the next one
+     * @param reader reader
+     * @return first matched value or null
+     */
+    public Object read(JsonReader reader) {
+        List<Object> result = new ArrayList<>(1);
+        this.select(reader, 0, result, 1, true);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * read next value of the reader and return all matches
+     * @param reader reader
+     * @return all matched values in document order
+     */
+    public List<Object> readAll(JsonReader reader) {
+        List<Object> result = new ArrayList<>();
+        this.select(reader, 0, result, Integer.MAX_VALUE, true);
+        return result;
+    }
+
+    /**
+     * @return source of the path
+     */
+    @Override
+    public String toString() {
+        return this.path;
+    }
+
+    /**
+     * follow path without wildcards, single value on every step
+     * @param root Json or JsonList
+     * @return value or null
+     */
+    private Object get(Object root) {
+        Object node = root;
+        for (Step step : this.steps) {
+            if (node instanceof Json) {
+                node = step.name != null ? ((Json) node).get(step.name) : null;
+            } else if (node instanceof JsonList) {
+                JsonList list = (JsonList) node;
+                node = step.index >= 0 && step.index < list.size() ? list.get(step.index) : null;
+            } else {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @param node current value
+     * @param depth index of the step
+     * @param result matched values
+     * @param limit max count of matches
+     * @return true if limit is reached
+     */
+    private boolean select(Object node, int depth, List<Object> result, int limit) {
+        if (depth == this.steps.length) {
+            result.add(node);
+            return result.size() == limit;
+        }
+        Step step = this.steps[depth];
+        if (node instanceof Json) {
+            Json json = (Json) node;
+            if (step.wildcard) {
+                return this.selectAll(json.values(), depth, result, limit);
+            } else if (step.name != null && json.containsKey(step.name)) {
+                return this.select(json.get(step.name), depth + 1, result, limit);
+            }
+        } else if (node instanceof JsonList) {
+            JsonList list = (JsonList) node;
+            if (step.wildcard) {
+                return this.selectAll(list, depth, result, limit);
+            } else if (step.index >= 0 && step.index < list.size()) {
+                return this.select(list.get(step.index), depth + 1, result, limit);
+            }
+        }
+        return false;
+    }
+
+    private boolean selectAll(Collection<Object> values, int depth, List<Object> result, int limit) {
+        for (Object value : values) {
+            if (this.select(value, depth + 1, result, limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * walk next value of the reader, values not on the path are skipped
+     * @param reader reader
+     * @param depth index of the step
+     * @param result matched values
+     * @param limit max count of matches
+     * @param consume if true rest of the value is skipped after the limit is reached
+     * @return true if limit is reached
+     */
+    private boolean select(JsonReader reader, int depth, List<Object> result, int limit, boolean consume) {
+        if (depth == this.steps.length) {
+            result.add(reader.readValue());
+            return result.size() == limit;
+        }
+        Step step = this.steps[depth];
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (!step.matches(name)) {
+                    reader.skipValue();
+                } else if (this.select(reader, depth + 1, result, limit, consume)) {
+                    if (consume) {
+                        while (reader.hasNext()) {
+                            reader.nextName();
+                            reader.skipValue();
+                        }
+                        reader.endObject();
+                    }
+                    return true;
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (!step.matches(i)) {
+                    reader.skipValue();
+                } else if (this.select(reader, depth + 1, result, limit, consume)) {
+                    if (consume) {
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    }
+                    return true;
+                }
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * parse json pointer, "~1" is '/' and "~0" is '~'
+     * @param path pointer
+     * @param steps compiled steps
+     */
+    private static void compilePointer(String path, List<Step> steps) {
+        int start = 1;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = path.length();
+            }
+            String token = path.substring(start, end);
+            if (token.indexOf('~') != -1) {
+                token = token.replace("~1", "/").replace("~0", "~");
+            }
+            steps.add(Step.named(token));
+            start = end + 1;
+        }
+    }
+
+    /**
+     * parse dotted path: .name, .*, [index], [*] and ['name']
+     * @param path dotted path
+     * @param steps compiled steps
+     */
+    private static void compileDotted(String path, List<Step> steps) {
+        int p = 1;
+        int length = path.length();
+        while (p < length) {
+            char c = path.charAt(p);
+            if (c == '.') {
+                int end = p + 1;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(p + 1, end);
+                if (name.isEmpty()) {
+                    throw invalid(path, p);
+                }
+                steps.add(name.equals("*") ? Step.WILDCARD : Step.named(name));
+                p = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', p);
+                if (end == -1) {
+                    throw invalid(path, p);
+                }
+                String token = path.substring(p + 1, end).trim();
+                if (token.equals("*")) {
+                    steps.add(Step.WILDCARD);
+                } else if (token.length() >= 2 && (token.charAt(0) == '\'' || token.charAt(0) == '"')
+                        && token.charAt(token.length() - 1) == token.charAt(0)) {
+                    steps.add(new Step(token.substring(1, token.length() - 1), -1, false));
+                } else {
+                    int index = index(token);
+                    if (index == -1) {
+                        throw invalid(path, p);
+                    }
+                    steps.add(new Step(null, index, false));
+                }
+                p = end + 1;
+            } else {
+                throw invalid(path, p);
+            }
+        }
+    }
+
+    /**
+     * @param token path token
+     * @return array index or -1 if token is not an index
+     */
+    private static int index(String token) {
+        int length = token.length();
+        if (length == 0 || length > 9 || (token.charAt(0) == '0' && length > 1)) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private static RuntimeException invalid(String path, int position) {
+        return new RuntimeException("Invalid path at " + position + ". " + path);
+    }
+
+    /**
+     * one step of the path: name of the key, index of the element or any of them
+     */
+    private static final class Step {
+        static final Step WILDCARD = new Step(null, -1, true);
+
+        final String name;
+        final int index;
+        final boolean wildcard;
+
+        Step(String name, int index, boolean wildcard) {
+            this.name = name;
+            this.index = index;
+            this.wildcard = wildcard;
+        }
+
+        /**
+         * @param name key or numeric index
+         * @return step that matches key and array element
+         */
+        static Step named(String name) {
+            return new Step(name, index(name), false);
+        }
+
+        boolean matches(String name) {
+            return this.wildcard || name.equals(this.name);
+        }
+
+        boolean matches(int index) {
+            return this.wildcard || index == this.index;
+        }
+    }
+
+}
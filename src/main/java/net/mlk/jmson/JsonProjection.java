@@ -0,0 +1,143 @@
+package net.mlk.jmson;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * set of key paths to keep while parsing, everything else is skipped by the parser
+ * without decoding strings, parsing numbers or creating nested objects.
+ * path is a chain of keys separated by '/', like json pointer without array indexes:
+ * arrays are transparent, so "items/id" keeps id of every element of items,
+ * "*" matches any key, "~1" is '/' and "~0" is '~' inside of the key.
+ * immutable and reusable from any thread
+ */
+public final class JsonProjection {
+    private static final JsonProjection ALL = new JsonProjection(null);
+
+    private final Map<String, JsonProjection> children;
+    private final JsonProjection any;
+
+    private JsonProjection(Map<String, JsonProjection> children) {
+        this.children = children;
+        this.any = children != null ? children.get("*") : null;
+    }
+
+    /**
+     * @param paths key paths to keep
+     * @return projection
+     */
+    public static JsonProjection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    /**
+     * @param paths key paths to keep
+     * @return projection
+     */
+    public static JsonProjection of(Collection<String> paths) {
+        Builder root = new Builder();
+        for (String path : paths) {
+            Builder node = root;
+            int start = path.startsWith("/") ? 1 : 0;
+            while (node != null && start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end == -1) {
+                    end = path.length();
+                }
+                String key = path.substring(start, end);
+                if (key.indexOf('~') != -1) {
+                    key = key.replace("~1", "/").replace("~0", "~");
+                }
+                node = node.child(key, end == path.length());
+                start = end + 1;
+            }
+        }
+        return root.build();
+    }
+
+    /**
+     * @param key key of the value
+     * @return projection of the value or null if value is skipped,
+     *         projection of the key already includes paths of "*"
+     */
+    JsonProjection child(String key) {
+        JsonProjection child = this.children.get(key);
+        return child != null ? child : this.any;
+    }
+
+    /**
+     * @return true if whole value is kept
+     */
+    boolean isAll() {
+        return this.children == null;
+    }
+
+    /**
+     * mutable tree of the paths, node without children keeps whole value
+     */
+    private static final class Builder {
+        private Map<String, Builder> children = new HashMap<>();
+
+        /**
+         * @param key key of the child
+         * @param last true if key ends the path
+         * @return child to continue the path or null if whole child is already kept
+         */
+        Builder child(String key, boolean last) {
+            Builder child = this.children.get(key);
+            if (child == null) {
+                child = new Builder();
+                this.children.put(key, child);
+            } else if (child.children == null) {
+                return null;
+            }
+            if (last) {
+                child.children = null;
+            }
+            return child;
+        }
+
+        /**
+         * paths under "*" are merged into every other key of the node,
+         * so wildcard path applies to keys that have own paths too
+         * @return projection of the tree
+         */
+        JsonProjection build() {
+            if (this.children == null) {
+                return ALL;
+            }
+            Builder any = this.children.get("*");
+            Map<String, JsonProjection> children = new HashMap<>();
+            for (Map.Entry<String, Builder> entry : this.children.entrySet()) {
+                Builder child = entry.getValue();
+                if (any != null && child != any) {
+                    child = union(child, any);
+                }
+                children.put(entry.getKey(), child.build());
+            }
+            return new JsonProjection(children);
+        }
+
+        /**
+         * @param first tree
+         * @param second tree
+         * @return new tree keeping paths of both trees
+         */
+        private static Builder union(Builder first, Builder second) {
+            Builder union = new Builder();
+            if (first.children == null || second.children == null) {
+                union.children = null;
+                return union;
+            }
+            union.children.putAll(first.children);
+            for (Map.Entry<String, Builder> entry : second.children.entrySet()) {
+                Builder child = union.children.get(entry.getKey());
+                union.children.put(entry.getKey(), child != null ? union(child, entry.getValue()) : entry.getValue());
+            }
+            return union;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * publisher of the elements of a top level json array or of json lines.
+ * elements are pulled from JsonReader one by one only when subscriber requested them,
+ * so demand throttles reading of the input and outer array is never built.
+ * single subscriber is allowed, reader is closed when publishing ends
+ * @param <T> type of the elements
+ */
+public final class JsonPublisher<T> implements Flow.Publisher<T> {
+    private final JsonReader reader;
+    private final boolean array;
+    private final Function<JsonReader, T> element;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private JsonPublisher(JsonReader reader, boolean array, Function<JsonReader, T> element) {
+        this.reader = reader;
+        this.array = array;
+        this.element = element;
+    }
+
+    /**
+     * @param reader reader positioned before array of objects
+     * @return publisher of the array elements
+     */
+    public static JsonPublisher<Json> ofArray(JsonReader reader) {
+        return new JsonPublisher<>(reader, true, JsonReader::readJson);
+    }
+
+    /**
+     * @param reader reader positioned before array of objects
+     * @param clazz class of the elements
+     * @param <T> class that extends JsonConvertible
+     * @return publisher of the objects read without building json tree
+     */
+    public static <T extends JsonConvertible> JsonPublisher<T> ofArray(JsonReader reader, Class<T> clazz) {
+        return new JsonPublisher<>(reader, true, r -> JsonConverter.readValue(r, clazz));
+    }
+
+    /**
+     * @param reader reader of json lines
+     * @return publisher of the records
+     */
+    public static JsonPublisher<Json> ofLines(JsonReader reader) {
+        return new JsonPublisher<>(reader, false, JsonReader::readJson);
+    }
+
+    /**
+     * @param reader reader of json lines
+     * @param clazz class of the records
+     * @param <T> class that extends JsonConvertible
+     * @return publisher of the objects read without building json tree
+     */
+    public static <T extends JsonConvertible> JsonPublisher<T> ofLines(JsonReader reader, Class<T> clazz) {
+        return new JsonPublisher<>(reader, false, r -> JsonConverter.readValue(r, clazz));
+    }
+
+    /**
+     * @param executor executor to read input and call subscriber on, common pool by default
+     * @return this
+     */
+    public JsonPublisher<T> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null");
+        }
+        ElementSubscription subscription = new ElementSubscription(subscriber);
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscription.done = true;
+            subscriber.onSubscribe(subscription);
+            subscriber.onError(new IllegalStateException("Publisher allows only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * reads elements on the executor, only one drain runs at a time
+     */
+    private final class ElementSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private Throwable invalidRequest;
+        private boolean started;
+        private boolean done;
+
+        ElementSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.invalidRequest = new IllegalArgumentException("Requested count must be positive, was " + n);
+                this.cancelled = true;
+            } else {
+                long current;
+                do {
+                    current = this.requested.get();
+                } while (current != Long.MAX_VALUE
+                        && !this.requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.pending.getAndIncrement() == 0) {
+                JsonPublisher.this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                this.drain();
+                missed = this.pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (this.done) {
+                return;
+            }
+            JsonReader reader = JsonPublisher.this.reader;
+            try {
+                if (!this.started) {
+                    this.started = true;
+                    if (JsonPublisher.this.array) {
+                        reader.beginArray();
+                    }
+                }
+                long demand = this.requested.get();
+                long emitted = 0;
+                while (!this.cancelled) {
+                    boolean hasNext = JsonPublisher.this.array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT;
+                    if (!hasNext) {
+                        if (JsonPublisher.this.array) {
+                            reader.endArray();
+                        }
+                        this.finish(null);
+                        return;
+                    } else if (emitted == demand) {
+                        if (demand != Long.MAX_VALUE) {
+                            this.requested.addAndGet(-emitted);
+                        }
+                        return;
+                    }
+                    T element = JsonPublisher.this.element.apply(reader);
+                    try {
+                        this.subscriber.onNext(element);
+                    } catch (Throwable ex) {
+                        // subscriber broke the contract, subscription is cancelled without signals (rule 2.13)
+                        this.cancelled = true;
+                        this.finish(null);
+                        return;
+                    }
+                    emitted++;
+                }
+                this.finish(this.invalidRequest);
+            } catch (Throwable ex) {
+                // errors like StackOverflowError are sent too, otherwise drain would leave reader open and no signal
+                this.finish(ex);
+            }
+        }
+
+        /**
+         * close reader and send terminal signal
+         * @param error error or null to complete, nothing is sent if subscription is cancelled
+         */
+        private void finish(Throwable error) {
+            this.done = true;
+            try {
+                JsonPublisher.this.reader.close();
+            } catch (IOException ex) {
+                if (error == null) {
+                    error = new RuntimeException(ex);
+                }
+            }
+            try {
+                if (error != null && (!this.cancelled || error == this.invalidRequest)) {
+                    this.subscriber.onError(error);
+                } else if (!this.cancelled) {
+                    this.subscriber.onComplete();
+                }
+            } catch (Throwable ex) {
+                // terminal signal failed, nothing is left to send (rule 2.13)
+                this.cancelled = true;
+            }
+        }
+    }
+
+}
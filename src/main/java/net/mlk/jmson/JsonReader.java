@@ -0,0 +1,826 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.NumberCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * streaming pull parser.
+ * reads json token by token from a reader through a bounded char buffer,
+ * so only current token and nesting stack are kept in memory
+ */
+public class JsonReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int FILE_BUFFER_SIZE = 65536;
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_QUOTED_NAME = 5;
+    private static final int PEEKED_UNQUOTED_NAME = 6;
+    private static final int PEEKED_QUOTED = 7;
+    private static final int PEEKED_UNQUOTED = 8;
+    private static final int PEEKED_NUMBER = 9;
+    private static final int PEEKED_TRUE = 10;
+    private static final int PEEKED_FALSE = 11;
+    private static final int PEEKED_NULL = 12;
+    private static final int PEEKED_EOF = 13;
+
+    private final Reader in;
+    private final char[] buffer;
+    private final StringBuilder builder = new StringBuilder();
+    private int pos;
+    private int limit;
+    private long consumed;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+    private int peeked = PEEKED_NONE;
+    private String peekedString;
+    private char[] peekedChars;
+    private int peekedStart;
+    private int peekedLength;
+    private final NumberCodec number = new NumberCodec();
+    private KeyCache keyCache;
+    private boolean compact;
+
+    private boolean parseTypes = true;
+    private JsonParser parser;
+
+    public JsonReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(Reader in, int bufferSize) {
+        if (bufferSize < 8) {
+            throw new IllegalArgumentException("Buffer size must be at least 8 chars");
+        }
+        this.in = in;
+        this.buffer = new char[bufferSize];
+        this.stack[this.stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public JsonReader(Path path) {
+        this(MappedFileReader.open(path), FILE_BUFFER_SIZE);
+    }
+
+    public JsonReader(String rawJson) {
+        this(rawJson.toCharArray(), 0, rawJson.length());
+    }
+
+    /**
+     * read part of the chars, positions are counted from the start of the array
+     * @param chars source
+     * @param start index of the first char
+     * @param end index after the last char
+     */
+    JsonReader(char[] chars, int start, int end) {
+        this.in = null;
+        this.buffer = chars;
+        this.pos = start;
+        this.limit = end;
+        this.stack[this.stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * set parse types parameter for readJson, readList and readValue
+     * @param parseTypes if false integers become a string etc
+     * @return this
+     */
+    public JsonReader parseTypes(boolean parseTypes) {
+        this.parseTypes = parseTypes;
+        this.parser = null;
+        return this;
+    }
+
+    /**
+     * set storage of the objects created by readJson, readList and readValue
+     * @param compact if true objects store values in array by key layout shared with objects of the same keys
+     *                and arrays of numbers store them in primitive array
+     * @return this
+     */
+    public JsonReader compact(boolean compact) {
+        this.compact = compact;
+        this.parser = null;
+        return this;
+    }
+
+    /**
+     * @param keyCache cache to take repeated names from or null to create new string for every name
+     * @return this
+     */
+    public JsonReader keyCache(KeyCache keyCache) {
+        this.keyCache = keyCache;
+        return this;
+    }
+
+    /**
+     * @return type of the next token without consuming it
+     */
+    public JsonToken peek() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        switch (p) {
+            case PEEKED_BEGIN_OBJECT: return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT: return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY: return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY: return JsonToken.END_ARRAY;
+            case PEEKED_QUOTED_NAME:
+            case PEEKED_UNQUOTED_NAME: return JsonToken.NAME;
+            case PEEKED_QUOTED:
+            case PEEKED_UNQUOTED: return JsonToken.STRING;
+            case PEEKED_NUMBER: return JsonToken.NUMBER;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE: return JsonToken.BOOLEAN;
+            case PEEKED_NULL: return JsonToken.NULL;
+            default: return JsonToken.END_DOCUMENT;
+        }
+    }
+
+    /**
+     * check for one more root value, input of whitespace only has none
+     * instead of failing as empty document
+     * @return true if next root value exists
+     */
+    boolean hasNextDocument() {
+        if (this.peeked == PEEKED_NONE && this.stackSize == 1 && this.stack[0] == EMPTY_DOCUMENT) {
+            this.stack[0] = NONEMPTY_DOCUMENT;
+        }
+        return this.peek() != JsonToken.END_DOCUMENT;
+    }
+
+    /**
+     * consume '{' of the next object
+     */
+    public void beginObject() {
+        this.expect(PEEKED_BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+        this.push(EMPTY_OBJECT);
+    }
+
+    /**
+     * consume '}' of the current object
+     */
+    public void endObject() {
+        this.expect(PEEKED_END_OBJECT, JsonToken.END_OBJECT);
+        this.stackSize--;
+    }
+
+    /**
+     * consume '[' of the next array
+     */
+    public void beginArray() {
+        this.expect(PEEKED_BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+        this.push(EMPTY_ARRAY);
+    }
+
+    /**
+     * consume ']' of the current array
+     */
+    public void endArray() {
+        this.expect(PEEKED_END_ARRAY, JsonToken.END_ARRAY);
+        this.stackSize--;
+    }
+
+    /**
+     * @return true if current object or array has more elements
+     */
+    public boolean hasNext() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+    }
+
+    /**
+     * @return next property name
+     */
+    public String nextName() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        String result;
+        if (p == PEEKED_QUOTED_NAME) {
+            result = this.keyCache != null ? this.readQuotedName() : this.readQuoted();
+        } else if (p == PEEKED_UNQUOTED_NAME) {
+            result = this.keyCache != null ? this.keyCache.get(this.peekedString) : this.peekedString;
+        } else {
+            throw this.unexpected(JsonToken.NAME);
+        }
+        this.peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * consume next scalar value as string,
+     * unquoted values (numbers, booleans, null) are returned as is
+     * @return string value
+     */
+    public String nextString() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        String result;
+        if (p == PEEKED_QUOTED) {
+            result = this.readQuoted();
+        } else if (p >= PEEKED_UNQUOTED && p <= PEEKED_NULL) {
+            result = new String(this.peekedChars, this.peekedStart, this.peekedLength);
+        } else {
+            throw this.unexpected(JsonToken.STRING);
+        }
+        this.peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * @return next boolean value
+     */
+    public boolean nextBoolean() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        if (p != PEEKED_TRUE && p != PEEKED_FALSE) {
+            throw this.unexpected(JsonToken.BOOLEAN);
+        }
+        this.peeked = PEEKED_NONE;
+        return p == PEEKED_TRUE;
+    }
+
+    /**
+     * consume next null literal
+     */
+    public void nextNull() {
+        this.expect(PEEKED_NULL, JsonToken.NULL);
+    }
+
+    /**
+     * @return true if next value is an unquoted number without fraction and exponent that fits long
+     */
+    public boolean hasNextLong() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        return p == PEEKED_NUMBER && this.number.isLong();
+    }
+
+    /**
+     * @return next number value as long, quoted numbers are accepted
+     */
+    public long nextLong() {
+        NumberCodec number = this.nextNumberCodec();
+        if (number.isLong()) {
+            return number.toLong();
+        }
+        double value = number.toDouble();
+        if ((long) value != value) {
+            throw this.syntaxError("Expected long but was " + number.text());
+        }
+        return (long) value;
+    }
+
+    /**
+     * @return next number value as int, quoted numbers are accepted
+     */
+    public int nextInt() {
+        long value = this.nextLong();
+        if (value != (int) value) {
+            throw this.syntaxError("Expected int but was " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return next number value as double, quoted numbers are accepted
+     */
+    public double nextDouble() {
+        return this.nextNumberCodec().toDouble();
+    }
+
+    /**
+     * next number in the narrowest type:
+     * Integer, Long or BigInteger for integers, Float or Double for decimals
+     * @return number
+     */
+    public Number nextNumber() {
+        return this.nextNumberCodec().toNumber();
+    }
+
+    /**
+     * skip next value with all nested values without materializing it
+     */
+    public void skipValue() {
+        int count = 0;
+        do {
+            int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+            switch (p) {
+                case PEEKED_BEGIN_OBJECT:
+                    this.push(EMPTY_OBJECT);
+                    count++;
+                    break;
+                case PEEKED_BEGIN_ARRAY:
+                    this.push(EMPTY_ARRAY);
+                    count++;
+                    break;
+                case PEEKED_END_OBJECT:
+                case PEEKED_END_ARRAY:
+                    if (count == 0) {
+                        throw this.syntaxError("Expected value but was " + this.peek());
+                    }
+                    this.stackSize--;
+                    count--;
+                    break;
+                case PEEKED_QUOTED:
+                case PEEKED_QUOTED_NAME:
+                    this.skipQuoted();
+                    break;
+                case PEEKED_EOF:
+                    throw this.syntaxError("Expected value but was " + JsonToken.END_DOCUMENT);
+                default:
+                    break;
+            }
+            this.peeked = PEEKED_NONE;
+        } while (count != 0);
+    }
+
+    /**
+     * read next object into new json
+     * @return Json
+     */
+    public Json readJson() {
+        return this.parser().parseJson(this.parser().newJson());
+    }
+
+    /**
+     * read next array into new list
+     * @return JsonList
+     */
+    public JsonList readList() {
+        return this.parser().parseList(this.parser().newList());
+    }
+
+    /**
+     * read next object with only keys of the projection, other values are skipped
+     * @param projection key paths to keep
+     * @return Json
+     */
+    public Json readJson(JsonProjection projection) {
+        return this.parser().parseJson(this.parser().newJson(), projection);
+    }
+
+    /**
+     * read next array, projection is applied to every element
+     * @param projection key paths to keep
+     * @return JsonList
+     */
+    public JsonList readList(JsonProjection projection) {
+        return this.parser().parseList(this.parser().newList(), projection);
+    }
+
+    /**
+     * read next value of any type
+     * @return Json, JsonList or scalar value
+     */
+    public Object readValue() {
+        return this.parser().parseValue();
+    }
+
+    /**
+     * @return count of chars consumed from the start of input
+     */
+    public long getPosition() {
+        return this.consumed + this.pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.in != null) {
+            this.in.close();
+        }
+    }
+
+    private JsonParser parser() {
+        if (this.parser == null) {
+            this.parser = new JsonParser(this, this.parseTypes, this.compact);
+        }
+        return this.parser;
+    }
+
+    /**
+     * find next token and move nesting state
+     * @return peeked token
+     */
+    private int doPeek() {
+        int scope = this.stack[this.stackSize - 1];
+        int c;
+        if (scope == EMPTY_ARRAY) {
+            this.stack[this.stackSize - 1] = NONEMPTY_ARRAY;
+        } else if (scope == NONEMPTY_ARRAY) {
+            c = this.nextNonWhitespace();
+            if (c == ']') {
+                return this.peeked = PEEKED_END_ARRAY;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or ']'");
+            }
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            this.stack[this.stackSize - 1] = DANGLING_NAME;
+            if (scope == NONEMPTY_OBJECT) {
+                c = this.nextNonWhitespace();
+                if (c == '}') {
+                    return this.peeked = PEEKED_END_OBJECT;
+                } else if (c != ',') {
+                    throw this.syntaxError("Expected ',' or '}'");
+                }
+            }
+            c = this.nextNonWhitespace();
+            if (c == '"') {
+                return this.peeked = PEEKED_QUOTED_NAME;
+            } else if (c == '}' && scope == EMPTY_OBJECT) {
+                return this.peeked = PEEKED_END_OBJECT;
+            } else if (c == -1) {
+                throw this.syntaxError("Expected name");
+            }
+            this.pos--;
+            this.peekedString = this.readUnquoted(this.pos);
+            if (this.peekedString.isEmpty()) {
+                throw this.syntaxError("Expected name");
+            }
+            return this.peeked = PEEKED_UNQUOTED_NAME;
+        } else if (scope == DANGLING_NAME) {
+            this.stack[this.stackSize - 1] = NONEMPTY_OBJECT;
+            if (this.nextNonWhitespace() != ':') {
+                throw this.syntaxError("Expected ':'");
+            }
+        } else if (scope == EMPTY_DOCUMENT) {
+            this.stack[this.stackSize - 1] = NONEMPTY_DOCUMENT;
+        } else if (scope == NONEMPTY_DOCUMENT) {
+            if (this.nextNonWhitespace() == -1) {
+                return this.peeked = PEEKED_EOF;
+            }
+            this.pos--;
+        }
+
+        c = this.nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return this.peeked = PEEKED_BEGIN_OBJECT;
+            case '[':
+                return this.peeked = PEEKED_BEGIN_ARRAY;
+            case '"':
+                return this.peeked = PEEKED_QUOTED;
+            case ']':
+                if (scope == EMPTY_ARRAY) {
+                    return this.peeked = PEEKED_END_ARRAY;
+                }
+                throw this.syntaxError("Expected value");
+            case -1:
+                throw this.syntaxError("Expected value");
+            default:
+                this.pos--;
+                return this.peeked = this.peekUnquoted();
+        }
+    }
+
+    /**
+     * find bounds of the unquoted value in buffer and detect its type,
+     * value is not copied unless it is longer than the buffer
+     * @return peeked type of the value
+     */
+    private int peekUnquoted() {
+        char[] buffer = this.buffer;
+        int p = this.pos;
+        while (true) {
+            if (p == this.limit) {
+                if (this.pos == 0 && this.limit == buffer.length) {
+                    char[] chars = this.readUnquoted(p).toCharArray();
+                    return this.literalType(chars, 0, chars.length);
+                }
+                int length = p - this.pos;
+                if (!this.fillBuffer(length + 1)) {
+                    p = this.limit;
+                    break;
+                }
+                p = this.pos + length;
+            }
+            if (isLiteralEnd(buffer[p])) {
+                break;
+            }
+            p++;
+        }
+        int start = this.pos;
+        this.pos = p;
+        return this.literalType(buffer, start, p);
+    }
+
+    /**
+     * @param chars source
+     * @param start index of the first char
+     * @param end index after the last char
+     * @return peeked type of the literal
+     */
+    private int literalType(char[] chars, int start, int end) {
+        if (start == end) {
+            throw this.syntaxError("Expected value");
+        }
+        this.peekedChars = chars;
+        this.peekedStart = start;
+        this.peekedLength = end - start;
+        char first = chars[start];
+        if (((first >= '0' && first <= '9') || first == '-' || first == '+' || first == '.')
+                && this.number.scan(chars, start, end)) {
+            return PEEKED_NUMBER;
+        } else if (matches(chars, start, end, "true", true)) {
+            return PEEKED_TRUE;
+        } else if (matches(chars, start, end, "false", true)) {
+            return PEEKED_FALSE;
+        } else if (matches(chars, start, end, "null", false)) {
+            return PEEKED_NULL;
+        }
+        return PEEKED_UNQUOTED;
+    }
+
+    private static boolean matches(char[] chars, int start, int end, String word, boolean ignoreCase) {
+        int length = word.length();
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = chars[start + i];
+            char expected = word.charAt(i);
+            if (c != expected && !(ignoreCase && Character.toLowerCase(c) == expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * scan next number or quoted number
+     * @return codec with scanned number
+     */
+    private NumberCodec nextNumberCodec() {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        if (p == PEEKED_QUOTED) {
+            char[] chars = this.readQuoted().toCharArray();
+            if (!this.number.scan(chars, 0, chars.length)) {
+                throw this.syntaxError("Expected number but was " + new String(chars));
+            }
+        } else if (p != PEEKED_NUMBER) {
+            throw this.unexpected(JsonToken.NUMBER);
+        }
+        this.peeked = PEEKED_NONE;
+        return this.number;
+    }
+
+    /**
+     * read quoted name through key cache, opening quote is already consumed
+     * @return name
+     */
+    private String readQuotedName() {
+        char[] buffer = this.buffer;
+        for (int p = this.pos, l = this.limit; p < l; p++) {
+            char c = buffer[p];
+            if (c == '"') {
+                String result = this.keyCache.get(buffer, this.pos, p);
+                this.pos = p + 1;
+                return result;
+            } else if (c == '\\') {
+                break;
+            }
+        }
+        // escaped or split by the buffer end
+        return this.keyCache.get(this.readQuoted());
+    }
+
+    /**
+     * read quoted string and decode escapes, opening quote is already consumed
+     * @return string value
+     */
+    private String readQuoted() {
+        char[] buffer = this.buffer;
+        StringBuilder builder = null;
+        while (true) {
+            int p = this.pos;
+            int l = this.limit;
+            int start = p;
+            while (p < l) {
+                char c = buffer[p++];
+                if (c == '"') {
+                    this.pos = p;
+                    if (builder == null) {
+                        return new String(buffer, start, p - start - 1);
+                    }
+                    return builder.append(buffer, start, p - start - 1).toString();
+                } else if (c == '\\') {
+                    this.pos = p;
+                    if (builder == null) {
+                        builder = this.builder;
+                        builder.setLength(0);
+                    }
+                    builder.append(buffer, start, p - start - 1);
+                    builder.append(this.readEscape());
+                    p = this.pos;
+                    l = this.limit;
+                    start = p;
+                }
+            }
+            if (builder == null) {
+                builder = this.builder;
+                builder.setLength(0);
+            }
+            builder.append(buffer, start, p - start);
+            this.pos = p;
+            if (!this.fillBuffer(1)) {
+                throw this.syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * decode escape sequence, backslash is already consumed
+     * @return decoded char
+     */
+    private char readEscape() {
+        if (this.pos == this.limit && !this.fillBuffer(1)) {
+            throw this.syntaxError("Unterminated escape sequence");
+        }
+        char escaped = this.buffer[this.pos++];
+        switch (escaped) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                if (this.limit - this.pos < 4 && !this.fillBuffer(4)) {
+                    throw this.syntaxError("Unterminated unicode escape");
+                }
+                int result = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(this.buffer[this.pos++], 16);
+                    if (digit == -1) {
+                        throw this.syntaxError("Malformed unicode escape");
+                    }
+                    result = (result << 4) | digit;
+                }
+                return (char) result;
+            default:
+                return escaped;
+        }
+    }
+
+    /**
+     * skip quoted string without decoding, opening quote is already consumed
+     */
+    private void skipQuoted() {
+        char[] buffer = this.buffer;
+        do {
+            int p = this.pos;
+            int l = this.limit;
+            while (p < l) {
+                char c = buffer[p++];
+                if (c == '"') {
+                    this.pos = p;
+                    return;
+                } else if (c == '\\') {
+                    if (p == l) {
+                        this.pos = p;
+                        if (!this.fillBuffer(1)) {
+                            break;
+                        }
+                        p = this.pos;
+                        l = this.limit;
+                    }
+                    p++;
+                }
+            }
+            this.pos = p;
+        } while (this.fillBuffer(1));
+        throw this.syntaxError("Unterminated string");
+    }
+
+    /**
+     * read unquoted token (name or value longer than the buffer)
+     * @param from index to continue search of the token end from
+     * @return literal
+     */
+    private String readUnquoted(int from) {
+        char[] buffer = this.buffer;
+        StringBuilder builder = null;
+        int p = from;
+        while (true) {
+            int l = this.limit;
+            while (p < l) {
+                if (isLiteralEnd(buffer[p])) {
+                    String result = builder == null ? new String(buffer, this.pos, p - this.pos)
+                            : builder.append(buffer, this.pos, p - this.pos).toString();
+                    this.pos = p;
+                    return result;
+                }
+                p++;
+            }
+            if (builder == null) {
+                builder = this.builder;
+                builder.setLength(0);
+            }
+            builder.append(buffer, this.pos, p - this.pos);
+            this.pos = p;
+            if (!this.fillBuffer(1)) {
+                return builder.toString();
+            }
+            p = this.pos;
+        }
+    }
+
+    private static boolean isLiteralEnd(char c) {
+        return c == ',' || c == ':' || c == '}' || c == ']' || c == '{' || c == '['
+                || c == '"' || c <= ' ';
+    }
+
+    /**
+     * @return next not whitespace char or -1 if end reached
+     */
+    private int nextNonWhitespace() {
+        char[] buffer = this.buffer;
+        int p = this.pos;
+        int l = this.limit;
+        while (true) {
+            if (p == l) {
+                this.pos = p;
+                if (!this.fillBuffer(1)) {
+                    return -1;
+                }
+                p = this.pos;
+                l = this.limit;
+            }
+            char c = buffer[p++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                this.pos = p;
+                return c;
+            }
+        }
+    }
+
+    /**
+     * move unread chars to the buffer start and read more from the reader
+     * @param minimum count of chars required after pos
+     * @return true if buffer has enough chars
+     */
+    private boolean fillBuffer(int minimum) {
+        if (this.in == null) {
+            return this.limit - this.pos >= minimum;
+        }
+        char[] buffer = this.buffer;
+        this.consumed += this.pos;
+        if (this.pos != this.limit) {
+            System.arraycopy(buffer, this.pos, buffer, 0, this.limit - this.pos);
+        }
+        this.limit -= this.pos;
+        this.pos = 0;
+
+        try {
+            int total;
+            while ((total = this.in.read(buffer, this.limit, buffer.length - this.limit)) != -1) {
+                this.limit += total;
+                if (this.limit >= minimum) {
+                    return true;
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return false;
+    }
+
+    private void push(int scope) {
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+        }
+        this.stack[this.stackSize++] = scope;
+    }
+
+    private void expect(int expected, JsonToken token) {
+        int p = this.peeked == PEEKED_NONE ? this.doPeek() : this.peeked;
+        if (p != expected) {
+            throw this.unexpected(token);
+        }
+        this.peeked = PEEKED_NONE;
+    }
+
+    private RuntimeException unexpected(JsonToken expected) {
+        return this.syntaxError("Expected " + expected + " but was " + this.peek());
+    }
+
+    private RuntimeException syntaxError(String message) {
+        return new RuntimeException(message + " at " + this.getPosition());
+    }
+
+}
@@ -0,0 +1,471 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.NumberCodec;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * streaming serializer.
+ * encodes tokens into a reusable char buffer that is flushed to the writer,
+ * nested values are written in place without building strings per subtree
+ */
+public class JsonWriter implements Closeable, Flushable {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Writer out;
+    private final StringBuilder target;
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private final StringBuilder number = new StringBuilder(32);
+    private int pos;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+    private String separator = ", ";
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+        this.target = null;
+        this.stack[this.stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    public JsonWriter(OutputStream out) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    JsonWriter(StringBuilder target) {
+        this.out = null;
+        this.target = target;
+        this.stack[this.stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * set compact mode
+     * @param compact if true values are separated with "," instead of ", "
+     * @return this
+     */
+    public JsonWriter compact(boolean compact) {
+        this.separator = compact ? "," : ", ";
+        return this;
+    }
+
+    /**
+     * write '{' and start new object
+     * @return this
+     */
+    public JsonWriter beginObject() {
+        this.beforeValue();
+        this.push(EMPTY_OBJECT);
+        this.write('{');
+        return this;
+    }
+
+    /**
+     * write '}' and close current object
+     * @return this
+     */
+    public JsonWriter endObject() {
+        int scope = this.peekScope();
+        if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem, object is not open or name has no value");
+        }
+        this.stackSize--;
+        this.write('}');
+        return this;
+    }
+
+    /**
+     * write '[' and start new array
+     * @return this
+     */
+    public JsonWriter beginArray() {
+        this.beforeValue();
+        this.push(EMPTY_ARRAY);
+        this.write('[');
+        return this;
+    }
+
+    /**
+     * write ']' and close current array
+     * @return this
+     */
+    public JsonWriter endArray() {
+        int scope = this.peekScope();
+        if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+            throw new IllegalStateException("Nesting problem, array is not open");
+        }
+        this.stackSize--;
+        this.write(']');
+        return this;
+    }
+
+    /**
+     * write property name
+     * @param name name
+     * @return this
+     */
+    public JsonWriter name(String name) {
+        int scope = this.peekScope();
+        if (scope == NONEMPTY_OBJECT) {
+            this.write(this.separator);
+        } else if (scope != EMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem, name is allowed only inside object");
+        }
+        this.stack[this.stackSize - 1] = DANGLING_NAME;
+        this.writeQuoted(name);
+        this.write(':');
+        return this;
+    }
+
+    /**
+     * @param value string value
+     * @return this
+     */
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return this.nullValue();
+        }
+        this.beforeValue();
+        this.writeQuoted(value);
+        return this;
+    }
+
+    /**
+     * @param value boolean value
+     * @return this
+     */
+    public JsonWriter value(boolean value) {
+        this.beforeValue();
+        this.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * @param value long value
+     * @return this
+     */
+    public JsonWriter value(long value) {
+        this.beforeValue();
+        this.number.setLength(0);
+        this.writeNumber(this.number.append(value));
+        return this;
+    }
+
+    /**
+     * @param value double value, written with the shortest round trip digits
+     * @return this
+     * @throws IllegalArgumentException if value is NaN or infinite
+     */
+    public JsonWriter value(double value) {
+        // checked before the separator is written, so refused value leaves writer usable
+        NumberCodec.checkFinite(value);
+        this.beforeValue();
+        this.number.setLength(0);
+        this.writeNumber(NumberCodec.appendDouble(this.number, value));
+        return this;
+    }
+
+    /**
+     * @param value number value
+     * @return this
+     * @throws IllegalArgumentException if value is NaN or infinite
+     */
+    public JsonWriter value(Number value) {
+        if (value == null) {
+            return this.nullValue();
+        }
+        this.number.setLength(0);
+        NumberCodec.appendNumber(this.number, value);
+        this.beforeValue();
+        this.writeNumber(this.number);
+        return this;
+    }
+
+    /**
+     * write null literal
+     * @return this
+     */
+    public JsonWriter nullValue() {
+        this.beforeValue();
+        this.write("null");
+        return this;
+    }
+
+    /**
+     * write value of any supported type,
+     * Json and JsonList are written with all nested values
+     * @param value value
+     * @return this
+     */
+    public JsonWriter value(Object value) {
+        return this.value(value, true);
+    }
+
+    /**
+     * write all entries of json
+     * @param json json to write
+     * @return this
+     */
+    public JsonWriter value(Json json) {
+        boolean parseTypes = json.isParseTypes();
+        this.beginObject();
+        Iterator<Map.Entry<String, Object>> iterator = json.rawEntries().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            this.name(entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof LazyJson.RawValue) {
+                LazyJson.RawValue raw = (LazyJson.RawValue) value;
+                this.beforeValue();
+                if (raw.chars != null) {
+                    this.write(raw.chars, raw.start, raw.end);
+                } else {
+                    this.write(raw.toString());
+                }
+            } else {
+                this.value(value, parseTypes);
+            }
+        }
+        return this.endObject();
+    }
+
+    /**
+     * write all elements of list
+     * @param list list to write
+     * @return this
+     */
+    public JsonWriter value(JsonList list) {
+        boolean parseTypes = list.isParseTypes();
+        this.beginArray();
+        for (Object value : list) {
+            this.value(value, parseTypes);
+        }
+        return this.endArray();
+    }
+
+    /**
+     * end written root value with '\n', next value starts new document
+     * @return this
+     */
+    JsonWriter endLine() {
+        if (this.stackSize != 1) {
+            throw new IllegalStateException("Nesting problem, root value is not closed");
+        }
+        this.write('\n');
+        this.stack[0] = EMPTY_DOCUMENT;
+        return this;
+    }
+
+    /**
+     * write buffered chars to the writer and flush it
+     */
+    @Override
+    public void flush() {
+        this.flushBuffer();
+        if (this.out != null) {
+            try {
+                this.out.flush();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.flushBuffer();
+        if (this.out != null) {
+            this.out.close();
+        }
+    }
+
+    /**
+     * @param value value to write
+     * @param parseTypes if false scalar values are written as strings
+     */
+    private JsonWriter value(Object value, boolean parseTypes) {
+        if (value instanceof Json) {
+            return this.value((Json) value);
+        } else if (value instanceof JsonList) {
+            return this.value((JsonList) value);
+        } else if (!parseTypes) {
+            return this.value(String.valueOf(value));
+        } else if (value == null) {
+            return this.nullValue();
+        } else if (value instanceof String) {
+            return this.value((String) value);
+        } else if (value instanceof Number) {
+            return this.value((Number) value);
+        } else if (value instanceof Boolean) {
+            return this.value(((Boolean) value).booleanValue());
+        } else if (value instanceof Temporal) {
+            return this.value(value.toString());
+        }
+        return this.value(String.valueOf(value));
+    }
+
+    private void beforeValue() {
+        int scope = this.peekScope();
+        switch (scope) {
+            case EMPTY_ARRAY:
+                this.stack[this.stackSize - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                this.write(this.separator);
+                break;
+            case DANGLING_NAME:
+                this.stack[this.stackSize - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                this.stack[this.stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                this.write('\n');
+                break;
+            default:
+                throw new IllegalStateException("Nesting problem, value inside object requires name");
+        }
+    }
+
+    /**
+     * write string in quotes, escaping quotes, backslashes and control chars
+     * @param value string
+     */
+    private void writeQuoted(String value) {
+        this.write('"');
+        int length = value.length();
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\') {
+                continue;
+            }
+            this.write(value, last, i);
+            last = i + 1;
+            switch (c) {
+                case '"': this.write("\\\""); break;
+                case '\\': this.write("\\\\"); break;
+                case '\b': this.write("\\b"); break;
+                case '\f': this.write("\\f"); break;
+                case '\n': this.write("\\n"); break;
+                case '\r': this.write("\\r"); break;
+                case '\t': this.write("\\t"); break;
+                default:
+                    this.write("\\u00");
+                    this.write(HEX[c >> 4]);
+                    this.write(HEX[c & 0xf]);
+            }
+        }
+        this.write(value, last, length);
+        this.write('"');
+    }
+
+    private void writeNumber(StringBuilder number) {
+        // big numbers can be longer than the whole buffer, so they are copied in chunks like strings
+        int length = number.length();
+        int start = 0;
+        while (start < length) {
+            if (this.pos == this.buffer.length) {
+                this.ensureCapacity();
+            }
+            int count = Math.min(length - start, this.buffer.length - this.pos);
+            number.getChars(start, start + count, this.buffer, this.pos);
+            this.pos += count;
+            start += count;
+        }
+    }
+
+    private void write(char c) {
+        if (this.pos == this.buffer.length) {
+            this.ensureCapacity();
+        }
+        this.buffer[this.pos++] = c;
+    }
+
+    private void write(String value) {
+        this.write(value, 0, value.length());
+    }
+
+    private void write(char[] chars, int start, int end) {
+        while (start < end) {
+            if (this.pos == this.buffer.length) {
+                this.ensureCapacity();
+            }
+            int count = Math.min(end - start, this.buffer.length - this.pos);
+            System.arraycopy(chars, start, this.buffer, this.pos, count);
+            this.pos += count;
+            start += count;
+        }
+    }
+
+    private void write(String value, int start, int end) {
+        while (start < end) {
+            if (this.pos == this.buffer.length) {
+                this.ensureCapacity();
+            }
+            int count = Math.min(end - start, this.buffer.length - this.pos);
+            value.getChars(start, start + count, this.buffer, this.pos);
+            this.pos += count;
+            start += count;
+        }
+    }
+
+    /**
+     * grow buffer up to the max size, so small values don't allocate whole buffer,
+     * then flush it when full
+     */
+    private void ensureCapacity() {
+        if (this.buffer.length < BUFFER_SIZE) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        } else {
+            this.flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        if (this.pos == 0) {
+            return;
+        }
+        if (this.target != null) {
+            this.target.append(this.buffer, 0, this.pos);
+        } else {
+            try {
+                this.out.write(this.buffer, 0, this.pos);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        this.pos = 0;
+    }
+
+    private int peekScope() {
+        return this.stack[this.stackSize - 1];
+    }
+
+    private void push(int scope) {
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stackSize * 2);
+        }
+        this.stack[this.stackSize++] = scope;
+    }
+
+}
@@ -0,0 +1,232 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * cache of object keys, so documents of the same schema share one String per key.
+ * bounded direct mapped table is looked up by chars or bytes of the key in the parser buffer,
+ * so repeated key doesn't allocate. colliding key replaces previous one, keys longer than 64 chars
+ * are not cached. table is safe to share between threads because it stores only immutable strings,
+ * concurrent cache also counts hits and misses with thread safe counters
+ */
+public final class KeyCache {
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final KeyCache SHARED = concurrent(DEFAULT_CAPACITY);
+
+    private final String[] table;
+    private final int mask;
+    private final LongAdder concurrentHits;
+    private final LongAdder concurrentMisses;
+    private long hits;
+    private long misses;
+
+    /**
+     * create cache for single parser or thread
+     * @param capacity max count of keys, rounded up to the power of two
+     */
+    public KeyCache(int capacity) {
+        this(capacity, false);
+    }
+
+    private KeyCache(int capacity, boolean concurrent) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.table = new String[size];
+        this.mask = size - 1;
+        this.concurrentHits = concurrent ? new LongAdder() : null;
+        this.concurrentMisses = concurrent ? new LongAdder() : null;
+    }
+
+    /**
+     * @param capacity max count of keys, rounded up to the power of two
+     * @return cache that can be used by parsers on different threads at once
+     */
+    public static KeyCache concurrent(int capacity) {
+        return new KeyCache(capacity, true);
+    }
+
+    /**
+     * @return global concurrent cache of 4096 keys
+     */
+    public static KeyCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return count of keys found in the cache
+     */
+    public long hits() {
+        return this.concurrentHits != null ? this.concurrentHits.sum() : this.hits;
+    }
+
+    /**
+     * @return count of keys created and put to the cache
+     */
+    public long misses() {
+        return this.concurrentMisses != null ? this.concurrentMisses.sum() : this.misses;
+    }
+
+    /**
+     * remove all keys and reset counters
+     */
+    public void clear() {
+        Arrays.fill(this.table, null);
+        if (this.concurrentHits != null) {
+            this.concurrentHits.reset();
+            this.concurrentMisses.reset();
+        } else {
+            this.hits = 0;
+            this.misses = 0;
+        }
+    }
+
+    /**
+     * @param chars buffer
+     * @param start index of the first char of the key
+     * @param end index after the last char
+     * @return cached or new key
+     */
+    String get(char[] chars, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH) {
+            return new String(chars, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = spread(hash) & this.mask;
+        String key = this.table[index];
+        if (key != null && key.hashCode() == hash && key.length() == length) {
+            int i = 0;
+            while (i < length && key.charAt(i) == chars[start + i]) {
+                i++;
+            }
+            if (i == length) {
+                this.hit();
+                return key;
+            }
+        }
+        key = new String(chars, start, length);
+        this.table[index] = key;
+        this.miss();
+        return key;
+    }
+
+    /**
+     * @param bytes buffer
+     * @param start index of the first byte of the key, all bytes of the key must be ascii
+     * @param end index after the last byte
+     * @return cached or new key
+     */
+    String get(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH) {
+            return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int index = spread(hash) & this.mask;
+        String key = this.table[index];
+        if (key != null && key.hashCode() == hash && key.length() == length) {
+            int i = 0;
+            while (i < length && key.charAt(i) == bytes[start + i]) {
+                i++;
+            }
+            if (i == length) {
+                this.hit();
+                return key;
+            }
+        }
+        key = new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+        this.table[index] = key;
+        this.miss();
+        return key;
+    }
+
+    /**
+     * @param bytes buffer without accessible array
+     * @param start absolute index of the first byte of the key, all bytes of the key must be ascii
+     * @param end index after the last byte
+     * @return cached or new key
+     */
+    String get(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes.get(i);
+        }
+        int index = spread(hash) & this.mask;
+        String key = length <= MAX_KEY_LENGTH ? this.table[index] : null;
+        if (key != null && key.hashCode() == hash && key.length() == length) {
+            int i = 0;
+            while (i < length && key.charAt(i) == bytes.get(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                this.hit();
+                return key;
+            }
+        }
+        byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = bytes.get(start + i);
+        }
+        key = new String(copy, StandardCharsets.ISO_8859_1);
+        if (length <= MAX_KEY_LENGTH) {
+            this.table[index] = key;
+            this.miss();
+        }
+        return key;
+    }
+
+    /**
+     * canonicalize key already created by parser, used for keys with escapes and unquoted keys
+     * @param key key
+     * @return cached key equal to the given one or the key itself
+     */
+    String get(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            return key;
+        }
+        int index = spread(key.hashCode()) & this.mask;
+        String cached = this.table[index];
+        if (key.equals(cached)) {
+            this.hit();
+            return cached;
+        }
+        this.table[index] = key;
+        this.miss();
+        return key;
+    }
+
+    private void hit() {
+        if (this.concurrentHits != null) {
+            this.concurrentHits.increment();
+        } else {
+            this.hits++;
+        }
+    }
+
+    private void miss() {
+        if (this.concurrentMisses != null) {
+            this.concurrentMisses.increment();
+        } else {
+            this.misses++;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,376 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * json parsed on demand.
+ * input is indexed once by StructuralIndex, then only keys and value bounds of the object are read,
+ * value is parsed on the first access. nested objects are lazy too and jump over the same index,
+ * untouched values are written back verbatim
+ */
+final class LazyJson extends Json {
+    private static final long serialVersionUID = 1L;
+    private final char[] chars;
+    private final byte[] bytes;
+    private final StructuralIndex index;
+    private int pending;
+
+    LazyJson(char[] chars, int start, int end, boolean parseTypes) {
+        this(chars, null, StructuralIndex.of(chars, start, end), parseTypes);
+        this.index(this.root(start, end));
+    }
+
+    LazyJson(byte[] bytes, int start, int end, boolean parseTypes) {
+        this(null, bytes, StructuralIndex.of(bytes, start, end), parseTypes);
+        if (end - start >= 3 && bytes[start] == (byte) 0xef && bytes[start + 1] == (byte) 0xbb && bytes[start + 2] == (byte) 0xbf) {
+            start += 3;
+        }
+        this.index(this.root(start, end));
+    }
+
+    private LazyJson(char[] chars, byte[] bytes, StructuralIndex index, boolean parseTypes) {
+        this.parseTypes(parseTypes);
+        this.chars = chars;
+        this.bytes = bytes;
+        this.index = index;
+    }
+
+    /**
+     * @param start start of the input
+     * @param end end of the input
+     * @return entry of the root object
+     */
+    private int root(int start, int end) {
+        int p = this.skipWhitespace(start, end);
+        if (this.index.size() == 0 || this.index.position(0) != p || this.charAt(p) != '{') {
+            throw syntaxError("Expected '{'", p);
+        }
+        int close = this.index.position(this.index.pair(0));
+        if (this.skipWhitespace(close + 1, end) != end) {
+            throw syntaxError("Unexpected data after root value", close + 1);
+        }
+        return 0;
+    }
+
+    /**
+     * read keys and value bounds by structural chars without parsing values
+     * @param open entry of the opening brace
+     */
+    private void index(int open) {
+        StructuralIndex index = this.index;
+        int close = index.pair(open);
+        int entry = open + 1;
+        if (entry == close) {
+            if (this.skipWhitespace(index.position(open) + 1, index.position(close)) != index.position(close)) {
+                throw syntaxError("Expected name", index.position(open) + 1);
+            }
+            return;
+        }
+        while (true) {
+            int from = index.position(entry - 1) + 1;
+            int keyStart = this.skipWhitespace(from, index.position(entry));
+            String key;
+            if (keyStart == index.position(entry) && this.charAt(keyStart) == '"') {
+                entry++;
+                int keyEnd = this.trimEnd(keyStart + 1, index.position(entry));
+                if (keyEnd - keyStart < 2 || this.charAt(keyEnd - 1) != '"') {
+                    throw syntaxError("Unterminated string", keyStart);
+                }
+                key = this.name(keyStart, keyEnd);
+            } else {
+                int keyEnd = this.trimEnd(keyStart, index.position(entry));
+                if (keyEnd == keyStart) {
+                    throw syntaxError("Expected name", keyStart);
+                }
+                key = this.string(keyStart, keyEnd);
+            }
+            if (entry == close || this.charAt(index.position(entry)) != ':') {
+                throw syntaxError("Expected ':'", index.position(entry));
+            }
+
+            int valueStart = this.skipWhitespace(index.position(entry) + 1, index.position(entry + 1));
+            int valueEntry = entry + 1;
+            int valueEnd;
+            char first = this.charAt(valueStart);
+            if (valueStart == index.position(valueEntry) && (first == '{' || first == '[')) {
+                valueEnd = index.position(index.pair(valueEntry)) + 1;
+                entry = index.pair(valueEntry) + 1;
+            } else {
+                entry = valueStart == index.position(valueEntry) && first == '"' ? valueEntry + 1 : valueEntry;
+                valueEnd = this.trimEnd(valueStart, index.position(entry));
+                if (valueEnd == valueStart) {
+                    throw syntaxError("Expected value", valueStart);
+                }
+            }
+            if (!(super.put(key, new RawValue(this.chars, this.bytes, valueStart, valueEnd, valueEntry)) instanceof RawValue)) {
+                this.pending++;
+            }
+
+            if (entry == close) {
+                if (this.skipWhitespace(valueEnd, index.position(close)) != index.position(close)) {
+                    throw syntaxError("Expected ',' or '}'", valueEnd);
+                }
+                return;
+            } else if (this.charAt(index.position(entry)) != ','
+                    || this.skipWhitespace(valueEnd, index.position(entry)) != index.position(entry)) {
+                throw syntaxError("Expected ',' or '}'", valueEnd);
+            }
+            entry++;
+        }
+    }
+
+    private char charAt(int position) {
+        return this.chars != null ? this.chars[position] : (char) (this.bytes[position] & 0xff);
+    }
+
+    private int skipWhitespace(int start, int end) {
+        int p = start;
+        while (p < end && this.charAt(p) <= ' ') {
+            p++;
+        }
+        return p;
+    }
+
+    private int trimEnd(int start, int end) {
+        int p = end;
+        while (p > start && this.charAt(p - 1) <= ' ') {
+            p--;
+        }
+        return p;
+    }
+
+    /**
+     * @param start index of the opening quote
+     * @param end index after the closing quote
+     * @return decoded name
+     */
+    private String name(int start, int end) {
+        for (int p = start + 1; p < end - 1; p++) {
+            if (this.charAt(p) == '\\') {
+                return (String) this.parse(start, end);
+            }
+        }
+        return this.string(start + 1, end - 1);
+    }
+
+    private String string(int start, int end) {
+        if (this.chars != null) {
+            return new String(this.chars, start, end - start);
+        }
+        return new String(this.bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param start start of the value
+     * @param end end of the value
+     * @return parsed value
+     */
+    private Object parse(int start, int end) {
+        if (this.chars != null) {
+            return new JsonReader(this.chars, start, end).parseTypes(this.isParseTypes()).readValue();
+        }
+        return new Utf8Parser(ByteBuffer.wrap(this.bytes, start, end - start), this.isParseTypes()).parseValueDocument();
+    }
+
+    private static RuntimeException syntaxError(String message, int position) {
+        return new RuntimeException(message + " at " + position);
+    }
+
+    /**
+     * @param key key of the value
+     * @param value stored value
+     * @return parsed value
+     */
+    private Object resolve(String key, Object value) {
+        if (!(value instanceof RawValue)) {
+            return value;
+        }
+        RawValue raw = (RawValue) value;
+        Object parsed;
+        if (this.charAt(raw.start) == '{') {
+            LazyJson json = new LazyJson(this.chars, this.bytes, this.index, this.isParseTypes());
+            json.index(raw.entry);
+            parsed = json;
+        } else {
+            parsed = this.parse(raw.start, raw.end);
+        }
+        super.put(key, parsed);
+        this.pending--;
+        return parsed;
+    }
+
+    private void resolve(Object key) {
+        if (this.pending != 0 && key instanceof String) {
+            this.resolve((String) key, super.get(key));
+        }
+    }
+
+    private void resolveAll() {
+        if (this.pending == 0) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : super.entrySet()) {
+            if (entry.getValue() instanceof RawValue) {
+                this.resolve(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    Set<Map.Entry<String, Object>> rawEntries() {
+        return super.entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = super.get(key);
+        return value instanceof RawValue ? this.resolve((String) key, value) : value;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        return this.containsKey(key) ? this.get(key) : defaultValue;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        this.resolveAll();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        this.resolveAll();
+        return super.entrySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        this.resolveAll();
+        return super.values();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        this.resolveAll();
+        super.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        this.resolveAll();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        this.resolve(key);
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        this.resolve(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        this.resolve(key);
+        return super.remove(key, value);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        this.resolve(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        this.resolve(key);
+        return super.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        this.resolve(key);
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        this.resolve(key);
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        this.resolve(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        this.resolve(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        this.resolve(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void clear() {
+        this.pending = 0;
+        super.clear();
+    }
+
+    /**
+     * serialized as ordinary json, raw values and input buffer are not serializable
+     * @return copy of this json with all values parsed
+     */
+    private Object writeReplace() {
+        return this.copy();
+    }
+
+    /**
+     * not parsed value, bounds of the value text
+     */
+    static final class RawValue {
+        final char[] chars;
+        final byte[] bytes;
+        final int start;
+        final int end;
+        final int entry;
+
+        RawValue(char[] chars, byte[] bytes, int start, int end, int entry) {
+            this.chars = chars;
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.entry = entry;
+        }
+
+        /**
+         * @return value text
+         */
+        @Override
+        public String toString() {
+            if (this.chars != null) {
+                return new String(this.chars, this.start, this.end - this.start);
+            }
+            return new String(this.bytes, this.start, this.end - this.start, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package net.mlk.jmson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * reader over memory mapped file.
+ * maps file by windows and decodes utf-8 straight into the caller buffer,
+ * so file bytes are never copied to heap or collected into a string
+ */
+final class MappedFileReader extends Reader {
+    private static final long WINDOW_SIZE = 1 << 28;
+    private static final int MAX_SEQUENCE_LENGTH = 4;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final char[] pair = new char[2];
+    private MappedByteBuffer window;
+    private long windowOffset;
+    private boolean hasPending;
+    private char pending;
+    private boolean finished;
+
+    MappedFileReader(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    /**
+     * @param path file path
+     * @param windowSize count of bytes mapped at once, not less than the longest utf-8 sequence
+     */
+    MappedFileReader(Path path, long windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * open reader and wrap io errors
+     * @param path file path
+     * @return reader
+     */
+    static MappedFileReader open(Path path) {
+        try {
+            return new MappedFileReader(path);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (this.hasPending) {
+            this.hasPending = false;
+            cbuf[off] = this.pending;
+            return 1;
+        }
+        if (len == 1) {
+            // surrogate pair can't fit into single char, keep second half for the next call
+            int count = this.read(this.pair, 0, 2);
+            if (count <= 0) {
+                return count;
+            }
+            cbuf[off] = this.pair[0];
+            if (count == 2) {
+                this.pending = this.pair[1];
+                this.hasPending = true;
+            }
+            return 1;
+        }
+        if (this.finished) {
+            return -1;
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+            if (this.window == null || (this.window.remaining() < MAX_SEQUENCE_LENGTH && !this.isLastWindow())) {
+                this.mapNextWindow();
+            }
+            boolean last = this.isLastWindow();
+            CoderResult result = this.decoder.decode(this.window, out, last);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (last && !this.window.hasRemaining()) {
+                this.decoder.flush(out);
+                this.finished = true;
+            }
+            if (out.position() > off) {
+                return out.position() - off;
+            } else if (this.finished) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * map next part of the file, starting from the first not decoded byte
+     */
+    private void mapNextWindow() throws IOException {
+        long start = this.window == null ? 0 : this.windowOffset + this.window.position();
+        long length = Math.min(this.windowSize, this.size - start);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        this.windowOffset = start;
+    }
+
+    private boolean isLastWindow() {
+        return this.windowOffset + this.window.limit() == this.size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+        this.channel.close();
+    }
+
+}
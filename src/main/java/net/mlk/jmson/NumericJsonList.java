@@ -0,0 +1,650 @@
+package net.mlk.jmson;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * list storing numbers in primitive array instead of boxed objects.
+ * it starts with int array, long moves it to long array, float or double to double array
+ * with type of every element, so get returns the same Integer, Long, Float or Double as parser put.
+ * any other value, insert in the middle or removal move list to ordinary array list storage
+ */
+final class NumericJsonList extends JsonList {
+    private static final long serialVersionUID = 1L;
+    private static final int INTS = 0;
+    private static final int LONGS = 1;
+    private static final int DOUBLES = 2;
+    private static final int OBJECTS = 3;
+
+    private static final byte DOUBLE = 0;
+    private static final byte FLOAT = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    private static final int[] NO_INTS = new int[0];
+
+    private int mode = INTS;
+    private int size;
+    private int[] ints = NO_INTS;
+    private long[] longs;
+    private double[] doubles;
+    private byte[] types;
+    private int floats;
+
+    NumericJsonList(boolean parseTypes) {
+        this.parseTypes(parseTypes);
+    }
+
+    /**
+     * move elements to array list storage, list stays there until cleared
+     */
+    private void inflate() {
+        if (this.mode == OBJECTS) {
+            return;
+        }
+        Object[] elements = this.toArray();
+        // iterators stay valid, elements are the same after the move
+        int modCount = this.modCount;
+        this.mode = OBJECTS;
+        this.size = 0;
+        this.ints = null;
+        this.longs = null;
+        this.doubles = null;
+        this.types = null;
+        super.ensureCapacity(elements.length);
+        for (Object element : elements) {
+            super.add(element);
+        }
+        this.modCount = modCount;
+    }
+
+    /**
+     * @param index index of the element
+     * @param value value to store
+     * @return false if value can't be stored in primitive array
+     */
+    private boolean store(int index, Object value) {
+        Class<?> type = value != null ? value.getClass() : null;
+        if (type == Integer.class) {
+            int number = (Integer) value;
+            if (this.mode == INTS) {
+                this.ints[index] = number;
+            } else if (this.mode == LONGS) {
+                this.longs[index] = number;
+            } else {
+                this.storeDouble(index, number, INTEGER);
+            }
+            return true;
+        } else if (type == Long.class) {
+            long number = (Long) value;
+            // long in int range is boxed back as Integer, so it can't be stored without losing its type
+            if ((int) number == number) {
+                return false;
+            } else if (this.mode == INTS) {
+                this.toLongs();
+            }
+            if (this.mode == LONGS) {
+                this.longs[index] = number;
+                return true;
+            } else if (number < -MAX_EXACT_LONG || number > MAX_EXACT_LONG) {
+                return false;
+            }
+            this.storeDouble(index, number, LONG);
+            return true;
+        } else if (type == Double.class || type == Float.class) {
+            if (this.mode != DOUBLES && !this.toDoubles()) {
+                return false;
+            }
+            this.storeDouble(index, ((Number) value).doubleValue(), type == Float.class ? FLOAT : DOUBLE);
+            return true;
+        }
+        return false;
+    }
+
+    private void storeDouble(int index, double value, byte type) {
+        if (this.types[index] == FLOAT && index < this.size) {
+            this.floats--;
+        }
+        this.doubles[index] = value;
+        this.types[index] = type;
+        if (type == FLOAT) {
+            this.floats++;
+        }
+    }
+
+    private void toLongs() {
+        long[] longs = new long[this.ints.length];
+        for (int i = 0; i < this.size; i++) {
+            longs[i] = this.ints[i];
+        }
+        this.longs = longs;
+        this.ints = null;
+        this.mode = LONGS;
+    }
+
+    private boolean toDoubles() {
+        int capacity = this.mode == INTS ? this.ints.length : this.longs.length;
+        double[] doubles = new double[capacity];
+        byte[] types = new byte[capacity];
+        for (int i = 0; i < this.size; i++) {
+            long number = this.mode == INTS ? this.ints[i] : this.longs[i];
+            if (number < -MAX_EXACT_LONG || number > MAX_EXACT_LONG) {
+                return false;
+            }
+            doubles[i] = number;
+            types[i] = (int) number == number ? INTEGER : LONG;
+        }
+        this.doubles = doubles;
+        this.types = types;
+        this.ints = null;
+        this.longs = null;
+        this.mode = DOUBLES;
+        return true;
+    }
+
+    private void grow() {
+        int capacity = Math.max(8, this.size + (this.size >> 1));
+        if (this.mode == INTS) {
+            this.ints = Arrays.copyOf(this.ints, capacity);
+        } else if (this.mode == LONGS) {
+            this.longs = Arrays.copyOf(this.longs, capacity);
+        } else {
+            this.doubles = Arrays.copyOf(this.doubles, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+        }
+    }
+
+    private int capacity() {
+        return this.mode == INTS ? this.ints.length : this.mode == LONGS ? this.longs.length : this.doubles.length;
+    }
+
+    /**
+     * @param index index of the element
+     * @return boxed element of primitive storage
+     */
+    private Object box(int index) {
+        if (this.mode == INTS) {
+            return this.ints[index];
+        } else if (this.mode == LONGS) {
+            long number = this.longs[index];
+            return (int) number == number ? (Object) (int) number : (Object) number;
+        }
+        double number = this.doubles[index];
+        switch (this.types[index]) {
+            case FLOAT:
+                return (float) number;
+            case INTEGER:
+                return (int) number;
+            case LONG:
+                return (long) number;
+            default:
+                return number;
+        }
+    }
+
+    /**
+     * drop unused capacity of primitive array, called when parser has read the whole array
+     */
+    @Override
+    void trim() {
+        if (this.mode == OBJECTS) {
+            super.trimToSize();
+        } else if (this.capacity() != this.size) {
+            if (this.mode == INTS) {
+                this.ints = Arrays.copyOf(this.ints, this.size);
+            } else if (this.mode == LONGS) {
+                this.longs = Arrays.copyOf(this.longs, this.size);
+            } else {
+                this.doubles = Arrays.copyOf(this.doubles, this.size);
+                this.types = Arrays.copyOf(this.types, this.size);
+            }
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        this.trim();
+    }
+
+    @Override
+    public int size() {
+        return this.mode != OBJECTS ? this.size : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (this.mode == OBJECTS) {
+            return super.get(index);
+        }
+        return this.box(Objects.checkIndex(index, this.size));
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        if (this.mode == OBJECTS) {
+            return super.set(index, element);
+        }
+        Object previous = this.get(index);
+        if (!this.store(index, element)) {
+            this.inflate();
+            return super.set(index, element);
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean add(Object element) {
+        if (this.mode != OBJECTS) {
+            if (this.size == this.capacity()) {
+                this.grow();
+            }
+            if (this.store(this.size, element)) {
+                this.size++;
+                this.modCount++;
+                return true;
+            }
+            this.inflate();
+        }
+        return super.add(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<?> collection) {
+        if (this.mode == OBJECTS) {
+            return super.addAll(collection);
+        }
+        for (Object element : collection) {
+            this.add(element);
+        }
+        return !collection.isEmpty();
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        if (index == this.size() && this.mode != OBJECTS) {
+            this.add(element);
+            return;
+        }
+        this.inflate();
+        super.add(index, element);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<?> collection) {
+        this.inflate();
+        return super.addAll(index, collection);
+    }
+
+    @Override
+    public Object remove(int index) {
+        this.inflate();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        if (this.mode != OBJECTS && this.indexOf(element) == -1) {
+            return false;
+        }
+        this.inflate();
+        return super.remove(element);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        this.inflate();
+        return super.removeAll(collection);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        this.inflate();
+        return super.retainAll(collection);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Object> filter) {
+        this.inflate();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Object> operator) {
+        this.inflate();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super Object> comparator) {
+        if (this.mode == INTS && comparator == null) {
+            Arrays.sort(this.ints, 0, this.size);
+            this.modCount++;
+            return;
+        }
+        this.inflate();
+        super.sort(comparator);
+    }
+
+    @Override
+    public List<Object> subList(int fromIndex, int toIndex) {
+        this.inflate();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public ListIterator<Object> listIterator() {
+        this.inflate();
+        return super.listIterator();
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(int index) {
+        this.inflate();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (this.mode == OBJECTS) {
+            super.ensureCapacity(capacity);
+        } else {
+            while (this.capacity() < capacity) {
+                this.grow();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.mode = INTS;
+        this.size = 0;
+        this.ints = NO_INTS;
+        this.longs = null;
+        this.doubles = null;
+        this.types = null;
+        this.floats = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public int indexOf(Object element) {
+        if (this.mode == OBJECTS) {
+            return super.indexOf(element);
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (Objects.equals(element, this.box(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object element) {
+        if (this.mode == OBJECTS) {
+            return super.lastIndexOf(element);
+        }
+        for (int i = this.size - 1; i >= 0; i--) {
+            if (Objects.equals(element, this.box(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return this.indexOf(element) != -1;
+    }
+
+    @Override
+    public Object[] toArray() {
+        if (this.mode == OBJECTS) {
+            return super.toArray();
+        }
+        Object[] array = new Object[this.size];
+        for (int i = 0; i < this.size; i++) {
+            array[i] = this.box(i);
+        }
+        return array;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] array) {
+        if (this.mode == OBJECTS) {
+            return super.toArray(array);
+        }
+        T[] result = array.length >= this.size ? array
+                : (T[]) Array.newInstance(array.getClass().getComponentType(), this.size);
+        for (int i = 0; i < this.size; i++) {
+            result[i] = (T) this.box(i);
+        }
+        if (result.length > this.size) {
+            result[this.size] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return this.mode != OBJECTS ? new Itr() : super.iterator();
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        if (this.mode == OBJECTS) {
+            return super.spliterator();
+        }
+        return Spliterators.spliterator(this, Spliterator.ORDERED);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Object> action) {
+        if (this.mode == OBJECTS) {
+            super.forEach(action);
+            return;
+        }
+        int modCount = this.modCount;
+        for (int i = 0; i < this.size && modCount == this.modCount; i++) {
+            action.accept(this.box(i));
+        }
+        if (modCount != this.modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this.mode == OBJECTS) {
+            return super.equals(o);
+        } else if (o == this) {
+            return true;
+        } else if (!(o instanceof List)) {
+            return false;
+        }
+        Iterator<?> other = ((List<?>) o).iterator();
+        for (int i = 0; i < this.size; i++) {
+            if (!other.hasNext() || !Objects.equals(this.box(i), other.next())) {
+                return false;
+            }
+        }
+        return !other.hasNext();
+    }
+
+    @Override
+    public int hashCode() {
+        if (this.mode == OBJECTS) {
+            return super.hashCode();
+        }
+        int hash = 1;
+        for (int i = 0; i < this.size; i++) {
+            hash = 31 * hash + this.box(i).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public Object clone() {
+        NumericJsonList list = (NumericJsonList) super.clone();
+        if (list.ints != null) {
+            list.ints = list.ints.clone();
+        }
+        if (list.longs != null) {
+            list.longs = list.longs.clone();
+        }
+        if (list.doubles != null) {
+            list.doubles = list.doubles.clone();
+            list.types = list.types.clone();
+        }
+        return list;
+    }
+
+    /**
+     * serialized as ordinary list, array list serialization doesn't see primitive arrays
+     * @return copy of this list
+     */
+    private Object writeReplace() {
+        return this.copy();
+    }
+
+    @Override
+    public long getLong(int index) {
+        if (this.mode == INTS) {
+            return this.ints[Objects.checkIndex(index, this.size)];
+        } else if (this.mode == LONGS) {
+            return this.longs[Objects.checkIndex(index, this.size)];
+        } else if (this.mode == DOUBLES) {
+            byte type = this.types[Objects.checkIndex(index, this.size)];
+            if (type == INTEGER || type == LONG) {
+                return (long) this.doubles[index];
+            }
+        }
+        return super.getLong(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (this.mode == INTS) {
+            return this.ints[Objects.checkIndex(index, this.size)];
+        } else if (this.mode == LONGS) {
+            return this.longs[Objects.checkIndex(index, this.size)];
+        } else if (this.mode == DOUBLES && this.types[Objects.checkIndex(index, this.size)] != FLOAT) {
+            return this.doubles[index];
+        }
+        // float is read from its decimal text as ordinary list does, not widened
+        return super.getDouble(index);
+    }
+
+    @Override
+    public float getFloat(int index) {
+        if (this.mode == DOUBLES && this.types[Objects.checkIndex(index, this.size)] == FLOAT) {
+            return (float) this.doubles[index];
+        }
+        return super.getFloat(index);
+    }
+
+    @Override
+    public int[] toIntArray() {
+        return this.mode == INTS ? Arrays.copyOf(this.ints, this.size) : super.toIntArray();
+    }
+
+    @Override
+    public long[] toLongArray() {
+        if (this.mode == LONGS) {
+            return Arrays.copyOf(this.longs, this.size);
+        }
+        return this.mode == INTS ? this.intStream().asLongStream().toArray() : super.toLongArray();
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        if (this.mode == DOUBLES && this.floats == 0) {
+            return Arrays.copyOf(this.doubles, this.size);
+        }
+        return this.mode == INTS || this.mode == LONGS ? this.longStream().asDoubleStream().toArray() : super.toDoubleArray();
+    }
+
+    @Override
+    public IntStream intStream() {
+        return this.mode == INTS ? Arrays.stream(this.ints, 0, this.size) : super.intStream();
+    }
+
+    @Override
+    public LongStream longStream() {
+        if (this.mode == INTS) {
+            return this.intStream().asLongStream();
+        }
+        return this.mode == LONGS ? Arrays.stream(this.longs, 0, this.size) : super.longStream();
+    }
+
+    @Override
+    public DoubleStream doubleStream() {
+        if (this.mode == INTS || this.mode == LONGS) {
+            return this.longStream().asDoubleStream();
+        }
+        return this.mode == DOUBLES && this.floats == 0 ? Arrays.stream(this.doubles, 0, this.size) : super.doubleStream();
+    }
+
+    /**
+     * iterator over primitive storage, removal moves list to array list storage
+     */
+    private final class Itr implements Iterator<Object> {
+        private int cursor;
+        private int last = -1;
+        private int expectedModCount = NumericJsonList.this.modCount;
+
+        @Override
+        public boolean hasNext() {
+            return this.cursor < NumericJsonList.this.size();
+        }
+
+        @Override
+        public Object next() {
+            if (NumericJsonList.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            } else if (this.cursor >= NumericJsonList.this.size()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.cursor;
+            return NumericJsonList.this.get(this.cursor++);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            } else if (NumericJsonList.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            NumericJsonList.this.remove(this.last);
+            this.cursor = this.last;
+            this.last = -1;
+            this.expectedModCount = NumericJsonList.this.modCount;
+        }
+    }
+
+}
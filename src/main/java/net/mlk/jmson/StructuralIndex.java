@@ -0,0 +1,215 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * positions of the structural chars of the input: brackets, colons, commas and opening quotes.
+ * built in one pass with quotes and escapes resolved, so chars inside strings are never indexed.
+ * every bracket knows its pair, so nested value is skipped with a single jump
+ */
+final class StructuralIndex {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long GATHER = 0x0102040810204080L;
+    private static final boolean[] STRUCTURAL = new boolean[128];
+
+    static {
+        for (char c : "{}[]:,\"\\".toCharArray()) {
+            STRUCTURAL[c] = true;
+        }
+    }
+
+    private int[] positions;
+    private int[] pairs;
+    private int size;
+
+    private StructuralIndex(int capacity) {
+        this.positions = new int[Math.max(capacity, 16)];
+    }
+
+    /**
+     * index chars
+     * @param chars source
+     * @param start index of the first char
+     * @param end index after the last char
+     * @return index
+     */
+    static StructuralIndex of(char[] chars, int start, int end) {
+        StructuralIndex index = new StructuralIndex((end - start) >> 2);
+        int[] positions = index.positions;
+        int size = 0;
+        int p = start;
+        while (p < end) {
+            char c = chars[p++];
+            if (c >= 128 || !STRUCTURAL[c] || c == '\\') {
+                continue;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = p - 1;
+            if (c == '"') {
+                // string body is skipped in place, only quotes and escapes matter there
+                while (p < end) {
+                    char d = chars[p++];
+                    if (d == '"') {
+                        break;
+                    } else if (d == '\\') {
+                        p++;
+                    }
+                }
+            }
+        }
+        index.positions = positions;
+        index.size = size;
+        index.pair(chars, null);
+        return index;
+    }
+
+    /**
+     * index utf-8 bytes, 8 bytes are classified at once with bitwise operations on long words.
+     * multibyte sequences never contain ascii bytes, so they are skipped as regular string chars
+     * @param bytes source
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return index
+     */
+    static StructuralIndex of(byte[] bytes, int start, int end) {
+        StructuralIndex index = new StructuralIndex((end - start) >> 3);
+        ByteBuffer words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        boolean escapeNext = false;
+        long inString = 0;
+        for (int p = start; p < end; p += 8) {
+            long word;
+            if (end - p >= 8) {
+                word = words.getLong(p);
+            } else {
+                // pad last word with spaces, they are never structural
+                int count = end - p;
+                word = 0x2020202020202020L << (count << 3);
+                for (int i = 0; i < count; i++) {
+                    word |= (long) (bytes[p + i] & 0xff) << (i << 3);
+                }
+            }
+
+            long backslashes = mask(equal(word, '\\'));
+            long quotes = mask(equal(word, '"'));
+            long escaped = 0;
+            if (backslashes != 0 || escapeNext) {
+                for (int i = 0; i < 8; i++) {
+                    if (escapeNext) {
+                        escaped |= 1L << i;
+                        escapeNext = false;
+                    } else if ((backslashes & (1L << i)) != 0) {
+                        escapeNext = true;
+                    }
+                }
+            }
+            quotes &= ~escaped;
+
+            // prefix xor of quotes: set for opening quote and chars inside string
+            long strings = quotes;
+            strings ^= strings << 1;
+            strings ^= strings << 2;
+            strings ^= strings << 4;
+            strings = (strings ^ inString) & 0xff;
+            inString = (strings >>> 7) != 0 ? 0xff : 0;
+
+            long folded = word | 0x2020202020202020L;
+            long structural = mask(equal(folded, '{') | equal(folded, '}') | equal(word, ':') | equal(word, ','));
+            long found = (structural & ~strings) | (quotes & strings);
+            while (found != 0) {
+                index.add(p + Long.numberOfTrailingZeros(found));
+                found &= found - 1;
+            }
+        }
+        index.pair(null, bytes);
+        return index;
+    }
+
+    /**
+     * @param word 8 bytes
+     * @param c ascii char
+     * @return 0x80 in every byte equal to char
+     */
+    private static long equal(long word, char c) {
+        long x = word ^ (ONES * c);
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /**
+     * @param bytes 0x80 or 0 in every byte
+     * @return 8 bit mask, one bit per byte
+     */
+    private static long mask(long bytes) {
+        return ((bytes >>> 7) * GATHER) >>> 56;
+    }
+
+    private void add(int position) {
+        if (this.size == this.positions.length) {
+            this.positions = Arrays.copyOf(this.positions, this.size * 2);
+        }
+        this.positions[this.size++] = position;
+    }
+
+    /**
+     * link every opening bracket with its closing bracket
+     * @param chars char source or null
+     * @param bytes byte source or null
+     */
+    private void pair(char[] chars, byte[] bytes) {
+        this.pairs = new int[this.size];
+        int[] stack = new int[16];
+        int depth = 0;
+        for (int i = 0; i < this.size; i++) {
+            int position = this.positions[i];
+            char c = chars != null ? chars[position] : (char) bytes[position];
+            if (c == '{' || c == '[') {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = i;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    throw new RuntimeException("Unexpected '" + c + "' at " + position);
+                }
+                int open = stack[--depth];
+                char expected = (chars != null ? chars[this.positions[open]] : (char) bytes[this.positions[open]]) == '{' ? '}' : ']';
+                if (c != expected) {
+                    throw new RuntimeException("Expected '" + expected + "' but was '" + c + "' at " + position);
+                }
+                this.pairs[open] = i;
+                this.pairs[i] = open;
+            }
+        }
+        if (depth != 0) {
+            throw new RuntimeException("Unterminated value at " + this.positions[stack[depth - 1]]);
+        }
+    }
+
+    /**
+     * @return count of indexed chars
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @param entry index of the structural char
+     * @return position of the char in the source
+     */
+    int position(int entry) {
+        return this.positions[entry];
+    }
+
+    /**
+     * @param entry index of the bracket
+     * @return index of the paired bracket
+     */
+    int pair(int entry) {
+        return this.pairs[entry];
+    }
+
+}
@@ -0,0 +1,701 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.NumberCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * recursive descent parser over utf-8 bytes.
+ * tokenizes bytes in place, strings are decoded only when value is created
+ * and pure ascii strings (most of the keys) are copied without decoding
+ */
+final class Utf8Parser {
+    private final ByteBuffer bytes;
+    private final byte[] array;
+    private final int arrayOffset;
+    private int limit;
+    private final boolean parseTypes;
+    private final NumberCodec number = new NumberCodec();
+    private byte[] scratch = new byte[64];
+    private StringBuilder builder;
+    private KeyCache keyCache;
+    private boolean compact;
+    private int pos;
+
+    Utf8Parser(ByteBuffer bytes, boolean parseTypes) {
+        this.bytes = bytes;
+        this.array = bytes.hasArray() ? bytes.array() : null;
+        this.arrayOffset = bytes.hasArray() ? bytes.arrayOffset() : 0;
+        this.pos = bytes.position();
+        this.limit = bytes.limit();
+        this.parseTypes = parseTypes;
+        this.skipByteOrderMark();
+    }
+
+    /**
+     * @param keyCache cache to take repeated keys from or null to create new string for every key
+     * @return this
+     */
+    Utf8Parser keyCache(KeyCache keyCache) {
+        this.keyCache = keyCache;
+        return this;
+    }
+
+    /**
+     * @param compact if true objects store values in array by key layout shared with objects of the same keys
+     *                and arrays of numbers store them in primitive array
+     * @return this
+     */
+    Utf8Parser compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * @return new empty object of the parser storage mode
+     */
+    private Json newJson() {
+        return this.compact ? new CompactJson(this.parseTypes) : new Json().parseTypes(this.parseTypes);
+    }
+
+    /**
+     * @return new empty list of the parser storage mode
+     */
+    private JsonList newList() {
+        return this.compact ? new NumericJsonList(this.parseTypes) : new JsonList().parseTypes(this.parseTypes);
+    }
+
+    /**
+     * map whole file to memory
+     * @param path file path
+     * @return mapped bytes or null if file is too large for single buffer
+     */
+    static ByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * parse whole input as single object into json
+     * @param json json to fill
+     * @return json
+     */
+    Json parseDocument(Json json) {
+        if (this.nextNonWhitespace() != '{') {
+            throw this.syntaxError("Not json object");
+        }
+        this.parseObject(json);
+        this.ensureEnd();
+        return json;
+    }
+
+    /**
+     * parse whole input as single object into json, members out of projection are skipped
+     * @param json json to fill
+     * @param projection keys to keep
+     * @return json
+     */
+    Json parseDocument(Json json, JsonProjection projection) {
+        if (this.nextNonWhitespace() != '{') {
+            throw this.syntaxError("Not json object");
+        }
+        this.parseObject(json, projection);
+        this.ensureEnd();
+        return json;
+    }
+
+    /**
+     * parse whole input as single array into list
+     * @param list list to fill
+     * @return list
+     */
+    JsonList parseDocument(JsonList list) {
+        if (this.nextNonWhitespace() != '[') {
+            throw this.syntaxError("Not list object");
+        }
+        this.parseArray(list);
+        this.ensureEnd();
+        return list;
+    }
+
+    /**
+     * parse whole input as single value of any type
+     * @return value
+     */
+    Object parseValueDocument() {
+        Object value = this.parseValue();
+        this.ensureEnd();
+        return value;
+    }
+
+    /**
+     * parse single complete token, used by AsyncJsonParser to decode buffered tokens
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return string, number, boolean, null or bare word
+     */
+    Object parseToken(int start, int end) {
+        this.pos = start;
+        this.limit = end;
+        Object value = this.parseValue();
+        if (this.pos != end) {
+            throw this.syntaxError("Unexpected data after value");
+        }
+        return value;
+    }
+
+    /**
+     * read next object of newline delimited input
+     * @return json or null if end of input is reached
+     */
+    Json parseRecord() {
+        int c = this.nextNonWhitespace();
+        if (c == -1) {
+            return null;
+        } else if (c != '{') {
+            throw this.syntaxError("Not json object");
+        }
+        Json json = this.newJson();
+        this.parseObject(json);
+        json.trim();
+        return json;
+    }
+
+    /**
+     * read comma separated values up to the end of input,
+     * input is part of the array between top level commas
+     * @param list list to fill
+     * @param required if false input can be empty
+     */
+    void parseElements(JsonList list, boolean required) {
+        int c = this.nextNonWhitespace();
+        if (c == -1) {
+            if (required) {
+                throw this.syntaxError("Expected value");
+            }
+            return;
+        }
+        this.pos--;
+        while (true) {
+            list.add(this.parseValue());
+
+            c = this.nextNonWhitespace();
+            if (c == -1) {
+                return;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * parse single complete quoted name, key cache is used if it is set
+     * @param start index of the opening quote
+     * @param end index after the closing quote
+     * @return name
+     */
+    String parseName(int start, int end) {
+        this.pos = start + 1;
+        this.limit = end;
+        return this.readName();
+    }
+
+    /**
+     * read object members, opening brace is already consumed
+     * @param json json to fill
+     */
+    private void parseObject(Json json) {
+        int c = this.nextNonWhitespace();
+        if (c == '}') {
+            return;
+        }
+        while (true) {
+            String key;
+            if (c == '"') {
+                key = this.readName();
+            } else if (c != -1) {
+                this.pos--;
+                key = this.readUnquoted();
+                if (key.isEmpty()) {
+                    throw this.syntaxError("Expected name");
+                } else if (this.keyCache != null) {
+                    key = this.keyCache.get(key);
+                }
+            } else {
+                throw this.syntaxError("Expected name");
+            }
+            if (this.nextNonWhitespace() != ':') {
+                throw this.syntaxError("Expected ':'");
+            }
+            json.put(key, this.parseValue());
+
+            c = this.nextNonWhitespace();
+            if (c == '}') {
+                return;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or '}'");
+            }
+            c = this.nextNonWhitespace();
+        }
+    }
+
+    /**
+     * read object members out of projection are skipped, opening brace is already consumed
+     * @param json json to fill
+     * @param projection keys to keep
+     */
+    private void parseObject(Json json, JsonProjection projection) {
+        if (projection.isAll()) {
+            this.parseObject(json);
+            return;
+        }
+        int c = this.nextNonWhitespace();
+        if (c == '}') {
+            return;
+        }
+        while (true) {
+            String key;
+            if (c == '"') {
+                key = this.readName();
+            } else if (c != -1) {
+                this.pos--;
+                key = this.readUnquoted();
+                if (key.isEmpty()) {
+                    throw this.syntaxError("Expected name");
+                } else if (this.keyCache != null) {
+                    key = this.keyCache.get(key);
+                }
+            } else {
+                throw this.syntaxError("Expected name");
+            }
+            if (this.nextNonWhitespace() != ':') {
+                throw this.syntaxError("Expected ':'");
+            }
+            JsonProjection child = projection.child(key);
+            if (child == null) {
+                this.skipValue();
+            } else {
+                json.put(key, this.parseValue(child));
+            }
+
+            c = this.nextNonWhitespace();
+            if (c == '}') {
+                return;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or '}'");
+            }
+            c = this.nextNonWhitespace();
+        }
+    }
+
+    /**
+     * read array elements, opening bracket is already consumed
+     * @param list list to fill
+     */
+    private void parseArray(JsonList list) {
+        int c = this.nextNonWhitespace();
+        if (c == ']') {
+            return;
+        } else if (c == -1) {
+            throw this.syntaxError("Expected value");
+        }
+        this.pos--;
+        while (true) {
+            list.add(this.parseValue());
+
+            c = this.nextNonWhitespace();
+            if (c == ']') {
+                return;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * read array elements with projection applied to every element, opening bracket is already consumed
+     * @param list list to fill
+     * @param projection keys to keep
+     */
+    private void parseArray(JsonList list, JsonProjection projection) {
+        if (projection.isAll()) {
+            this.parseArray(list);
+            return;
+        }
+        int c = this.nextNonWhitespace();
+        if (c == ']') {
+            return;
+        } else if (c == -1) {
+            throw this.syntaxError("Expected value");
+        }
+        this.pos--;
+        while (true) {
+            list.add(this.parseValue(projection));
+
+            c = this.nextNonWhitespace();
+            if (c == ']') {
+                return;
+            } else if (c != ',') {
+                throw this.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * @param projection keys to keep if value is object or array of objects
+     * @return next value at cursor
+     */
+    private Object parseValue(JsonProjection projection) {
+        int c = this.nextNonWhitespace();
+        if (c == '{') {
+            Json json = this.newJson();
+            this.parseObject(json, projection);
+            json.trim();
+            return json;
+        } else if (c == '[') {
+            JsonList list = this.newList();
+            this.parseArray(list, projection);
+            list.trim();
+            return list;
+        }
+        this.pos--;
+        return this.parseValue();
+    }
+
+    /**
+     * move cursor after next value without decoding it,
+     * nested values are only checked to have balanced brackets
+     */
+    private void skipValue() {
+        int c = this.nextNonWhitespace();
+        if (c == '"') {
+            this.skipString();
+            return;
+        } else if (c != '{' && c != '[') {
+            int start = --this.pos;
+            this.skipUnquoted();
+            if (c == -1 || start == this.pos) {
+                throw this.syntaxError("Expected value");
+            }
+            return;
+        }
+        int depth = 1;
+        while (depth != 0) {
+            if (this.pos == this.limit) {
+                throw this.syntaxError("Unterminated value");
+            }
+            byte b = this.get(this.pos++);
+            if (b == '"') {
+                this.skipString();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * move cursor after closing quote, opening quote is already consumed
+     */
+    private void skipString() {
+        for (int i = this.pos; i < this.limit; i++) {
+            byte b = this.get(i);
+            if (b == '"') {
+                this.pos = i + 1;
+                return;
+            } else if (b == '\\') {
+                i++;
+            }
+        }
+        throw this.syntaxError("Unterminated string");
+    }
+
+    /**
+     * @return next value at cursor
+     */
+    private Object parseValue() {
+        int c = this.nextNonWhitespace();
+        switch (c) {
+            case '{':
+                Json json = this.newJson();
+                this.parseObject(json);
+                json.trim();
+                return json;
+            case '[':
+                JsonList list = this.newList();
+                this.parseArray(list);
+                list.trim();
+                return list;
+            case '"':
+                return this.readString();
+            case -1:
+                throw this.syntaxError("Expected value");
+            default:
+                int start = --this.pos;
+                boolean ascii = this.skipUnquoted();
+                if (start == this.pos) {
+                    throw this.syntaxError("Expected value");
+                }
+                return this.parseTypes ? this.literalValue(start, this.pos, ascii) : this.newString(start, this.pos - start, ascii);
+        }
+    }
+
+    /**
+     * detect type of the unquoted value right in the input bytes
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @param ascii true if all bytes are ascii
+     * @return number, boolean, null or string for bare words
+     */
+    private Object literalValue(int start, int end, boolean ascii) {
+        byte first = this.get(start);
+        if ((first >= '0' && first <= '9') || first == '-' || first == '+' || first == '.') {
+            boolean isNumber;
+            if (this.array != null) {
+                isNumber = this.number.scan(this.array, this.arrayOffset + start, this.arrayOffset + end);
+            } else {
+                int length = end - start;
+                this.ensureScratch(length);
+                for (int i = 0; i < length; i++) {
+                    this.scratch[i] = this.bytes.get(start + i);
+                }
+                isNumber = this.number.scan(this.scratch, 0, length);
+            }
+            if (isNumber) {
+                return this.number.toNumber();
+            }
+        } else if (this.matches(start, end, "true", true)) {
+            return true;
+        } else if (this.matches(start, end, "false", true)) {
+            return false;
+        } else if (this.matches(start, end, "null", false)) {
+            return null;
+        }
+        return this.newString(start, end - start, ascii);
+    }
+
+    private boolean matches(int start, int end, String word, boolean ignoreCase) {
+        int length = word.length();
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int c = this.get(start + i);
+            int expected = word.charAt(i);
+            if (c != expected && !(ignoreCase && Character.toLowerCase(c) == expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * read quoted string, opening quote is already consumed.
+     * ascii strings without escapes are copied as latin-1 without decoding
+     * @return string value
+     */
+    private String readString() {
+        int start = this.pos;
+        boolean ascii = true;
+        for (int i = start; i < this.limit; i++) {
+            byte b = this.get(i);
+            if (b == '"') {
+                this.pos = i + 1;
+                return this.newString(start, i - start, ascii);
+            } else if (b == '\\') {
+                this.pos = i;
+                return this.readEscapedString(start);
+            } else if (b < 0) {
+                ascii = false;
+            }
+        }
+        throw this.syntaxError("Unterminated string");
+    }
+
+    /**
+     * read quoted key through key cache, opening quote is already consumed
+     * @return key
+     */
+    private String readName() {
+        KeyCache cache = this.keyCache;
+        if (cache == null) {
+            return this.readString();
+        }
+        int start = this.pos;
+        for (int i = start; i < this.limit; i++) {
+            byte b = this.get(i);
+            if (b == '"') {
+                this.pos = i + 1;
+                return this.array != null ? cache.get(this.array, this.arrayOffset + start, this.arrayOffset + i)
+                        : cache.get(this.bytes, start, i);
+            } else if (b == '\\' || b < 0) {
+                break;
+            }
+        }
+        return cache.get(this.readString());
+    }
+
+    /**
+     * slow path of the string reading with escape sequences
+     * @param start start of the string content
+     * @return string value
+     */
+    private String readEscapedString(int start) {
+        if (this.builder == null) {
+            this.builder = new StringBuilder();
+        }
+        StringBuilder builder = this.builder;
+        builder.setLength(0);
+        int segment = start;
+        while (this.pos < this.limit) {
+            byte b = this.get(this.pos);
+            if (b == '"') {
+                builder.append(this.newString(segment, this.pos - segment, false));
+                this.pos++;
+                return builder.toString();
+            } else if (b != '\\') {
+                this.pos++;
+                continue;
+            }
+            builder.append(this.newString(segment, this.pos - segment, false));
+            if (++this.pos == this.limit) {
+                break;
+            }
+            byte escaped = this.get(this.pos++);
+            switch (escaped) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (this.pos + 4 > this.limit) {
+                        throw this.syntaxError("Unterminated unicode escape");
+                    }
+                    int result = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(this.get(this.pos++), 16);
+                        if (digit == -1) {
+                            throw this.syntaxError("Malformed unicode escape");
+                        }
+                        result = (result << 4) | digit;
+                    }
+                    builder.append((char) result);
+                    break;
+                default:
+                    if (escaped < 0) {
+                        // escaped multibyte char, let decoder read whole sequence
+                        this.pos--;
+                    } else {
+                        builder.append((char) escaped);
+                    }
+            }
+            segment = this.pos;
+        }
+        throw this.syntaxError("Unterminated string");
+    }
+
+    /**
+     * read unquoted name
+     * @return name
+     */
+    private String readUnquoted() {
+        int start = this.pos;
+        boolean ascii = this.skipUnquoted();
+        return this.newString(start, this.pos - start, ascii);
+    }
+
+    /**
+     * move cursor to the end of unquoted token
+     * @return true if all token bytes are ascii
+     */
+    private boolean skipUnquoted() {
+        boolean ascii = true;
+        while (this.pos < this.limit) {
+            byte b = this.get(this.pos);
+            if (b == ',' || b == ':' || b == '}' || b == ']' || b == '{' || b == '['
+                    || b == '"' || (b >= 0 && b <= ' ')) {
+                break;
+            } else if (b < 0) {
+                ascii = false;
+            }
+            this.pos++;
+        }
+        return ascii;
+    }
+
+    /**
+     * @param start start index
+     * @param length count of bytes
+     * @param ascii true if all bytes are ascii
+     * @return decoded string
+     */
+    private String newString(int start, int length, boolean ascii) {
+        if (this.array != null) {
+            return new String(this.array, this.arrayOffset + start, length,
+                    ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        this.ensureScratch(length);
+        for (int i = 0; i < length; i++) {
+            this.scratch[i] = this.bytes.get(start + i);
+        }
+        return new String(this.scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    private void ensureScratch(int length) {
+        if (this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+    }
+
+    private byte get(int index) {
+        return this.array != null ? this.array[this.arrayOffset + index] : this.bytes.get(index);
+    }
+
+    /**
+     * @return next not whitespace byte or -1 if end reached
+     */
+    private int nextNonWhitespace() {
+        while (this.pos < this.limit) {
+            byte b = this.get(this.pos++);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b & 0xff;
+            }
+        }
+        return -1;
+    }
+
+    private void skipByteOrderMark() {
+        if (this.limit - this.pos >= 3 && this.get(this.pos) == (byte) 0xef
+                && this.get(this.pos + 1) == (byte) 0xbb && this.get(this.pos + 2) == (byte) 0xbf) {
+            this.pos += 3;
+        }
+    }
+
+    /**
+     * check that only whitespaces left after root value
+     */
+    private void ensureEnd() {
+        if (this.nextNonWhitespace() != -1) {
+            throw this.syntaxError("Unexpected data after root value");
+        }
+    }
+
+    private RuntimeException syntaxError(String message) {
+        return new RuntimeException(message + " at " + this.pos);
+    }
+
+}
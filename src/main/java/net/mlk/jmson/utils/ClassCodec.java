@@ -0,0 +1,543 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonList;
+import net.mlk.jmson.annotations.JsonField;
+import net.mlk.jmson.annotations.JsonIgnore;
+import net.mlk.jmson.annotations.JsonObject;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * reflection metadata of one convertible class level.
+ * resolved once per class and shared by both conversion directions,
+ * fields and constructor are accessed through codec generated by processor module if it exists,
+ * otherwise through codec generated at runtime as hidden class if GENERATE_PROPERTY is true,
+ * method handles are used for the rest instead of reflection calls
+ */
+final class ClassCodec {
+    private static final String KEY_TEMPLATE = "JmsonKeyTemplate";
+    static final String GENERATE_PROPERTY = "jmson.generateCodecs";
+    // read once, codecs are cached per class and can't change their access later
+    private static final boolean GENERATE = Boolean.getBoolean(GENERATE_PROPERTY);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    // ClassValue keeps values with the class itself, so caches don't pin class loaders of user classes
+    private static final ClassValue<ClassCodec> CODECS = new ClassValue<ClassCodec>() {
+        @Override
+        protected ClassCodec computeValue(Class<?> type) {
+            return new ClassCodec(type);
+        }
+    };
+    private static final ClassValue<Boolean> CONVERTIBLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Arrays.asList(type.getInterfaces()).contains(JsonConvertible.class);
+        }
+    };
+
+    final Class<?> type;
+    final ClassCodec parent;
+    final String key;
+    final String[] keys;
+    final boolean autoConvert;
+    final FieldCodec[] fields;
+    final String selectorName;
+    private final Method selector;
+    private final Supplier<Object> factory;
+    private volatile Map<String, FieldCodec[]> bindings;
+
+    private ClassCodec(Class<?> type) {
+        this.type = type;
+        Class<?> superClass = type.getSuperclass();
+        this.parent = superClass != null && isConvertible(superClass) ? of(superClass) : null;
+
+        JsonObject jsonObject = type.getAnnotation(JsonObject.class);
+        DateTimeFormatter dateFormatter = null;
+        boolean ignoreNull = false;
+        if (jsonObject != null) {
+            this.key = jsonObject.key().equals(KEY_TEMPLATE) ? null : jsonObject.key();
+            this.keys = jsonObject.keys();
+            this.autoConvert = jsonObject.autoConvert();
+            this.selectorName = jsonObject.methodName().isEmpty() ? null : jsonObject.methodName();
+            if (!jsonObject.dateFormat().isEmpty()) {
+                dateFormatter = DateTimeFormatter.ofPattern(jsonObject.dateFormat());
+            }
+            ignoreNull = jsonObject.ignoreNull();
+        } else {
+            this.key = null;
+            this.keys = new String[0];
+            this.autoConvert = true;
+            this.selectorName = null;
+        }
+        this.selector = this.selectorName != null ? findSelector(type, this.selectorName) : null;
+        JsonCodec<Object> generated = generated(type);
+        if (generated == null && GENERATE) {
+            generated = CodecGenerator.generate(type);
+        }
+        this.factory = generated != null ? generated::newInstance : factory(type);
+
+        List<String> accessible = generated != null ? Arrays.asList(generated.fields()) : Collections.emptyList();
+        Field[] declared = type.getDeclaredFields();
+        this.fields = new FieldCodec[declared.length];
+        for (int i = 0; i < declared.length; i++) {
+            int index = accessible.indexOf(declared[i].getName());
+            this.fields[i] = new FieldCodec(declared[i], dateFormatter, ignoreNull, this.autoConvert,
+                    index != -1 ? generated : null, index);
+        }
+    }
+
+    /**
+     * get cached codec of the class, creating it on first use
+     * @param type class
+     * @return codec
+     */
+    static ClassCodec of(Class<?> type) {
+        return CODECS.get(type);
+    }
+
+    /**
+     * check if class directly implements JsonConvertible
+     * @param type class to check
+     * @return true if can be converted
+     */
+    static boolean isConvertible(Class<?> type) {
+        return CONVERTIBLE.get(type);
+    }
+
+    /**
+     * check if all fields of the class and its parents are read from the object itself,
+     * not from the nested objects by JsonObject key or keys
+     * @return true if fields can be bound by name while reading object
+     */
+    boolean isFlat() {
+        for (ClassCodec codec = this; codec != null; codec = codec.parent) {
+            if (codec.key != null || codec.keys.length != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * fields of the class and its parents by json key, parent fields go first
+     * @return fields by key
+     */
+    Map<String, FieldCodec[]> bindings() {
+        Map<String, FieldCodec[]> bindings = this.bindings;
+        if (bindings == null) {
+            bindings = this.parent != null ? new HashMap<>(this.parent.bindings()) : new HashMap<>();
+            for (FieldCodec field : this.fields) {
+                FieldCodec[] bound = bindings.get(field.name);
+                if (bound == null) {
+                    bound = new FieldCodec[] {field};
+                } else {
+                    bound = Arrays.copyOf(bound, bound.length + 1);
+                    bound[bound.length - 1] = field;
+                }
+                bindings.put(field.name, bound);
+            }
+            this.bindings = bindings;
+        }
+        return bindings;
+    }
+
+    /**
+     * create new instance with default constructor
+     * @return instance
+     */
+    Object newInstance() {
+        return this.factory.get();
+    }
+
+    /**
+     * call selector method from JsonObject annotation on new instance
+     * @param json json to check
+     * @return true if json describes object of this class
+     */
+    boolean select(Json json) {
+        try {
+            if (this.selector == null) {
+                throw new NoSuchMethodException(this.type.getName() + "." + this.selectorName + "(Json)");
+            }
+            return (boolean) this.selector.invoke(this.newInstance(), json);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * find codec generated for the class by processor module
+     * @param type class
+     * @return generated codec or null if class was compiled without processor
+     */
+    @SuppressWarnings("unchecked")
+    private static JsonCodec<Object> generated(Class<?> type) {
+        try {
+            Class<?> codec = Class.forName(type.getName() + JsonCodec.SUFFIX, true, type.getClassLoader());
+            if (JsonCodec.class.isAssignableFrom(codec)) {
+                return (JsonCodec<Object>) codec.getDeclaredConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // no codec, reflection is used
+        }
+        return null;
+    }
+
+    /**
+     * create factory calling default constructor.
+     * accessible constructors are bound to generated Supplier, so the call can be inlined by jit,
+     * others are called through method handle
+     * @param type class to instantiate
+     * @return factory, throwing exception on call if class can't be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> factory(Class<?> type) {
+        MethodHandle handle;
+        try {
+            if (Modifier.isAbstract(type.getModifiers())) {
+                throw new InstantiationException(type.getName());
+            }
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            handle = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | RuntimeException e) {
+            return () -> {
+                throw new RuntimeException(e);
+            };
+        }
+
+        try {
+            if (!isVisible(type)) {
+                throw new IllegalAccessException(type.getName());
+            }
+            return (Supplier<Object>) LambdaMetafactory.metafactory(LOOKUP, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    LOOKUP.unreflectConstructor(type.getDeclaredConstructor()), MethodType.methodType(type))
+                    .getTarget().invokeExact();
+        } catch (Throwable e) {
+            // constructor is not accessible from this package
+        }
+        MethodHandle constructor = handle;
+        return () -> {
+            try {
+                return constructor.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * @param type class
+     * @return true if class can be linked from generated code of this package
+     */
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, ClassCodec.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param e exception thrown by method handle
+     * @return unchecked exception to throw
+     */
+    static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new RuntimeException(e);
+    }
+
+    private static Method findSelector(Class<?> type, String name) {
+        try {
+            Method method = type.getDeclaredMethod(name, Json.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * resolved field with its key name, annotation values, formatters and accessors.
+     * values are read and written by generated codec if it has the field, otherwise with
+     * method handles adapted to Object, int, long, double and boolean fields also have setter without boxing
+     */
+    static final class FieldCodec {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        final Field field;
+        final String name;
+        final Class<?> type;
+        final Class<?> boxedType;
+        final boolean ignored;
+        final boolean convertible;
+        final boolean collection;
+        final boolean autoConvert;
+        final boolean ignoreNull;
+        final boolean nullAsString;
+        final Class<?>[] types;
+        final Class<?> elementType;
+        final Class<?> listType;
+        final DateTimeFormatter readFormatter;
+        final DateTimeFormatter writeFormatter;
+        private final JsonCodec<Object> codec;
+        private final int index;
+        private Handles handles;
+
+        private FieldCodec(Field field, DateTimeFormatter classFormatter, boolean classIgnoreNull, boolean autoConvert,
+                           JsonCodec<Object> codec, int index) {
+            this.field = field;
+            this.autoConvert = autoConvert;
+            this.type = field.getType();
+            this.boxedType = MethodType.methodType(this.type).wrap().returnType();
+            this.ignored = field.getAnnotation(JsonIgnore.class) != null;
+            this.convertible = isConvertible(this.type);
+            this.collection = this.type.isArray() || Collection.class.isAssignableFrom(this.type);
+            this.elementType = this.type.isArray() ? this.type.getComponentType() : typeArgument(field);
+
+            JsonField jsonField = field.getAnnotation(JsonField.class);
+            if (jsonField != null) {
+                this.name = jsonField.key().equals(KEY_TEMPLATE) ? field.getName() : jsonField.key();
+                this.ignoreNull = jsonField.ignoreNull();
+                this.nullAsString = jsonField.type() == String.class;
+                this.types = jsonField.types();
+                this.writeFormatter = jsonField.dateFormat().isEmpty() ? null : DateTimeFormatter.ofPattern(jsonField.dateFormat());
+                this.readFormatter = this.writeFormatter != null ? this.writeFormatter : classFormatter;
+            } else {
+                this.name = field.getName();
+                this.ignoreNull = classIgnoreNull;
+                this.nullAsString = false;
+                this.types = new Class<?>[0];
+                this.writeFormatter = null;
+                this.readFormatter = classFormatter;
+            }
+
+            Class<?> defaultType = jsonField != null && jsonField.type() != JsonField.class ? jsonField.type() : this.type;
+            if (this.type == JsonList.class || defaultType != this.type) {
+                this.listType = defaultType;
+            } else {
+                this.listType = this.elementType;
+            }
+
+            this.codec = codec;
+            this.index = index;
+            if (codec == null) {
+                this.handles = new Handles(field, this.type);
+            }
+        }
+
+        /**
+         * @param instance object to read from
+         * @return field value
+         */
+        Object get(Object instance) {
+            if (this.codec != null) {
+                return this.codec.get(instance, this.index);
+            }
+            try {
+                return (Object) this.handles().getter.invokeExact(instance);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @param instance object to write to
+         * @param value new field value, unboxed and widened for primitive fields
+         */
+        void set(Object instance, Object value) {
+            if (value == null && this.type.isPrimitive()) {
+                throw this.cantSet("null value");
+            }
+            try {
+                // generated code only unboxes exact wrapper, widening and errors are left to method handle
+                if (this.codec != null && (!this.type.isPrimitive() || value.getClass() == this.boxedType)) {
+                    this.codec.set(instance, this.index, value);
+                    return;
+                }
+                this.handles().checkSetter().invokeExact(instance, value);
+            } catch (ClassCastException e) {
+                throw this.cantSet(value.getClass().getName());
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @param value description of the value
+         * @return exception with the same message as Field.set gives
+         */
+        private IllegalArgumentException cantSet(String value) {
+            return new IllegalArgumentException("Can not set " + this.type.getName() + " field "
+                    + this.field.getDeclaringClass().getName() + "." + this.field.getName() + " to " + value);
+        }
+
+        /**
+         * @param instance object to write to
+         * @param value value of int field
+         */
+        void setInt(Object instance, int value) {
+            if (this.codec != null && this.type == int.class) {
+                this.codec.setInt(instance, this.index, value);
+                return;
+            }
+            try {
+                this.handles().checkPrimitiveSetter(this.field).invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @param instance object to write to
+         * @param value value of long field
+         */
+        void setLong(Object instance, long value) {
+            if (this.codec != null && this.type == long.class) {
+                this.codec.setLong(instance, this.index, value);
+                return;
+            }
+            try {
+                this.handles().checkPrimitiveSetter(this.field).invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @param instance object to write to
+         * @param value value of double field
+         */
+        void setDouble(Object instance, double value) {
+            if (this.codec != null && this.type == double.class) {
+                this.codec.setDouble(instance, this.index, value);
+                return;
+            }
+            try {
+                this.handles().checkPrimitiveSetter(this.field).invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @param instance object to write to
+         * @param value value of boolean field
+         */
+        void setBoolean(Object instance, boolean value) {
+            if (this.codec != null && this.type == boolean.class) {
+                this.codec.setBoolean(instance, this.index, value);
+                return;
+            }
+            try {
+                this.handles().checkPrimitiveSetter(this.field).invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @return method handles, created on first use for fields of generated codec
+         */
+        private Handles handles() {
+            Handles handles = this.handles;
+            if (handles == null) {
+                // handles are immutable, so racing threads only create extra copy
+                handles = new Handles(this.field, this.type);
+                this.handles = handles;
+            }
+            return handles;
+        }
+
+        /**
+         * @param field collection field
+         * @return first type argument or Object if field is raw or not parameterized with class
+         */
+        private static Class<?> typeArgument(Field field) {
+            Type generic = field.getGenericType();
+            if (generic instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+            return Object.class;
+        }
+    }
+
+    /**
+     * method handles of one field adapted to Object receiver
+     */
+    private static final class Handles {
+        final MethodHandle getter;
+        final MethodHandle setter;
+        final MethodHandle primitiveSetter;
+        final IllegalAccessException setterError;
+
+        Handles(Field field, Class<?> type) {
+            field.setAccessible(true);
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            try {
+                MethodHandle getter = LOOKUP.unreflectGetter(field);
+                this.getter = (isStatic ? MethodHandles.dropArguments(getter, 0, Object.class) : getter).asType(FieldCodec.GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            MethodHandle setter = null;
+            IllegalAccessException setterError = null;
+            try {
+                setter = LOOKUP.unreflectSetter(field);
+                if (isStatic) {
+                    setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                }
+            } catch (IllegalAccessException e) {
+                // static final field, fails only if value is set
+                setterError = e;
+            }
+            this.setterError = setterError;
+            this.setter = setter != null ? setter.asType(FieldCodec.SETTER_TYPE) : null;
+            this.primitiveSetter = setter != null && type.isPrimitive()
+                    ? setter.asType(MethodType.methodType(void.class, Object.class, type)) : null;
+        }
+
+        MethodHandle checkSetter() {
+            if (this.setter == null) {
+                throw new RuntimeException(this.setterError);
+            }
+            return this.setter;
+        }
+
+        MethodHandle checkPrimitiveSetter(Field field) {
+            if (this.primitiveSetter == null) {
+                throw this.setter == null ? new RuntimeException(this.setterError)
+                        : new IllegalStateException("Field " + field + " is not primitive");
+            }
+            return this.primitiveSetter;
+        }
+    }
+
+}
@@ -0,0 +1,508 @@
+package net.mlk.jmson.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * runtime generator of JsonCodec for classes compiled without processor module.
+ * codec is written directly as bytecode with a switch over fields and defined as hidden nestmate
+ * of the class, so constructor and even private fields are used with plain new, getfield and putfield.
+ * generation is off by default and enabled with -Djmson.generateCodecs=true
+ */
+final class CodecGenerator {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CODEC = "net/mlk/jmson/utils/JsonCodec";
+    private static final String INDEX_EXCEPTION = "java/lang/IndexOutOfBoundsException";
+
+    // class file constants of jvm specification chapter 4
+    private static final int MAGIC = 0xcafebabe;
+    private static final int JAVA_8 = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int SAME_FRAME_MAX_DELTA = 63;
+    private static final int SAME_FRAME_EXTENDED = 251;
+
+    // opcodes of jvm specification chapter 6, locals are this, instance, field index, value
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD_2 = 0x1c;
+    private static final int ILOAD_3 = 0x1d;
+    private static final int LLOAD_3 = 0x21;
+    private static final int DLOAD_3 = 0x29;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int AASTORE = 0x53;
+    private static final int DUP = 0x59;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int NEW = 0xbb;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int ATHROW = 0xbf;
+    private static final int CHECKCAST = 0xc0;
+
+    private final Class<?> type;
+    private final String owner;
+    private final List<Field> fields = new ArrayList<>();
+    private final ConstantPool pool = new ConstantPool();
+
+    private CodecGenerator(Class<?> type) {
+        this.type = type;
+        this.owner = type.getName().replace('.', '/');
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                this.fields.add(field);
+            }
+        }
+    }
+
+    /**
+     * @param type convertible class
+     * @return codec or null if hidden class can't be defined for the class
+     */
+    @SuppressWarnings("unchecked")
+    static JsonCodec<Object> generate(Class<?> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive() || type.isHidden()) {
+            return null;
+        }
+        try {
+            byte[] bytes = new CodecGenerator(type).toBytes();
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, LOOKUP)
+                    .defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            return (JsonCodec<Object>) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // class is in module not open to this one or can't be linked, reflection is used
+            return null;
+        }
+    }
+
+    /**
+     * @return class file of the codec
+     */
+    private byte[] toBytes() {
+        ConstantPool pool = this.pool;
+        int thisClass = pool.classRef(this.owner + JsonCodec.SUFFIX);
+        int superClass = pool.classRef(OBJECT);
+        int codec = pool.classRef(CODEC);
+
+        List<ByteVector> methods = new ArrayList<>();
+        methods.add(this.constructor());
+        methods.add(this.fieldNames());
+        methods.add(this.newInstance());
+        methods.add(this.getter());
+        methods.add(this.setter("set", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, 4));
+        methods.add(this.setter("setInt", "(Ljava/lang/Object;II)V", int.class, 4));
+        methods.add(this.setter("setLong", "(Ljava/lang/Object;IJ)V", long.class, 5));
+        methods.add(this.setter("setDouble", "(Ljava/lang/Object;ID)V", double.class, 5));
+        methods.add(this.setter("setBoolean", "(Ljava/lang/Object;IZ)V", boolean.class, 4));
+
+        ByteVector out = new ByteVector();
+        out.u4(MAGIC).u2(0).u2(JAVA_8);
+        pool.writeTo(out);
+        out.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass).u2(1).u2(codec).u2(0);
+        out.u2(methods.size());
+        for (ByteVector method : methods) {
+            out.bytes(method.data, method.length);
+        }
+        return out.u2(0).toArray();
+    }
+
+    private ByteVector constructor() {
+        Code code = new Code();
+        code.u1(ALOAD_0);
+        code.u1(INVOKESPECIAL).u2(this.pool.methodRef(OBJECT, "<init>", "()V"));
+        code.u1(RETURN);
+        return this.method("<init>", "()V", code, 1, 1);
+    }
+
+    private ByteVector fieldNames() {
+        Code code = new Code();
+        this.pushInt(code, this.fields.size());
+        code.u1(ANEWARRAY).u2(this.pool.classRef("java/lang/String"));
+        for (int i = 0; i < this.fields.size(); i++) {
+            code.u1(DUP);
+            this.pushInt(code, i);
+            code.u1(LDC_W).u2(this.pool.string(this.fields.get(i).getName()));
+            code.u1(AASTORE);
+        }
+        code.u1(ARETURN);
+        return this.method("fields", "()[Ljava/lang/String;", code, 4, 1);
+    }
+
+    /**
+     * new instance by default constructor, abstract classes and classes without it
+     * throw the same exceptions as reflective factory
+     */
+    private ByteVector newInstance() {
+        Code code = new Code();
+        boolean hasConstructor = true;
+        try {
+            this.type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            hasConstructor = false;
+        }
+        if (!Modifier.isAbstract(this.type.getModifiers()) && hasConstructor) {
+            code.u1(NEW).u2(this.pool.classRef(this.owner));
+            code.u1(DUP);
+            code.u1(INVOKESPECIAL).u2(this.pool.methodRef(this.owner, "<init>", "()V"));
+            code.u1(ARETURN);
+        } else {
+            String exception = hasConstructor ? "java/lang/InstantiationException" : "java/lang/NoSuchMethodException";
+            String message = hasConstructor ? this.type.getName() : this.type.getName() + ".<init>()";
+            code.u1(NEW).u2(this.pool.classRef("java/lang/RuntimeException"));
+            code.u1(DUP);
+            code.u1(NEW).u2(this.pool.classRef(exception));
+            code.u1(DUP);
+            code.u1(LDC_W).u2(this.pool.string(message));
+            code.u1(INVOKESPECIAL).u2(this.pool.methodRef(exception, "<init>", "(Ljava/lang/String;)V"));
+            code.u1(INVOKESPECIAL).u2(this.pool.methodRef("java/lang/RuntimeException", "<init>", "(Ljava/lang/Throwable;)V"));
+            code.u1(ATHROW);
+        }
+        return this.method("newInstance", "()Ljava/lang/Object;", code, 5, 1);
+    }
+
+    private ByteVector getter() {
+        Code code = new Code();
+        int[] cases = this.beginSwitch(code, null);
+        for (int i = 0; i < this.fields.size(); i++) {
+            Field field = this.fields.get(i);
+            code.frame(cases[i]);
+            code.u1(ALOAD_1);
+            code.u1(CHECKCAST).u2(this.pool.classRef(this.owner));
+            code.u1(GETFIELD).u2(this.pool.fieldRef(this.owner, field.getName(), descriptor(field.getType())));
+            if (field.getType().isPrimitive()) {
+                Class<?> boxed = MethodType.methodType(field.getType()).wrap().returnType();
+                String boxedName = internalName(boxed);
+                code.u1(INVOKESTATIC).u2(this.pool.methodRef(boxedName, "valueOf",
+                        "(" + descriptor(field.getType()) + ")L" + boxedName + ";"));
+            }
+            code.u1(ARETURN);
+        }
+        this.endSwitch(code, cases);
+        return this.method("get", "(Ljava/lang/Object;I)Ljava/lang/Object;", code, 3, 3);
+    }
+
+    /**
+     * @param name method name
+     * @param descriptor method descriptor
+     * @param primitive type of value argument or null for boxed value of any field
+     * @param maxLocals size of locals
+     */
+    private ByteVector setter(String name, String descriptor, Class<?> primitive, int maxLocals) {
+        Code code = new Code();
+        int[] cases = this.beginSwitch(code, primitive);
+        for (int i = 0; i < this.fields.size(); i++) {
+            Field field = this.fields.get(i);
+            Class<?> fieldType = field.getType();
+            if (cases[i] == -1) {
+                continue;
+            }
+            code.frame(cases[i]);
+            code.u1(ALOAD_1);
+            code.u1(CHECKCAST).u2(this.pool.classRef(this.owner));
+            if (primitive == null) {
+                code.u1(ALOAD_3);
+                if (fieldType.isPrimitive()) {
+                    String boxedName = internalName(MethodType.methodType(fieldType).wrap().returnType());
+                    code.u1(CHECKCAST).u2(this.pool.classRef(boxedName));
+                    code.u1(INVOKEVIRTUAL).u2(this.pool.methodRef(boxedName, fieldType.getName() + "Value", "()" + descriptor(fieldType)));
+                } else if (fieldType != Object.class) {
+                    code.u1(CHECKCAST).u2(this.pool.classRef(internalName(fieldType)));
+                }
+            } else if (primitive == long.class) {
+                code.u1(LLOAD_3);
+            } else if (primitive == double.class) {
+                code.u1(DLOAD_3);
+            } else {
+                code.u1(ILOAD_3);
+            }
+            code.u1(PUTFIELD).u2(this.pool.fieldRef(this.owner, field.getName(), descriptor(fieldType)));
+            code.u1(RETURN);
+        }
+        this.endSwitch(code, cases);
+        return this.method(name, descriptor, code, 4, maxLocals);
+    }
+
+    /**
+     * write tableswitch over field index argument
+     * @param code code of the method
+     * @param primitive only fields of this type get a case, all fields if null
+     * @return positions of the case offsets to patch, -1 for fields without case, last is default
+     *         or -1 if class has no fields and switch is not written
+     */
+    private int[] beginSwitch(Code code, Class<?> primitive) {
+        int[] cases = new int[this.fields.size() + 1];
+        if (this.fields.isEmpty()) {
+            cases[0] = -1;
+            return cases;
+        }
+        code.u1(ILOAD_2);
+        int start = code.length;
+        code.u1(TABLESWITCH);
+        while (code.length % 4 != 0) {
+            code.u1(0);
+        }
+        cases[this.fields.size()] = code.length;
+        code.u4(0).u4(0).u4(this.fields.size() - 1);
+        for (int i = 0; i < this.fields.size(); i++) {
+            boolean used = primitive == null || this.fields.get(i).getType() == primitive;
+            cases[i] = used ? code.length : -1;
+            code.u4(0);
+        }
+        code.switchStart = start;
+        return cases;
+    }
+
+    /**
+     * write default case throwing IndexOutOfBoundsException and point unused cases to it
+     * @param code code of the method
+     * @param cases positions from beginSwitch
+     */
+    private void endSwitch(Code code, int[] cases) {
+        int defaultCase = cases[this.fields.size()];
+        if (defaultCase != -1) {
+            code.frame(defaultCase);
+        }
+        for (int i = 0; i < this.fields.size(); i++) {
+            if (cases[i] == -1) {
+                code.patch(defaultCase + 12 + i * 4, code.length - code.switchStart);
+            }
+        }
+        code.u1(NEW).u2(this.pool.classRef(INDEX_EXCEPTION));
+        code.u1(DUP);
+        code.u1(ILOAD_2);
+        code.u1(INVOKESPECIAL).u2(this.pool.methodRef(INDEX_EXCEPTION, "<init>", "(I)V"));
+        code.u1(ATHROW);
+    }
+
+    private void pushInt(Code code, int value) {
+        code.u1(SIPUSH).u2(value);
+    }
+
+    /**
+     * @param name method name
+     * @param descriptor method descriptor
+     * @param code method code
+     * @param maxStack max depth of operand stack
+     * @param maxLocals size of locals
+     * @return method_info structure
+     */
+    private ByteVector method(String name, String descriptor, Code code, int maxStack, int maxLocals) {
+        ByteVector frames = code.frames();
+        ByteVector method = new ByteVector();
+        method.u2(ACC_PUBLIC).u2(this.pool.utf8(name)).u2(this.pool.utf8(descriptor)).u2(1);
+        method.u2(this.pool.utf8("Code"));
+        method.u4(12 + code.length + (frames != null ? 6 + frames.length : 0));
+        method.u2(maxStack).u2(maxLocals).u4(code.length).bytes(code.data, code.length);
+        method.u2(0);
+        if (frames == null) {
+            method.u2(0);
+        } else {
+            method.u2(1).u2(this.pool.utf8("StackMapTable")).u4(frames.length).bytes(frames.data, frames.length);
+        }
+        return method;
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> type) {
+        return MethodType.methodType(type).toMethodDescriptorString().substring(2);
+    }
+
+    /**
+     * method code with branch targets of the switch,
+     * every target has the same frame as method entry
+     */
+    private static final class Code extends ByteVector {
+        private final List<Integer> targets = new ArrayList<>();
+        private int switchStart;
+
+        /**
+         * mark current position as target of the switch case
+         * @param casePosition position of the case offset in tableswitch
+         */
+        void frame(int casePosition) {
+            this.patch(casePosition, this.length - this.switchStart);
+            this.targets.add(this.length);
+        }
+
+        /**
+         * @return StackMapTable entries or null if code has no branches
+         */
+        ByteVector frames() {
+            if (this.targets.isEmpty()) {
+                return null;
+            }
+            ByteVector frames = new ByteVector();
+            frames.u2(this.targets.size());
+            int previous = -1;
+            for (int target : this.targets) {
+                int delta = target - previous - 1;
+                if (delta <= SAME_FRAME_MAX_DELTA) {
+                    frames.u1(delta);
+                } else {
+                    frames.u1(SAME_FRAME_EXTENDED).u2(delta);
+                }
+                previous = target;
+            }
+            return frames;
+        }
+    }
+
+    /**
+     * constant pool with deduplicated entries
+     */
+    private static final class ConstantPool {
+        private final Map<String, Integer> entries = new HashMap<>();
+        private final ByteVector data = new ByteVector();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = this.entries.get(CONSTANT_UTF8 + ":" + value);
+            if (index == null) {
+                this.data.u1(CONSTANT_UTF8).utf(value);
+                index = this.add(CONSTANT_UTF8 + ":" + value);
+            }
+            return index;
+        }
+
+        int classRef(String name) {
+            return this.reference(CONSTANT_CLASS, name, this.utf8(name), -1);
+        }
+
+        int string(String value) {
+            return this.reference(CONSTANT_STRING, value, this.utf8(value), -1);
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return this.reference(CONSTANT_FIELD_REF, owner + '.' + name + descriptor, this.classRef(owner), this.nameAndType(name, descriptor));
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return this.reference(CONSTANT_METHOD_REF, owner + '.' + name + descriptor, this.classRef(owner), this.nameAndType(name, descriptor));
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            return this.reference(CONSTANT_NAME_AND_TYPE, name + ':' + descriptor, this.utf8(name), this.utf8(descriptor));
+        }
+
+        /**
+         * @param tag constant tag
+         * @param key unique key of the constant within the tag
+         * @param first first index of the constant
+         * @param second second index or -1 if constant has one
+         * @return index of the constant
+         */
+        private int reference(int tag, String key, int first, int second) {
+            Integer index = this.entries.get(tag + ":" + key);
+            if (index == null) {
+                this.data.u1(tag).u2(first);
+                if (second != -1) {
+                    this.data.u2(second);
+                }
+                index = this.add(tag + ":" + key);
+            }
+            return index;
+        }
+
+        private int add(String key) {
+            int index = this.count++;
+            this.entries.put(key, index);
+            return index;
+        }
+
+        void writeTo(ByteVector out) {
+            out.u2(this.count).bytes(this.data.data, this.data.length);
+        }
+    }
+
+    /**
+     * growable big endian byte array
+     */
+    private static class ByteVector {
+        byte[] data = new byte[256];
+        int length;
+
+        ByteVector u1(int value) {
+            this.ensureCapacity(1);
+            this.data[this.length++] = (byte) value;
+            return this;
+        }
+
+        ByteVector u2(int value) {
+            return this.u1(value >>> 8).u1(value);
+        }
+
+        ByteVector u4(int value) {
+            return this.u2(value >>> 16).u2(value);
+        }
+
+        ByteVector bytes(byte[] bytes, int length) {
+            this.ensureCapacity(length);
+            System.arraycopy(bytes, 0, this.data, this.length, length);
+            this.length += length;
+            return this;
+        }
+
+        /**
+         * write modified utf-8 string with its length
+         * @param value string
+         */
+        void utf(String value) {
+            ByteVector bytes = new ByteVector();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    bytes.u1(c);
+                } else if (c < 0x800) {
+                    bytes.u1(0xc0 | c >> 6).u1(0x80 | c & 0x3f);
+                } else {
+                    bytes.u1(0xe0 | c >> 12).u1(0x80 | c >> 6 & 0x3f).u1(0x80 | c & 0x3f);
+                }
+            }
+            this.u2(bytes.length).bytes(bytes.data, bytes.length);
+        }
+
+        void patch(int position, int value) {
+            this.data[position] = (byte) (value >>> 24);
+            this.data[position + 1] = (byte) (value >>> 16);
+            this.data[position + 2] = (byte) (value >>> 8);
+            this.data[position + 3] = (byte) value;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(this.data, this.length);
+        }
+
+        private void ensureCapacity(int length) {
+            if (this.data.length - this.length < length) {
+                this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.length + length));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package net.mlk.jmson.utils;
+
+/**
+ * plain java instantiation and field access of one convertible class, generated at compile time
+ * by jmson processor module. implementation is named as binary name of the class with SUFFIX
+ * and is used by JsonConverter instead of reflection, fields missing from it are accessed reflectively
+ * @param <T> class
+ */
+public interface JsonCodec<T> {
+    String SUFFIX = "$JsonCodec";
+
+    /**
+     * @return names of the accessible fields, index of the name is index of the field in other methods
+     */
+    String[] fields();
+
+    /**
+     * @return new instance created with default constructor
+     */
+    T newInstance();
+
+    /**
+     * @param instance object to read from
+     * @param field field index
+     * @return field value
+     */
+    Object get(T instance, int field);
+
+    /**
+     * @param instance object to write to
+     * @param field field index
+     * @param value value of the field type
+     */
+    void set(T instance, int field, Object value);
+
+    /**
+     * @param instance object to write to
+     * @param field index of int field
+     * @param value field value
+     */
+    void setInt(T instance, int field, int value);
+
+    /**
+     * @param instance object to write to
+     * @param field index of long field
+     * @param value field value
+     */
+    void setLong(T instance, int field, long value);
+
+    /**
+     * @param instance object to write to
+     * @param field index of double field
+     * @param value field value
+     */
+    void setDouble(T instance, int field, double value);
+
+    /**
+     * @param instance object to write to
+     * @param field index of boolean field
+     * @param value field value
+     */
+    void setBoolean(T instance, int field, boolean value);
+}
@@ -2,26 +2,39 @@ package net.mlk.jmson.utils;
 
 import net.mlk.jmson.Json;
 import net.mlk.jmson.JsonList;
-import net.mlk.jmson.annotations.JsonField;
-import net.mlk.jmson.annotations.JsonIgnore;
-import net.mlk.jmson.annotations.JsonObject;
-
-import javax.swing.text.DateFormatter;
-import java.lang.reflect.*;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import net.mlk.jmson.JsonProjection;
+import net.mlk.jmson.JsonReader;
+import net.mlk.jmson.JsonToken;
+import net.mlk.jmson.JsonWriter;
+import net.mlk.jmson.utils.ClassCodec.FieldCodec;
+
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Array;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class JsonConverter {
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final ClassValue<JsonProjection> PROJECTIONS = new ClassValue<JsonProjection>() {
+        @Override
+        protected JsonProjection computeValue(Class<?> type) {
+            return projection(type.asSubclass(JsonConvertible.class));
+        }
+    };
 
     /**
      * convert json to object & create new instance
@@ -42,7 +55,7 @@ public class JsonConverter {
      * @return class instance
      */
     public static <T extends JsonConvertible> T convertToObject(Json json, T instance) {
-        return convertToObject(json, instance, instance.getClass());
+        return convertToObject(json, instance, ClassCodec.of(instance.getClass()));
     }
 
     /**
@@ -50,286 +63,672 @@ public class JsonConverter {
      *
      * @param json     json to convert
      * @param instance instance of the object
-     * @param clazz    current class
+     * @param codec    codec of the current class
      * @param <T>      class that extends JsonConvertible
      * @return class instance
      */
-    private static <T extends JsonConvertible> T convertToObject(Json json, T instance, Class<?> clazz) {
-        Class<?> superClass = clazz.getSuperclass();
-        if (isConvertible(superClass)) {
-            convertToObject(json, instance, superClass);
-        }
-        JsonObject jsonObject = clazz.getAnnotation(JsonObject.class);
-        String globalDateFormat = null;
-        boolean autoConvert = true;
-        if (jsonObject != null) {
-            json = getObjectValues(json, jsonObject);
-            if (!jsonObject.dateFormat().isEmpty()) {
-                globalDateFormat = jsonObject.dateFormat();
+    private static <T extends JsonConvertible> T convertToObject(Json json, T instance, ClassCodec codec) {
+        if (codec.parent != null) {
+            convertToObject(json, instance, codec.parent);
+        }
+        json = getObjectValues(json, codec);
+
+        for (FieldCodec field : codec.fields) {
+            if (json.containsKey(field.name)) {
+                field.set(instance, convertField(json.get(field.name), field));
             }
-            autoConvert = jsonObject.autoConvert();
         }
 
-        Field[] fields = clazz.getDeclaredFields();
-        for (Field field : fields) {
-            String fieldName = getFieldName(field);
-            Class<?> fieldType = field.getType();
-            boolean needAutoConvert = true;
+        return instance;
+    }
 
-            if (json.containsKey(fieldName)) {
+    /**
+     * convert json value to the type of the field
+     * @param value json value
+     * @param field field to convert for
+     * @return value to set
+     */
+    private static Object convertField(Object value, FieldCodec field) {
+        Class<?> fieldType = field.type;
+        boolean needAutoConvert = true;
+
+        if (value != null) {
+            if (field.convertible) {
+                value = convertToObject(toJson(value), fieldType.asSubclass(JsonConvertible.class));
+            } else if (fieldType == LocalDateTime.class) {
                 try {
-                    field.setAccessible(true);
-                    JsonField jsonField = field.getAnnotation(JsonField.class);
-                    Object value = json.get(fieldName);
-
-                    if (value != null) {
-                        if (isConvertible(fieldType)) {
-                            value = convertToObject(json.getJson(fieldName), fieldType.asSubclass(JsonConvertible.class));
-                        } else if (fieldType == LocalDateTime.class) {
-                            try {
-                                if (jsonField == null || jsonField.dateFormat().isEmpty()) {
-                                    value = globalDateFormat != null ? getLocalDateTime(value.toString(), globalDateFormat) : null;
-                                } else {
-                                    value = getLocalDateTime(value.toString(), jsonField.dateFormat());
-                                }
-                            } catch (DateTimeParseException ex) {
-                                ex.printStackTrace();
-                                throw new RuntimeException("Can't parse datetime \"" + value + "\" at " + field);
-                            }
-                        } else if (fieldType == LocalDate.class) {
-                            try {
-                                if (jsonField == null || jsonField.dateFormat().isEmpty()) {
-                                    value = globalDateFormat != null ? getLocalDate(value.toString(), globalDateFormat) : null;
-                                } else {
-                                    value = getLocalDate(value.toString(), jsonField.dateFormat());
-                                }
-                            } catch (DateTimeParseException ex) {
-                                ex.printStackTrace();
-                                throw new RuntimeException("Can't parse datetime \"" + value + "\" at " + field);
-                            }
-                        } else if (value instanceof JsonList && (fieldType.isArray() || Collection.class.isAssignableFrom(fieldType))) {
-                            Class<?> defaultType = fieldType;
-                            boolean allowArray = true;
-                            if (jsonField != null) {
-                                if (jsonField.type() != JsonField.class) {
-                                    defaultType = jsonField.type();
-                                }
-                                for (Class<?> cl : jsonField.types()) {
-                                    if (!isConvertible(cl)) {
-                                        continue;
-                                    }
-                                    for (int i = 0; i < ((JsonList) value).size(); i++) {
-                                        JsonObject jo = cl.getAnnotation(JsonObject.class);
-                                        if (jo != null && !jo.methodName().isEmpty()) {
-                                            try {
-                                                Json obj = ((JsonList) value).getJson(i);
-                                                if (obj == null) {
-                                                    continue;
-                                                }
-                                                Method method = cl.getDeclaredMethod(jo.methodName(), Json.class);
-                                                method.setAccessible(true);
-                                                if ((boolean) method.invoke(getDefaultConstructor(cl.asSubclass(JsonConvertible.class)), obj)) {
-                                                    ((JsonList) value).set(i, convertToObject(obj, cl.asSubclass(JsonConvertible.class)));
-                                                }
-                                            } catch (NoSuchMethodException | IllegalAccessException |
-                                                     InvocationTargetException e) {
-                                                throw new RuntimeException(e);
-                                            }
-                                        }
-                                    }
-                                }
-                                allowArray = jsonField.types().length == 0;
-                            }
-
-                            if (fieldType.isArray()) {
-                                if (allowArray) {
-                                    value = castToArray((JsonList) value, fieldType);
-                                } else {
-                                    throw new RuntimeException("Can't set multi types to array fields");
-                                }
-                            } else if (fieldType == JsonList.class) {
-                                value = castToCollection((JsonList) value, defaultType);
-                            } else {
-                                if (defaultType == fieldType) {
-                                    value = castToCollection((JsonList) value, (ParameterizedType) field.getGenericType());
-                                } else {
-                                    value = castToCollection((JsonList) value, defaultType);
-                                }
-                            }
-                            needAutoConvert = false;
+                    value = field.readFormatter != null ? LocalDateTime.parse(value.toString(), field.readFormatter) : null;
+                } catch (DateTimeParseException ex) {
+                    throw new RuntimeException("Can't parse datetime \"" + value + "\" at " + field.field, ex);
+                }
+            } else if (fieldType == LocalDate.class) {
+                try {
+                    value = field.readFormatter != null ? LocalDate.parse(value.toString(), field.readFormatter) : null;
+                } catch (DateTimeParseException ex) {
+                    throw new RuntimeException("Can't parse datetime \"" + value + "\" at " + field.field, ex);
+                }
+            } else if (value instanceof JsonList && field.collection) {
+                JsonList list = (JsonList) value;
+                for (Class<?> cl : field.types) {
+                    if (!isConvertible(cl)) {
+                        continue;
+                    }
+                    ClassCodec typeCodec = ClassCodec.of(cl);
+                    if (typeCodec.selectorName == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < list.size(); i++) {
+                        Json obj = list.getJson(i);
+                        if (obj != null && typeCodec.select(obj)) {
+                            list.set(i, convertToObject(obj, (JsonConvertible) typeCodec.newInstance(), typeCodec));
                         }
                     }
+                }
 
-                    if (value != null && value.getClass() != fieldType && autoConvert && needAutoConvert) {
-                        try {
-                            value = castTo(value, fieldType);
-                        } catch (NumberFormatException e) {
-                            throw new RuntimeException("[Jmson AutoConvert] can't cast " + value + " to " + fieldType + " in " + field);
-                        }
+                if (fieldType.isArray()) {
+                    if (field.types.length == 0) {
+                        value = castToArray(list, fieldType);
+                    } else {
+                        throw new RuntimeException("Can't set multi types to array fields");
                     }
-                    field.set(instance, value);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException(e);
+                } else {
+                    value = castToCollection(list, field.listType);
                 }
+                needAutoConvert = false;
             }
         }
 
+        if (value != null && value.getClass() != field.boxedType && field.autoConvert && needAutoConvert) {
+            try {
+                value = castTo(value, fieldType);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("[Jmson AutoConvert] can't cast " + value + " to " + fieldType + " in " + field.field, e);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * read json text straight into new object without building json tree
+     * @param json raw json object
+     * @param clazz class to create object
+     * @param <T> class that extends JsonConvertible
+     * @return new class instance
+     */
+    public static <T extends JsonConvertible> T readValue(String json, Class<T> clazz) {
+        return readDocument(new JsonReader(json), clazz);
+    }
+
+    /**
+     * read json text straight into new object without building json tree
+     * @param reader reader of json object, not closed after reading
+     * @param clazz class to create object
+     * @param <T> class that extends JsonConvertible
+     * @return new class instance
+     */
+    public static <T extends JsonConvertible> T readValue(Reader reader, Class<T> clazz) {
+        return readDocument(new JsonReader(reader), clazz);
+    }
+
+    /**
+     * read utf-8 json into new object, only values that the class reads are built
+     * @param bytes utf-8 bytes of json object
+     * @param clazz class to create object
+     * @param <T> class that extends JsonConvertible
+     * @return new class instance
+     */
+    public static <T extends JsonConvertible> T readValue(byte[] bytes, Class<T> clazz) {
+        // bytes are tokenized by the utf-8 parser without decoding to chars,
+        // values the class doesn't read are skipped and the rest is converted as in convertToObject
+        return convertToObject(Json.parse(bytes, PROJECTIONS.get(clazz)), clazz);
+    }
+
+    /**
+     * read next object of the reader into new object.
+     * fields are read by their declared types, nested json and lists are created
+     * only for the fields that need them
+     * @param reader reader positioned before json object
+     * @param clazz class to create object
+     * @param <T> class that extends JsonConvertible
+     * @return new class instance
+     */
+    public static <T extends JsonConvertible> T readValue(JsonReader reader, Class<T> clazz) {
+        ClassCodec codec = ClassCodec.of(clazz);
+        return clazz.cast(readObject(reader, codec.newInstance(), codec));
+    }
+
+    private static <T extends JsonConvertible> T readDocument(JsonReader reader, Class<T> clazz) {
+        T instance = readValue(reader, clazz);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new RuntimeException("Unexpected data after root value at " + reader.getPosition());
+        }
         return instance;
     }
 
-    public static <T extends JsonConvertible> Json convertToJson(T instance) {
-        return convertToJson(instance, instance.getClass());
+    /**
+     * read object fields by name, unknown names are skipped without parsing
+     * @param reader reader positioned before json object
+     * @param instance instance of the object
+     * @param codec codec of the instance class
+     * @return instance
+     */
+    private static Object readObject(JsonReader reader, Object instance, ClassCodec codec) {
+        if (!codec.isFlat()) {
+            // values are taken from nested objects by JsonObject keys, so whole object is needed
+            return convertToObject(reader.readJson(), (JsonConvertible) instance);
+        }
+        Map<String, FieldCodec[]> bindings = codec.bindings();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            FieldCodec[] fields = bindings.get(reader.nextName());
+            if (fields == null) {
+                reader.skipValue();
+            } else if (fields.length == 1) {
+                readField(reader, instance, fields[0]);
+            } else {
+                Object value = reader.readValue();
+                for (FieldCodec field : fields) {
+                    field.set(instance, convertField(value, field));
+                }
+            }
+        }
+        reader.endObject();
+        return instance;
     }
 
-    private static <T extends JsonConvertible> Json convertToJson(Object instance, Class<T> clazz) {
-        Json json = new Json();
-        Json parentJson = new Json();
-        Class<?> superClass = clazz.getSuperclass();
-        if (isConvertible(superClass)) {
-            parentJson.putAll(convertToJson(instance, superClass.asSubclass(JsonConvertible.class)));
+    /**
+     * read next value into the field, primitives are set without boxing.
+     * values are read directly only when the result is the same as of convertField,
+     * other values go through convertField, so both paths have the same rules and errors
+     * @param reader reader positioned before value
+     * @param instance instance of the object
+     * @param field field to set
+     */
+    private static void readField(JsonReader reader, Object instance, FieldCodec field) {
+        JsonToken token = reader.peek();
+        Class<?> type = field.type;
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            field.set(instance, null);
+            return;
+        } else if (token == JsonToken.BEGIN_OBJECT && field.convertible) {
+            ClassCodec codec = ClassCodec.of(type);
+            field.set(instance, readObject(reader, codec.newInstance(), codec));
+            return;
+        } else if (token == JsonToken.BEGIN_ARRAY && field.collection && field.types.length == 0
+                && isConvertible(type.isArray() ? field.elementType : field.listType)) {
+            field.set(instance, readObjects(reader, field));
+            return;
+        } else if (field.autoConvert) {
+            if (token == JsonToken.NUMBER) {
+                // decimals and exponents are not read as integers, convertField refuses them like convertToObject does
+                if (type == int.class && reader.hasNextLong()) {
+                    long value = reader.nextLong();
+                    if (value == (int) value) {
+                        field.setInt(instance, (int) value);
+                    } else {
+                        field.set(instance, convertField(value, field));
+                    }
+                    return;
+                } else if (type == long.class && reader.hasNextLong()) {
+                    field.setLong(instance, reader.nextLong());
+                    return;
+                } else if (type == double.class) {
+                    field.setDouble(instance, reader.nextDouble());
+                    return;
+                }
+            } else if (token == JsonToken.BOOLEAN && type == boolean.class) {
+                field.setBoolean(instance, reader.nextBoolean());
+                return;
+            } else if (token == JsonToken.BOOLEAN && type == Boolean.class) {
+                field.set(instance, reader.nextBoolean());
+                return;
+            } else if (token == JsonToken.STRING && type == String.class) {
+                field.set(instance, reader.nextString());
+                return;
+            }
         }
-        JsonObject jsonObject = clazz.getAnnotation(JsonObject.class);
-        String key = null;
+        field.set(instance, convertField(reader.readValue(), field));
+    }
 
-        if (jsonObject != null && !jsonObject.key().equals("JmsonKeyTemplate")) {
-            key = jsonObject.key();
+    /**
+     * read array of convertible objects into list or array of the field type
+     * @param reader reader positioned before array
+     * @param field collection or array field
+     * @return JsonList or array
+     */
+    private static Object readObjects(JsonReader reader, FieldCodec field) {
+        boolean isArray = field.type.isArray();
+        ClassCodec codec = ClassCodec.of(isArray ? field.elementType : field.listType);
+        JsonList list = new JsonList();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                list.add(readObject(reader, codec.newInstance(), codec));
+                continue;
+            }
+            // same rule as convertAll, arrays accept only objects and nulls, collections keep other values
+            Object value = reader.readValue();
+            if (value != null && isArray) {
+                throw new RuntimeException("Can't convert " + value + " to " + codec.type);
+            }
+            list.add(value);
+        }
+        reader.endArray();
+        if (isArray) {
+            Object[] array = (Object[]) Array.newInstance(field.elementType, list.size());
+            return list.toArray(array);
         }
+        return list;
+    }
 
-        for (Field field : clazz.getDeclaredFields()) {
-            try {
-                field.setAccessible(true);
-                JsonIgnore jsonIgnore = field.getAnnotation(JsonIgnore.class);
-                if (jsonIgnore != null) {
-                    continue;
+    /**
+     * key paths that convertToObject reads for the class,
+     * nested convertible fields are expanded to their own keys
+     * @param clazz class to read
+     * @return projection to parse only values used by the class
+     */
+    public static JsonProjection projection(Class<? extends JsonConvertible> clazz) {
+        List<String> paths = new ArrayList<>();
+        addPaths(ClassCodec.of(clazz), "", paths, new HashSet<>());
+        return JsonProjection.of(paths);
+    }
+
+    /**
+     * @param codec codec of the class
+     * @param prefix path of the object
+     * @param paths paths to fill
+     * @param visiting classes on the current path, recursive classes keep whole value
+     */
+    private static void addPaths(ClassCodec codec, String prefix, List<String> paths, Set<Class<?>> visiting) {
+        visiting.add(codec.type);
+        for (ClassCodec level = codec; level != null; level = level.parent) {
+            List<String> prefixes = new ArrayList<>();
+            if (level.key == null && level.keys.length == 0) {
+                prefixes.add(prefix);
+            } else if (level.key != null) {
+                prefixes.add(prefix + escapePathKey(level.key) + "/");
+            }
+            for (String key : level.keys) {
+                prefixes.add(prefix + escapePathKey(key) + "/");
+            }
+
+            for (FieldCodec field : level.fields) {
+                Class<?> nested = null;
+                if (field.types.length == 0 && field.convertible) {
+                    nested = field.type;
+                } else if (field.types.length == 0 && field.collection) {
+                    nested = field.type.isArray() ? field.elementType : field.listType;
                 }
-                String fieldName = getFieldName(field);
-                Class<?> fieldType = field.getType();
-                Object value = field.get(instance);
-                boolean ignoreNull = jsonObject != null && jsonObject.ignoreNull();
-                JsonField fieldData = field.getAnnotation(JsonField.class);
-                String dateFormat = null;
-                if (fieldData != null) {
-                    ignoreNull = fieldData.ignoreNull();
-
-                    if (fieldData.type() == String.class && value == null) {
-                        value = "null";
+                boolean expand = nested != null && isConvertible(nested) && !visiting.contains(nested);
+                for (String path : prefixes) {
+                    path += escapePathKey(field.name);
+                    if (expand) {
+                        addPaths(ClassCodec.of(nested), path + "/", paths, visiting);
+                    } else {
+                        paths.add(path);
                     }
-                    dateFormat = fieldData.dateFormat();
                 }
+            }
+        }
+        visiting.remove(codec.type);
+    }
+
+    private static String escapePathKey(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    public static <T extends JsonConvertible> Json convertToJson(T instance) {
+        return convertToJson(instance, ClassCodec.of(instance.getClass()));
+    }
+
+    /**
+     * convert every json of the list to new object, order is preserved.
+     * lists of the parallel threshold size and larger are converted on the common fork join pool
+     * @param list list with jsons
+     * @param clazz class to create objects
+     * @param <T> class that extends JsonConvertible
+     * @return list of objects
+     */
+    public static <T extends JsonConvertible> List<T> convertAll(JsonList list, Class<T> clazz) {
+        return convertAll(list, clazz, PARALLEL_THRESHOLD);
+    }
 
+    /**
+     * convert every json of the list to new object, order is preserved
+     * @param list list with jsons
+     * @param clazz class to create objects
+     * @param parallelThreshold min size of the list to convert it on the common fork join pool
+     * @param <T> class that extends JsonConvertible
+     * @return list of objects
+     */
+    public static <T extends JsonConvertible> List<T> convertAll(JsonList list, Class<T> clazz, int parallelThreshold) {
+        Object[] values = convertAll(list, ClassCodec.of(clazz), parallelThreshold, true);
+        List<T> result = new ArrayList<>(values.length);
+        for (Object value : values) {
+            result.add(clazz.cast(value));
+        }
+        return result;
+    }
+
+    /**
+     * convert every object of the collection to json, order is preserved.
+     * collections of the parallel threshold size and larger are converted on the common fork join pool
+     * @param instances objects to convert
+     * @param <T> class that extends JsonConvertible
+     * @return list of jsons
+     */
+    public static <T extends JsonConvertible> JsonList convertAllToJson(Collection<T> instances) {
+        return convertAllToJson(instances, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * convert every object of the collection to json, order is preserved
+     * @param instances objects to convert
+     * @param parallelThreshold min size of the collection to convert it on the common fork join pool
+     * @param <T> class that extends JsonConvertible
+     * @return list of jsons
+     */
+    public static <T extends JsonConvertible> JsonList convertAllToJson(Collection<T> instances, int parallelThreshold) {
+        Object[] values = instances.toArray();
+        Object[] result = new Object[values.length];
+        forEachIndex(values.length, parallelThreshold, (from, to) -> {
+            ClassCodec codec = null;
+            for (int i = from; i < to; i++) {
+                Object value = values[i];
                 if (value != null) {
-                    Class<?> valueType = value.getClass();
-                    if (isConvertible(value.getClass())) {
-                        value = convertToJson((JsonConvertible) value);
+                    if (codec == null || codec.type != value.getClass()) {
+                        codec = ClassCodec.of(value.getClass());
                     }
-                    else if ((value.getClass().isArray() || Collection.class.isAssignableFrom(value.getClass()))) {
-                        if (value.getClass().isArray()) {
-                            JsonList list = new JsonList();
-                            list.addAll(Arrays.asList((Object[]) value));
-                            value = list;
-                            fieldType = fieldType.getComponentType();
-                        }
-                        else {
-                            if (!(value instanceof JsonList)) {
-                                Type type = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
-                                fieldType = (Class<?>) type;
-                            }
-                        }
+                    result[i] = convertToJson(value, codec);
+                }
+            }
+        });
+        JsonList list = new JsonList();
+        list.addAll(Arrays.asList(result));
+        return list;
+    }
 
-                        if (value instanceof JsonList || isConvertible(fieldType)) {
-                            List<Object> values = (List<Object>) value;
-                            JsonList objects = new JsonList();
-                            for (Object o : values) {
-                                if (!isConvertible(o.getClass())) {
-                                    objects.add(o);
-                                } else {
-                                    objects.add(convertToJson((JsonConvertible) o));
-                                }
-                            }
-                            value = objects;
-                        }
+    /**
+     * @param list list with jsons
+     * @param codec codec of the objects class
+     * @param parallelThreshold min size of the list to convert it in parallel
+     * @param strict if true values that are not json fail, otherwise they are kept as is
+     * @return converted values
+     */
+    private static Object[] convertAll(List<?> list, ClassCodec codec, int parallelThreshold, boolean strict) {
+        Object[] values = list.toArray();
+        Object[] result = new Object[values.length];
+        forEachIndex(values.length, parallelThreshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Object value = values[i];
+                if (value instanceof Json) {
+                    result[i] = convertToObject((Json) value, (JsonConvertible) codec.newInstance(), codec);
+                } else if (value != null && strict) {
+                    throw new RuntimeException("Can't convert " + value + " to " + codec.type);
+                } else {
+                    result[i] = value;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * run action over index range, split into fork join tasks if range is large enough
+     * @param size size of the range
+     * @param parallelThreshold min size of the range to split it
+     * @param action action for part of the range
+     */
+    private static void forEachIndex(int size, int parallelThreshold, RangeAction action) {
+        if (size < parallelThreshold || size < 2) {
+            action.run(0, size);
+            return;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int leaf = Math.max(1, size / (pool.getParallelism() * 4));
+        pool.invoke(new RangeTask(0, size, leaf, action));
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * splits range in halves down to the leaf size
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int leaf, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.leaf) {
+                this.action.run(this.from, this.to);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new RangeTask(this.from, middle, this.leaf, this.action),
+                    new RangeTask(middle, this.to, this.leaf, this.action));
+        }
+    }
+
+    private static Json convertToJson(Object instance, ClassCodec codec) {
+        Json parentJson = codec.parent != null ? convertToJson(instance, codec.parent) : new Json();
+        Json json = codec.key == null ? parentJson : new Json();
+
+        for (FieldCodec field : codec.fields) {
+            if (field.ignored) {
+                continue;
+            }
+            Object value = field.get(instance);
+            if (field.nullAsString && value == null) {
+                value = "null";
+            }
+
+            if (value != null) {
+                Class<?> valueType = value.getClass();
+                if (isConvertible(valueType)) {
+                    value = convertToJson((JsonConvertible) value);
+                }
+                else if (valueType.isArray() || Collection.class.isAssignableFrom(valueType)) {
+                    Class<?> elementType = field.type;
+                    if (valueType.isArray()) {
+                        JsonList list = new JsonList();
+                        list.addAll(arrayElements(value));
+                        value = list;
+                        elementType = field.type.getComponentType();
+                    }
+                    else if (!(value instanceof JsonList)) {
+                        elementType = field.elementType;
                     }
-                    else if (value instanceof LocalDateTime || value instanceof LocalDate || value instanceof Instant) {
-                        if (dateFormat != null && !dateFormat.isEmpty()) {
-                            if (value instanceof LocalDateTime) {
-                                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
-                                value = formatter.format((TemporalAccessor) value);
+
+                    if (value instanceof JsonList || isConvertible(elementType)) {
+                        Collection<?> values = (Collection<?>) value;
+                        JsonList objects = new JsonList();
+                        for (Object o : values) {
+                            if (o == null || !isConvertible(o.getClass())) {
+                                objects.add(o);
+                            } else {
+                                objects.add(convertToJson((JsonConvertible) o));
                             }
-                        } else {
-                            value = value.toString();
                         }
+                        value = objects;
                     }
                 }
-                if (value != null || !ignoreNull) {
-                    json.append(fieldName, value);
+                else if (value instanceof LocalDateTime || value instanceof LocalDate || value instanceof Instant) {
+                    if (field.writeFormatter == null) {
+                        value = value.toString();
+                    } else if (value instanceof LocalDateTime) {
+                        value = field.writeFormatter.format((TemporalAccessor) value);
+                    }
                 }
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
+            }
+            if (value != null || !field.ignoreNull) {
+                json.append(field.name, value);
             }
         }
 
-        if (key == null) {
-            parentJson.putAll(json);
-            return parentJson;
-        } else {
-            Json newJson = new Json();
-            newJson.putAll(parentJson);
-            newJson.append(key, json);
-            return newJson;
+        if (json != parentJson) {
+            parentJson.append(codec.key, json);
         }
+        return parentJson;
     }
 
     /**
-     * get private default constructor instance
-     * @param clazz class of the constructor
-     * @return instance os class
+     * write object as json straight from its fields without building json tree
+     * @param instance object to write
+     * @param writer writer for json text, flushed but not closed
+     * @param <T> class that extends JsonConvertible
      */
-    private static <T extends JsonConvertible> T getDefaultConstructor(Class<T> clazz) {
-        try {
-            return clazz.getDeclaredConstructor().newInstance();
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+    public static <T extends JsonConvertible> void writeValue(T instance, Writer writer) {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        writeValue(instance, jsonWriter);
+        jsonWriter.flush();
+    }
+
+    /**
+     * write object as utf-8 json straight from its fields without building json tree
+     * @param instance object to write
+     * @param stream stream for json bytes, flushed but not closed
+     * @param <T> class that extends JsonConvertible
+     */
+    public static <T extends JsonConvertible> void writeValue(T instance, OutputStream stream) {
+        JsonWriter jsonWriter = new JsonWriter(stream);
+        writeValue(instance, jsonWriter);
+        jsonWriter.flush();
+    }
+
+    /**
+     * write object as next value of the writer,
+     * output is the same as convertToJson(instance).toString()
+     * @param instance object to write
+     * @param writer json writer
+     * @param <T> class that extends JsonConvertible
+     */
+    public static <T extends JsonConvertible> void writeValue(T instance, JsonWriter writer) {
+        writer.beginObject();
+        writeFields(instance, ClassCodec.of(instance.getClass()), writer);
+        writer.endObject();
+    }
+
+    /**
+     * write fields of the class level, parent fields go first
+     * @param instance object to write
+     * @param codec codec of the current class
+     * @param writer json writer
+     */
+    private static void writeFields(Object instance, ClassCodec codec, JsonWriter writer) {
+        if (codec.parent != null) {
+            writeFields(instance, codec.parent, writer);
+        }
+        if (codec.key != null) {
+            writer.name(codec.key).beginObject();
+        }
+
+        for (FieldCodec field : codec.fields) {
+            if (field.ignored) {
+                continue;
+            }
+            Object value = field.get(instance);
+            if (field.nullAsString && value == null) {
+                value = "null";
+            }
+            if (value == null) {
+                if (!field.ignoreNull) {
+                    writer.name(field.name).nullValue();
+                }
+                continue;
+            }
+
+            writer.name(field.name);
+            Class<?> valueType = value.getClass();
+            if (isConvertible(valueType)) {
+                writeValue((JsonConvertible) value, writer);
+            } else if (valueType.isArray() || Collection.class.isAssignableFrom(valueType)) {
+                if (valueType.isArray()) {
+                    writeElements(arrayElements(value), writer);
+                } else if (value instanceof JsonList || isConvertible(field.elementType)) {
+                    writeElements((Collection<?>) value, writer);
+                } else {
+                    writer.value(value);
+                }
+            } else if (value instanceof LocalDateTime || value instanceof LocalDate || value instanceof Instant) {
+                if (field.writeFormatter == null) {
+                    writer.value(value.toString());
+                } else if (value instanceof LocalDateTime) {
+                    writer.value(field.writeFormatter.format((TemporalAccessor) value));
+                } else {
+                    writer.value(value);
+                }
+            } else {
+                writer.value(value);
+            }
+        }
+
+        if (codec.key != null) {
+            writer.endObject();
         }
     }
 
     /**
-     * get field name with annotation
-     * @param field field
-     * @return field name
+     * @param values elements to write as array
+     * @param writer json writer
      */
-    private static String getFieldName(Field field) {
-        JsonField jsonField = field.getAnnotation(JsonField.class);
-        if (jsonField != null) {
-            if (!jsonField.key().equals("JmsonKeyTemplate")) {
-                return jsonField.key();
+    private static void writeElements(Collection<?> values, JsonWriter writer) {
+        writer.beginArray();
+        for (Object value : values) {
+            if (value != null && isConvertible(value.getClass())) {
+                writeValue((JsonConvertible) value, writer);
+            } else {
+                writer.value(value);
             }
         }
-        return field.getName();
+        writer.endArray();
+    }
+
+    /**
+     * get private default constructor instance
+     * @param clazz class of the constructor
+     * @return instance os class
+     */
+    private static <T extends JsonConvertible> T getDefaultConstructor(Class<T> clazz) {
+        return clazz.cast(ClassCodec.of(clazz).newInstance());
     }
 
     /**
      * create json with new object values by keys from JsonObject annotation
      * @param json old json
-     * @param jsonObject annotation with keys
+     * @param codec codec with annotation keys
      * @return new json with object values by keys
      */
-    private static Json getObjectValues(Json json, JsonObject jsonObject) {
+    private static Json getObjectValues(Json json, ClassCodec codec) {
         Json newJson = json;
-        if (!jsonObject.key().equals("JmsonKeyTemplate")) {
+        if (codec.key != null) {
             newJson = new Json();
-            if (json.containsKey(jsonObject.key())) {
-                Object subJson = json.get(jsonObject.key());
+            if (json.containsKey(codec.key)) {
+                Object subJson = json.get(codec.key);
                 if (subJson instanceof Json) {
                     newJson.putAll((Json) subJson);
                 }
             }
         }
 
-        if (jsonObject.keys().length != 0) {
+        if (codec.keys.length != 0) {
             if (newJson == json) {
                 newJson = new Json();
             }
-            for (String key : jsonObject.keys()) {
+            for (String key : codec.keys) {
                 if (json.containsKey(key)) {
                     Object subJson = json.get(key);
                     if (subJson instanceof Json) {
@@ -342,43 +741,40 @@ public class JsonConverter {
     }
 
     /**
-     * @param date date
-     * @param format date format
-     * @return LocalDateTime
+     * @param value json or string with json
+     * @return json or null if value is not json
      */
-    private static LocalDateTime getLocalDateTime(String date, String format) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-        return LocalDateTime.parse(date, formatter);
-    }
-
-    private static LocalDate getLocalDate(String date, String format) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-        return LocalDate.parse(date, formatter);
+    private static Json toJson(Object value) {
+        if (value instanceof Json) {
+            return (Json) value;
+        }
+        String json = value.toString();
+        return Json.isJson(json) ? new Json(json) : null;
     }
 
-
     /**
      * check if class can be converted to json
      * @param clazz class to check
      * @return true if can
      */
     private static boolean isConvertible(Class<?> clazz) {
-        return Arrays.asList(clazz.getInterfaces()).contains(JsonConvertible.class);
+        return ClassCodec.isConvertible(clazz);
     }
 
     /**
      * cast array list to type
      * @param type type to cast
      * @param list list to cast
-     * @return array with values cast to type
+     * @return array with values cast to type, primitive array for primitive component type
      */
-    private static Object[] castToArray(JsonList list, Class<?> type) {
+    private static Object castToArray(JsonList list, Class<?> type) {
         Class<?> arrayType = type.getComponentType();
+        if (arrayType.isPrimitive()) {
+            return castToPrimitiveArray(list, type);
+        }
         JsonList newList = new JsonList();
         if (isConvertible(arrayType)) {
-            for (Object jsonObject : list) {
-                newList.add(convertToObject((Json) jsonObject, arrayType.asSubclass(JsonConvertible.class)));
-            }
+            newList.addAll(Arrays.asList(convertAll(list, ClassCodec.of(arrayType), PARALLEL_THRESHOLD, true)));
         } else {
             for (Object jsonObject : list) {
                 if (arrayType == String.class && jsonObject instanceof net.mlk.jmson.JsonObject) {
@@ -393,14 +789,46 @@ public class JsonConverter {
     }
 
     /**
-     * cast list to type
-     * @param type type to cast
+     * @param array object or primitive array
+     * @return elements of the array, primitive elements are boxed
+     */
+    private static List<?> arrayElements(Object array) {
+        if (array instanceof Object[]) {
+            return Arrays.asList((Object[]) array);
+        }
+        int length = Array.getLength(array);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(Array.get(array, i));
+        }
+        return elements;
+    }
+
+    /**
+     * cast list to primitive array, int, long and double arrays are copied from
+     * primitive storage of compact list without boxing
      * @param list list to cast
-     * @return list with values cast to type
+     * @param type primitive array type
+     * @return primitive array
      */
-    private static Collection<?> castToCollection(JsonList list, ParameterizedType type) {
-        Class<?> collectionType = (Class<?>) type.getActualTypeArguments()[0];
-        return castToCollection(list, collectionType);
+    private static Object castToPrimitiveArray(JsonList list, Class<?> type) {
+        Class<?> arrayType = type.getComponentType();
+        try {
+            if (arrayType == int.class) {
+                return list.toIntArray();
+            } else if (arrayType == long.class) {
+                return list.toLongArray();
+            } else if (arrayType == double.class) {
+                return list.toDoubleArray();
+            }
+            Object array = Array.newInstance(arrayType, list.size());
+            for (int i = 0; i < list.size(); i++) {
+                Array.set(array, i, castTo(list.get(i), arrayType));
+            }
+            return array;
+        } catch (RuntimeException ex) {
+            throw new RuntimeException("Can't cast " + list + " to " + type.getSimpleName(), ex);
+        }
     }
 
     /**
@@ -412,13 +840,7 @@ public class JsonConverter {
     private static Collection<?> castToCollection(JsonList list, Class<?> type) {
         if (isConvertible(type)) {
             JsonList newList = new JsonList();
-            for (Object jsonObject : list) {
-                if (jsonObject instanceof Json) {
-                    newList.add(convertToObject((Json) jsonObject, type.asSubclass(JsonConvertible.class)));
-                } else {
-                    newList.add(jsonObject);
-                }
-            }
+            newList.addAll(Arrays.asList(convertAll(list, ClassCodec.of(type), PARALLEL_THRESHOLD, false)));
             return newList;
         }
         return list;
@@ -438,20 +860,13 @@ public class JsonConverter {
             object = true;
         } else if (value.equalsIgnoreCase("false")) {
             object = false;
-        } else if (value.matches("[+-]?[0-9]+")) {
-            try {
-                object = Integer.parseInt(value);
-            } catch (NumberFormatException ex) {
-                object = Long.parseLong(value);
-            }
-        } else if (value.matches("[+-]?[0-9]*\\.[0-9]+")) {
-            try {
-                object = Float.parseFloat(value);
-            } catch (NumberFormatException e) {
-                object = Double.parseDouble(value);
-            }
         } else if (value.equals("null")) {
             object = null;
+        } else if (!value.isEmpty()) {
+            Number number = NumberCodec.parse(value);
+            if (number != null) {
+                object = number;
+            }
         }
         return object;
     }
@@ -479,7 +894,7 @@ public class JsonConverter {
         } else if (type == float.class || type == Float.class) {
             object = Float.parseFloat(value);
         } else if (type == double.class || type == Double.class) {
-            object = Double.parseDouble(value);
+            object = object instanceof Double ? object : NumberCodec.parseDouble(value);
         } else if (type == boolean.class || type == Boolean.class) {
             object = Boolean.parseBoolean(value);
         } else if (type == String.class) {
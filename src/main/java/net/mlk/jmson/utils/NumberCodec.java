@@ -0,0 +1,515 @@
+package net.mlk.jmson.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * number codec.
+ * recognizes number literal straight in the char or byte buffer of the tokenizer
+ * and keeps its sign, decimal mantissa and exponent,
+ * so numbers are typed and converted without regex and intermediate strings.
+ * decimals are converted with Eisel-Lemire algorithm and written back
+ * with the shortest digits that round trip to the same value
+ */
+public final class NumberCodec {
+    private static final int MAX_MANTISSA_DIGITS = 19;
+    private static final int MAX_FLOAT_DIGITS = 6;
+    private static final int MIN_POWER_OF_TEN = -342;
+    private static final int MAX_POWER_OF_TEN = 308;
+    private static final long[] POWERS_OF_TEN_HIGH = new long[MAX_POWER_OF_TEN - MIN_POWER_OF_TEN + 1];
+    private static final long[] POWERS_OF_TEN_LOW = new long[MAX_POWER_OF_TEN - MIN_POWER_OF_TEN + 1];
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static {
+        // 128 bit mantissas of powers of ten, normalized and rounded down
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_POWER_OF_TEN; q <= MAX_POWER_OF_TEN; q++) {
+            BigInteger value;
+            if (q >= 0) {
+                value = BigInteger.TEN.pow(q);
+                int shift = value.bitLength() - 128;
+                value = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+            } else {
+                BigInteger divisor = BigInteger.TEN.pow(-q);
+                value = BigInteger.ONE.shiftLeft(divisor.bitLength() + 127).divide(divisor);
+            }
+            POWERS_OF_TEN_HIGH[q - MIN_POWER_OF_TEN] = value.shiftRight(64).longValue();
+            POWERS_OF_TEN_LOW[q - MIN_POWER_OF_TEN] = value.and(mask).longValue();
+        }
+    }
+
+    private boolean negative;
+    private long mantissa;
+    private int digits;
+    private int exponent;
+    private boolean floating;
+    private boolean truncated;
+
+    private char[] chars;
+    private byte[] bytes;
+    private int start;
+    private int end;
+
+    /**
+     * scan number literal
+     * @param chars source
+     * @param start index of the first char
+     * @param end index after the last char
+     * @return true if whole range is a number
+     */
+    public boolean scan(char[] chars, int start, int end) {
+        this.chars = chars;
+        this.bytes = null;
+        this.start = start;
+        this.end = end;
+        this.reset();
+
+        int i = start;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            this.negative = chars[i] == '-';
+            i++;
+        }
+        int digitsStart = i;
+        while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+            this.addDigit(chars[i] - '0', false);
+            i++;
+        }
+        int integerDigits = i - digitsStart;
+        int fractionDigits = 0;
+        if (i < end && chars[i] == '.') {
+            this.floating = true;
+            digitsStart = ++i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                this.addDigit(chars[i] - '0', true);
+                i++;
+            }
+            fractionDigits = i - digitsStart;
+            if (fractionDigits == 0) {
+                return false;
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            return false;
+        }
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            this.floating = true;
+            boolean negativeExponent = false;
+            if (++i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            digitsStart = i;
+            int value = 0;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                value = value < 100000 ? value * 10 + chars[i] - '0' : value;
+                i++;
+            }
+            if (i == digitsStart) {
+                return false;
+            }
+            this.exponent += negativeExponent ? -value : value;
+        }
+        return i == end;
+    }
+
+    /**
+     * scan ascii number literal
+     * @param bytes source
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return true if whole range is a number
+     */
+    public boolean scan(byte[] bytes, int start, int end) {
+        this.chars = null;
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        this.reset();
+
+        int i = start;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            this.negative = bytes[i] == '-';
+            i++;
+        }
+        int digitsStart = i;
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            this.addDigit(bytes[i] - '0', false);
+            i++;
+        }
+        int integerDigits = i - digitsStart;
+        int fractionDigits = 0;
+        if (i < end && bytes[i] == '.') {
+            this.floating = true;
+            digitsStart = ++i;
+            while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+                this.addDigit(bytes[i] - '0', true);
+                i++;
+            }
+            fractionDigits = i - digitsStart;
+            if (fractionDigits == 0) {
+                return false;
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            return false;
+        }
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            this.floating = true;
+            boolean negativeExponent = false;
+            if (++i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            digitsStart = i;
+            int value = 0;
+            while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+                value = value < 100000 ? value * 10 + bytes[i] - '0' : value;
+                i++;
+            }
+            if (i == digitsStart) {
+                return false;
+            }
+            this.exponent += negativeExponent ? -value : value;
+        }
+        return i == end;
+    }
+
+    /**
+     * @return true if scanned number has no fraction and fits long
+     */
+    public boolean isLong() {
+        return !this.floating && !this.truncated
+                && (this.mantissa >= 0 || (this.negative && this.mantissa == Long.MIN_VALUE));
+    }
+
+    /**
+     * @return scanned number as long, must be checked with isLong
+     */
+    public long toLong() {
+        return this.negative ? -this.mantissa : this.mantissa;
+    }
+
+    /**
+     * @return scanned number as double
+     */
+    public double toDouble() {
+        if (!this.truncated && this.mantissa >= 0 && this.mantissa <= (1L << 53)
+                && this.exponent >= -22 && this.exponent <= 22) {
+            // mantissa and power of ten are exact, so single operation is correctly rounded
+            double value = (double) this.mantissa;
+            value = this.exponent < 0 ? value / DOUBLE_POWERS_OF_TEN[-this.exponent]
+                    : value * DOUBLE_POWERS_OF_TEN[this.exponent];
+            return this.negative ? -value : value;
+        }
+        double value = eiselLemire(this.mantissa, this.exponent, this.negative);
+        if (this.truncated && !Double.isNaN(value)) {
+            // dropped digits lie between mantissa and mantissa + 1
+            double upper = eiselLemire(this.mantissa + 1, this.exponent, this.negative);
+            if (upper != value) {
+                value = Double.NaN;
+            }
+        }
+        return Double.isNaN(value) ? Double.parseDouble(this.text()) : value;
+    }
+
+    /**
+     * @return scanned number as float
+     */
+    public float toFloat() {
+        if (!this.truncated && this.mantissa >= 0 && this.mantissa <= (1L << 24)
+                && this.exponent >= -10 && this.exponent <= 10) {
+            float value = (float) this.mantissa;
+            value = this.exponent < 0 ? value / FLOAT_POWERS_OF_TEN[-this.exponent]
+                    : value * FLOAT_POWERS_OF_TEN[this.exponent];
+            return this.negative ? -value : value;
+        }
+        return Float.parseFloat(this.text());
+    }
+
+    /**
+     * convert scanned number to the narrowest type that keeps all digits:
+     * Integer, Long or BigInteger for integers,
+     * Float for decimals up to 6 significant digits and Double for longer ones,
+     * BigDecimal for decimals out of double range, so they are not turned to infinity or zero
+     * @return number
+     */
+    public Number toNumber() {
+        if (this.floating) {
+            if (!this.truncated && this.digits <= MAX_FLOAT_DIGITS) {
+                float value = this.toFloat();
+                if (!Float.isInfinite(value) && (value != 0 || this.mantissa == 0)) {
+                    return value;
+                }
+            }
+            double value = this.toDouble();
+            if (Double.isInfinite(value) || value == 0 && this.mantissa != 0) {
+                return new BigDecimal(this.text());
+            }
+            return value;
+        } else if (this.isLong()) {
+            long value = this.toLong();
+            if (value == (int) value) {
+                return (int) value;
+            }
+            return value;
+        }
+        return new BigInteger(this.text());
+    }
+
+    /**
+     * @return source text of the scanned number
+     */
+    public String text() {
+        if (this.chars != null) {
+            return new String(this.chars, this.start, this.end - this.start);
+        }
+        char[] text = new char[this.end - this.start];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (char) this.bytes[this.start + i];
+        }
+        return new String(text);
+    }
+
+    /**
+     * parse string to double, falls back to Double.parseDouble
+     * for special values like NaN
+     * @param value string
+     * @return double
+     * @throws NumberFormatException if string is not a number
+     */
+    public static double parseDouble(String value) {
+        NumberCodec codec = new NumberCodec();
+        char[] chars = value.toCharArray();
+        return codec.scan(chars, 0, chars.length) ? codec.toDouble() : Double.parseDouble(value);
+    }
+
+    /**
+     * append double with the shortest digits that parse back to the same value
+     * @param builder builder to append
+     * @param value value
+     * @return builder
+     */
+    public static StringBuilder appendDouble(StringBuilder builder, double value) {
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int k = 0; k < DOUBLE_POWERS_OF_TEN.length; k++) {
+                double scaled = abs * DOUBLE_POWERS_OF_TEN[k];
+                if (scaled >= (1L << 53)) {
+                    break;
+                }
+                long digits = (long) Math.rint(scaled);
+                // exact operands, so division is the correctly rounded value of the decimal
+                if (digits / DOUBLE_POWERS_OF_TEN[k] == abs) {
+                    return appendDecimal(builder, value < 0, digits, k);
+                }
+            }
+        } else if (abs == 0) {
+            return builder.append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+        }
+        return builder.append(Double.toString(value));
+    }
+
+    /**
+     * append float with the shortest digits that parse back to the same value
+     * @param builder builder to append
+     * @param value value
+     * @return builder
+     */
+    public static StringBuilder appendFloat(StringBuilder builder, float value) {
+        float abs = Math.abs(value);
+        if (abs >= 1e-3f && abs < 1e7f) {
+            for (int k = 0; k < FLOAT_POWERS_OF_TEN.length; k++) {
+                double scaled = (double) abs * DOUBLE_POWERS_OF_TEN[k];
+                if (scaled >= (1L << 24)) {
+                    break;
+                }
+                long digits = (long) Math.rint(scaled);
+                if ((float) digits / FLOAT_POWERS_OF_TEN[k] == abs) {
+                    return appendDecimal(builder, value < 0, digits, k);
+                }
+            }
+        } else if (abs == 0) {
+            return builder.append(Float.floatToRawIntBits(value) < 0 ? "-0.0" : "0.0");
+        }
+        return builder.append(Float.toString(value));
+    }
+
+    /**
+     * append number to builder as json number, doubles and floats are written with the shortest digits
+     * @param builder builder to append
+     * @param number number
+     * @return builder
+     * @throws IllegalArgumentException if number is NaN or infinite, json has no literal for them
+     */
+    public static StringBuilder appendNumber(StringBuilder builder, Number number) {
+        if (number instanceof Double) {
+            return appendDouble(builder, checkFinite((Double) number));
+        } else if (number instanceof Float) {
+            return appendFloat(builder, (float) checkFinite((Float) number));
+        } else if (number instanceof Integer || number instanceof Long) {
+            return builder.append(number.longValue());
+        }
+        return builder.append(number);
+    }
+
+    /**
+     * @param value value to write to json
+     * @return value
+     * @throws IllegalArgumentException if value is NaN or infinite
+     */
+    public static double checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Json doesn't allow " + value + " as number");
+        }
+        return value;
+    }
+
+    /**
+     * @param value value
+     * @return the shortest string that parses back to the same value
+     */
+    public static String toString(double value) {
+        return appendDouble(new StringBuilder(24), value).toString();
+    }
+
+    /**
+     * @param value value
+     * @return the shortest string that parses back to the same value
+     */
+    public static String toString(float value) {
+        return appendFloat(new StringBuilder(16), value).toString();
+    }
+
+    /**
+     * write digits * 10^-scale in plain notation with at least one fraction digit
+     */
+    private static StringBuilder appendDecimal(StringBuilder builder, boolean negative, long digits, int scale) {
+        if (negative) {
+            builder.append('-');
+        }
+        if (scale == 0) {
+            return builder.append(digits).append(".0");
+        }
+        long divisor = (long) DOUBLE_POWERS_OF_TEN[scale];
+        long fraction = digits % divisor;
+        builder.append(digits / divisor).append('.');
+        for (long limit = divisor / 10; limit > fraction && limit > 1; limit /= 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+
+    /**
+     * Eisel-Lemire conversion of w * 10^q to double
+     * @param w decimal mantissa as unsigned long
+     * @param q decimal exponent
+     * @param negative sign
+     * @return correctly rounded double or NaN if result can't be decided
+     */
+    private static double eiselLemire(long w, int q, boolean negative) {
+        if (w == 0 || q < MIN_POWER_OF_TEN) {
+            return negative ? -0.0 : 0.0;
+        } else if (q > MAX_POWER_OF_TEN) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+        long exponent2 = ((217706L * q) >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = q - MIN_POWER_OF_TEN;
+        long high = unsignedMultiplyHigh(w, POWERS_OF_TEN_HIGH[index]);
+        long low = w * POWERS_OF_TEN_HIGH[index];
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + w, w) < 0) {
+            // truncated power may be too small, use the lower 64 bits too
+            long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_TEN_LOW[index]);
+            long secondLow = w * POWERS_OF_TEN_LOW[index];
+            long mergedHigh = high;
+            long mergedLow = low + secondHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                    && Long.compareUnsigned(secondLow + w, w) < 0) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        long msb = high >>> 63;
+        long result = high >>> (msb + 9);
+        exponent2 -= 1 ^ msb;
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            // exactly halfway, rounding direction is unknown
+            return Double.NaN;
+        }
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exponent2++;
+        }
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+            // subnormal or overflow
+            return Double.NaN;
+        }
+        long bits = (exponent2 << 52) | (result & 0x000FFFFFFFFFFFFFL);
+        if (negative) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * parse string to the narrowest number type
+     * @param value string
+     * @return number or null if string is not a number
+     */
+    public static Number parse(String value) {
+        NumberCodec codec = new NumberCodec();
+        char[] chars = value.toCharArray();
+        return codec.scan(chars, 0, chars.length) ? codec.toNumber() : null;
+    }
+
+    private void reset() {
+        this.negative = false;
+        this.mantissa = 0;
+        this.digits = 0;
+        this.exponent = 0;
+        this.floating = false;
+        this.truncated = false;
+    }
+
+    /**
+     * accumulate up to 19 significant digits, mantissa is treated as unsigned
+     * @param digit digit value
+     * @param fraction true if digit is after decimal point
+     */
+    private void addDigit(int digit, boolean fraction) {
+        if (this.digits < MAX_MANTISSA_DIGITS) {
+            this.mantissa = this.mantissa * 10 + digit;
+            if (this.mantissa != 0) {
+                this.digits++;
+            }
+            if (fraction) {
+                this.exponent--;
+            }
+        } else {
+            if (!fraction) {
+                this.exponent++;
+            }
+            this.truncated |= digit != 0 || !fraction;
+        }
+    }
+
+}
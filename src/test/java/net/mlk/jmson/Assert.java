@@ -0,0 +1,59 @@
+package net.mlk.jmson;
+
+import java.util.Objects;
+
+/**
+ * assertions of the tests
+ */
+public final class Assert {
+
+    private Assert() {
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("Expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    public static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    public static void assertSame(Object expected, Object actual) {
+        if (expected != actual) {
+            throw new AssertionError("Expected same instance as <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    /**
+     * @param type expected exception type
+     * @param code code to run
+     * @param <T> exception type
+     * @return thrown exception
+     */
+    public static <T extends Throwable> T assertThrows(Class<T> type, Code code) {
+        try {
+            code.run();
+        } catch (Throwable ex) {
+            if (type.isInstance(ex)) {
+                return type.cast(ex);
+            }
+            throw new AssertionError("Expected " + type.getName() + " but was " + ex, ex);
+        }
+        throw new AssertionError("Expected " + type.getName() + " but nothing was thrown");
+    }
+
+    public interface Code {
+        void run() throws Throwable;
+    }
+
+}
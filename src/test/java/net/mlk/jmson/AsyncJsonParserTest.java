@@ -0,0 +1,213 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * input can be split at any byte, inside of tokens, escapes, multi-byte sequences and BOM,
+ * parser must give the same tokens and values as for the whole input
+ */
+public class AsyncJsonParserTest {
+    // 1, 2, 3 and 4 byte utf-8 sequences in names and values
+    private static final String OBJECT = "{\"ascii\":\"abc\", \"cl\u00e9\":\"\u00e9\u00e8 \u4e2d\u6587 \ud83d\ude00\", "
+            + "\"escaped\":\"\\\"\\\\\\/\\n \\u00e9 \\ud83d\\ude00\", \"int\":-42, \"long\":12345678901234, "
+            + "\"big\":123456789012345678901234567890, \"exp\":-2.5E-3, \"t\":true, \"f\":false, \"n\":null, "
+            + "\"\ud83c\udf89\":{\"list\":[1, [2, {}], \"x\", []]}, \"last\":\"\u4e2d\"}";
+    private static final byte[] BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * @param parser parser
+     * @param out tokens with names and values, END_DOCUMENT is not added
+     * @return false if more input is needed
+     */
+    private static boolean tokens(AsyncJsonParser parser, List<String> out) {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.END_DOCUMENT) {
+                return true;
+            }
+            out.add(token == JsonToken.NAME ? "name " + parser.getName()
+                    : token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN
+                    || token == JsonToken.NULL ? token + " " + parser.getValue() : token.toString());
+        }
+        return false;
+    }
+
+    /**
+     * @param bytes input
+     * @param cuts indexes where input is split
+     * @return tokens of the input fed by parts
+     */
+    private static List<String> tokens(byte[] bytes, int... cuts) {
+        AsyncJsonParser parser = new AsyncJsonParser();
+        List<String> out = new ArrayList<>();
+        int from = 0;
+        for (int cut : cuts) {
+            parser.feed(Arrays.copyOfRange(bytes, from, cut));
+            assertEquals(false, tokens(parser, out));
+            from = cut;
+        }
+        parser.feed(Arrays.copyOfRange(bytes, from, bytes.length)).endOfInput();
+        assertEquals(true, tokens(parser, out));
+        assertEquals((long) bytes.length, parser.getPosition());
+        return out;
+    }
+
+    /**
+     * @param bytes input
+     * @param chunk size of every chunk
+     * @return root values of the input fed by chunks
+     */
+    private static String values(byte[] bytes, int chunk) {
+        AsyncJsonParser parser = new AsyncJsonParser();
+        StringBuilder out = new StringBuilder();
+        for (int from = 0; from < bytes.length; from += chunk) {
+            parser.feed(ByteBuffer.wrap(bytes, from, Math.min(chunk, bytes.length - from)));
+            JsonObject value;
+            while ((value = parser.nextValue()) != null) {
+                out.append(value).append('\n');
+            }
+        }
+        parser.endOfInput();
+        assertEquals(null, parser.nextValue());
+        return out.toString();
+    }
+
+    public static void testTokensSplitAtEveryByte() {
+        byte[] bytes = utf8(OBJECT);
+        List<String> expected = tokens(bytes);
+        assertTrue(expected.contains("name cl\u00e9"), expected.toString());
+        assertTrue(expected.contains("name \ud83c\udf89"), expected.toString());
+        assertTrue(expected.contains("STRING \u00e9\u00e8 \u4e2d\u6587 \ud83d\ude00"), expected.toString());
+        assertTrue(expected.contains("STRING \"\\/\n \u00e9 \ud83d\ude00"), expected.toString());
+        assertTrue(expected.contains("NUMBER 123456789012345678901234567890"), expected.toString());
+        for (int cut = 1; cut < bytes.length; cut++) {
+            assertEquals(expected, tokens(bytes, cut), "cut " + cut);
+        }
+        int[] everyByte = new int[bytes.length - 1];
+        for (int i = 0; i < everyByte.length; i++) {
+            everyByte[i] = i + 1;
+        }
+        assertEquals(expected, tokens(bytes, everyByte));
+    }
+
+    public static void testValuesSplitAtEveryChunkSize() {
+        String list = "[1, \"\u4e2d\", {\"a\":[true]}, null, 2.5]";
+        byte[] bytes = utf8(OBJECT + "\n" + list + " {}[]" + OBJECT);
+        String object = Json.parse(utf8(OBJECT)).toString();
+        String expected = object + "\n" + JsonList.parse(utf8(list)) + "\n{}\n[]\n" + object + "\n";
+        for (int chunk = 1; chunk <= 17; chunk++) {
+            assertEquals(expected, values(bytes, chunk), "chunk " + chunk);
+        }
+        assertEquals(expected, values(bytes, bytes.length));
+    }
+
+    public static void testMultiByteSequencesSplitAcrossFeeds() {
+        String text = "\u00e9\u4e2d\ud83d\ude00";
+        byte[] bytes = utf8("[\"" + text + "\", {\"" + text + "\":1}]");
+        List<String> expected = Arrays.asList("BEGIN_ARRAY", "STRING " + text, "BEGIN_OBJECT", "name " + text,
+                "NUMBER 1", "END_OBJECT", "END_ARRAY");
+        for (int first = 1; first < bytes.length; first++) {
+            for (int second = first + 1; second < bytes.length; second++) {
+                assertEquals(expected, tokens(bytes, first, second), "cuts " + first + ", " + second);
+            }
+        }
+    }
+
+    public static void testBomSplitAcrossFeeds() {
+        byte[] bytes = concat(BOM, utf8("{\"a\":\"\u00e9\"}"));
+        List<String> expected = Arrays.asList("BEGIN_OBJECT", "name a", "STRING \u00e9", "END_OBJECT");
+        assertEquals(expected, tokens(bytes, 1, 2));
+        for (int cut = 1; cut < bytes.length; cut++) {
+            assertEquals(expected, tokens(bytes, cut), "cut " + cut);
+        }
+        assertEquals("{\"a\":\"\u00e9\"}\n", values(bytes, 1));
+    }
+
+    public static void testBomOnlyAtStart() {
+        AsyncJsonParser parser = new AsyncJsonParser().feed(utf8("[1]"));
+        assertEquals("[1]", String.valueOf(parser.nextValue()));
+        parser.feed(BOM).feed(utf8("[2]")).endOfInput();
+        assertThrows(RuntimeException.class, parser::nextValue);
+
+        AsyncJsonParser incomplete = new AsyncJsonParser().feed(Arrays.copyOf(BOM, 2));
+        assertEquals(null, incomplete.nextToken());
+        incomplete.endOfInput();
+        // not a BOM, bytes are kept as bare value
+        assertEquals(JsonToken.STRING, incomplete.nextToken());
+        assertEquals(JsonToken.END_DOCUMENT, incomplete.nextToken());
+    }
+
+    public static void testTokenLongerThanBuffer() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            builder.append("\u4e2d\\\"");
+        }
+        String escaped = builder.toString();
+        byte[] bytes = utf8("{\"long\":\"" + escaped + "\", \"n\":" + escaped.length() + "}");
+        String expected = new Json("{\"long\":\"" + escaped + "\", \"n\":" + escaped.length() + "}").toString();
+        for (int chunk : new int[] {1, 2, 3, 7, 255, 256, 257}) {
+            assertEquals(expected + "\n", values(bytes, chunk), "chunk " + chunk);
+        }
+    }
+
+    public static void testLiteralCompletedByEndOfInput() {
+        AsyncJsonParser parser = new AsyncJsonParser().feed(utf8("12"));
+        assertEquals(null, parser.nextToken());
+        parser.feed(utf8("3"));
+        assertEquals(null, parser.nextToken());
+        parser.endOfInput();
+        assertEquals(JsonToken.NUMBER, parser.nextToken());
+        assertEquals(123, parser.getValue());
+        assertEquals(JsonToken.END_DOCUMENT, parser.nextToken());
+        assertThrows(IllegalStateException.class, () -> parser.feed(utf8(" ")));
+    }
+
+    public static void testParseTypes() {
+        AsyncJsonParser parser = new AsyncJsonParser().parseTypes(false);
+        byte[] bytes = utf8("{\"a\":1.50, \"b\":true, \"c\":\"x\"}");
+        for (byte b : bytes) {
+            parser.feed(new byte[] {b});
+        }
+        Json json = (Json) parser.nextValue();
+        assertEquals("1.50", json.get("a"));
+        assertEquals("true", json.get("b"));
+        assertEquals("x", json.get("c"));
+    }
+
+    public static void testErrorsAtEndOfInput() {
+        for (String json : new String[] {"{\"a\":1", "{\"a\":\"abc", "[1, ", "{\"a\"", "{\"a\":\"\\"}) {
+            byte[] bytes = utf8(json);
+            for (int cut = 1; cut < bytes.length; cut++) {
+                AsyncJsonParser parser = new AsyncJsonParser();
+                parser.feed(Arrays.copyOf(bytes, cut));
+                assertEquals(null, parser.nextValue(), json);
+                parser.feed(Arrays.copyOfRange(bytes, cut, bytes.length));
+                assertEquals(null, parser.nextValue(), json);
+                parser.endOfInput();
+                assertThrows(RuntimeException.class, parser::nextValue);
+            }
+        }
+        AsyncJsonParser parser = new AsyncJsonParser().feed(utf8("{\"a\" 1}"));
+        assertEquals("Expected ':' at 5", assertThrows(RuntimeException.class, parser::nextValue).getMessage());
+        assertThrows(RuntimeException.class, () -> new AsyncJsonParser().feed(utf8("1 ")).nextValue());
+    }
+
+}
@@ -0,0 +1,203 @@
+package net.mlk.jmson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertSame;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class CompactJsonTest {
+
+    private static CompactJson compact(Object... pairs) {
+        CompactJson json = (CompactJson) Json.compact();
+        for (int i = 0; i < pairs.length; i += 2) {
+            json.put((String) pairs[i], pairs[i + 1]);
+        }
+        return json;
+    }
+
+    private static void assertCompact(CompactJson json, boolean compact) {
+        assertTrue((json.shape() != null) == compact, (compact ? "Expected compact " : "Expected inflated ") + json);
+    }
+
+    public static void testSameKeysShareShape() {
+        CompactJson first = compact("a", 1, "b", "x");
+        CompactJson second = compact("a", 2, "b", "y");
+        assertSame(first.shape(), second.shape());
+        assertSame(first.shape(), CompactJson.Shape.EMPTY.with("a").with("b"));
+        CompactJson reordered = compact("b", 1, "a", 2);
+        assertTrue(reordered.shape() != first.shape(), "other order is other shape");
+        assertEquals(first.keySet(), reordered.keySet());
+    }
+
+    public static void testParsedObjectsShareShape() {
+        JsonList list = new JsonReader("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"},{\"name\":\"c\",\"id\":3}]")
+                .compact(true).readList();
+        CompactJson first = (CompactJson) list.getJson(0);
+        assertSame(first.shape(), ((CompactJson) list.getJson(1)).shape());
+        assertTrue(first.shape() != ((CompactJson) list.getJson(2)).shape(), "other order is other shape");
+        assertEquals(new Json("{\"id\":2,\"name\":\"b\"}"), list.getJson(1));
+    }
+
+    public static void testUpdateKeepsShape() {
+        CompactJson json = compact("a", 1, "b", 2);
+        CompactJson.Shape shape = json.shape();
+        assertEquals(1, json.put("a", 10));
+        assertEquals(2, json.replace("b", 20));
+        assertEquals(null, json.replace("c", 30));
+        assertEquals(10, json.putIfAbsent("a", 0));
+        json.replaceAll((key, value) -> (int) value + 1);
+        json.entrySet().iterator().next().setValue(5);
+        assertSame(shape, json.shape());
+        assertEquals(compact("a", 5, "b", 21), json);
+    }
+
+    public static void testRemovalInflates() {
+        CompactJson json = compact("a", 1, "b", 2, "c", 3);
+        assertEquals(null, json.remove("missing"));
+        assertCompact(json, true);
+        assertEquals(2, json.remove("b"));
+        assertCompact(json, false);
+        json.put("d", 4);
+        assertEquals("[a, c, d]", json.keySet().toString());
+        assertEquals(1, json.get("a"));
+
+        CompactJson other = compact("a", 1, "b", 2);
+        other.keySet().remove("a");
+        assertCompact(other, false);
+        assertEquals(compact("b", 2), other);
+    }
+
+    public static void testComputeAndMergeInflate() {
+        CompactJson json = compact("a", 1);
+        json.merge("a", 2, (x, y) -> (int) x + (int) y);
+        assertCompact(json, false);
+        assertEquals(3, json.get("a"));
+
+        json = compact("a", 1);
+        json.computeIfAbsent("b", key -> 2);
+        assertCompact(json, false);
+        assertEquals(compact("a", 1, "b", 2), json);
+    }
+
+    public static void testTooManyKeysInflate() {
+        CompactJson json = compact();
+        LinkedHashMap<String, Object> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 64; i++) {
+            json.put("k" + i, i);
+            expected.put("k" + i, i);
+        }
+        assertCompact(json, true);
+        assertEquals(64, json.size());
+        json.put("k64", 64);
+        expected.put("k64", 64);
+        assertCompact(json, false);
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(json.entrySet()));
+        assertEquals(32, json.get("k32"));
+    }
+
+    public static void testClearReturnsToCompactStorage() {
+        CompactJson json = compact("a", 1, "b", 2);
+        json.remove("a");
+        json.clear();
+        assertCompact(json, true);
+        assertTrue(json.isEmpty(), "cleared");
+        json.put("a", 1);
+        json.put("b", 2);
+        assertSame(compact("a", 0, "b", 0).shape(), json.shape());
+    }
+
+    public static void testCloneIsIndependent() {
+        CompactJson json = compact("a", 1, "b", 2);
+        CompactJson clone = (CompactJson) json.clone();
+        clone.put("a", 10);
+        clone.put("c", 3);
+        assertEquals(compact("a", 1, "b", 2), json);
+        assertEquals(compact("a", 10, "b", 2, "c", 3), clone);
+
+        json.remove("b");
+        clone = (CompactJson) json.clone();
+        clone.put("a", 10);
+        assertCompact(clone, false);
+        assertEquals(1, json.get("a"));
+    }
+
+    public static void testSerializedAsOrdinaryJson() throws IOException, ClassNotFoundException {
+        CompactJson json = compact("a", 1, "b", compact("c", "x"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(json);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object copy = in.readObject();
+            assertEquals(Json.class, copy.getClass());
+            assertEquals(json, copy);
+        }
+    }
+
+    public static void testIterationDetectsModification() {
+        CompactJson json = compact("a", 1, "b", 2);
+        Iterator<String> keys = json.keySet().iterator();
+        keys.next();
+        json.put("c", 3);
+        assertThrows(ConcurrentModificationException.class, keys::next);
+        assertThrows(ConcurrentModificationException.class, () -> json.forEach((key, value) -> json.put(key + "!", value)));
+    }
+
+    /**
+     * random operations give the same entries in the same order as LinkedHashMap
+     */
+    public static void testRandomOperationsMatchLinkedHashMap() {
+        Random random = new Random(2);
+        for (int iteration = 0; iteration < 3000; iteration++) {
+            CompactJson json = compact();
+            Map<String, Object> expected = new LinkedHashMap<>();
+            int keys = random.nextBoolean() ? 8 : 80;
+            int ops = random.nextInt(150);
+            for (int k = 0; k < ops; k++) {
+                String key = "k" + random.nextInt(keys);
+                Object value = random.nextInt(4) == 0 ? null : random.nextInt(10);
+                int op = random.nextInt(100);
+                if (op < 60) {
+                    assertEquals(expected.put(key, value), json.put(key, value));
+                } else if (op < 70) {
+                    assertEquals(expected.putIfAbsent(key, value), json.putIfAbsent(key, value));
+                } else if (op < 78) {
+                    assertEquals(expected.replace(key, value), json.replace(key, value));
+                } else if (op < 84) {
+                    assertEquals(expected.remove(key), json.remove(key));
+                } else if (op < 88) {
+                    assertEquals(expected.remove(key, value), json.remove(key, value));
+                } else if (op < 92) {
+                    assertEquals(expected.merge(key, 1, (x, y) -> (int) x + (int) y),
+                            json.merge(key, 1, (x, y) -> (int) x + (int) y));
+                } else if (op < 95) {
+                    assertEquals(expected.containsValue(value), json.containsValue(value));
+                } else if (op < 99) {
+                    assertEquals(expected.getOrDefault(key, -1), json.getOrDefault(key, -1));
+                } else {
+                    expected.clear();
+                    json.clear();
+                }
+                assertEquals(expected.size(), json.size());
+                assertEquals(expected.containsKey(key), json.containsKey(key));
+            }
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(json.entrySet()));
+            assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(json.values()));
+            assertTrue(expected.equals(json) && json.equals(expected), "equals");
+            assertEquals(expected.hashCode(), json.hashCode());
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package net.mlk.jmson;
+
+/**
+ * package-private StructuralIndex used by benchmarks of bench package
+ */
+public final class IndexHooks {
+
+    private IndexHooks() {
+    }
+
+    /**
+     * @param chars json
+     * @return count of structural positions of index built from chars
+     */
+    public static int index(char[] chars) {
+        return StructuralIndex.of(chars, 0, chars.length).size();
+    }
+
+    /**
+     * @param bytes utf-8 json
+     * @return count of structural positions of index built from bytes
+     */
+    public static int index(byte[] bytes) {
+        return StructuralIndex.of(bytes, 0, bytes.length).size();
+    }
+
+}
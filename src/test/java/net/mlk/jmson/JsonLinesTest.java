@@ -0,0 +1,140 @@
+package net.mlk.jmson;
+
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * records are separated by any whitespace, so blank lines, '\r\n' and missing last newline
+ * must give the same records, writer must give one compact record per line
+ */
+public class JsonLinesTest {
+
+    public static class Record implements JsonConvertible {
+        int id;
+        String name;
+
+        public Record() {
+        }
+
+        Record(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static List<String> records(JsonLines lines) {
+        List<String> result = new ArrayList<>();
+        while (lines.hasNext()) {
+            result.add(lines.next().toString());
+        }
+        return result;
+    }
+
+    public static void testBlankLinesAndCrlf() {
+        String expected = "[{\"id\":1, \"name\":\"a\"}, {\"id\":2, \"name\":\"b\\r\\nc\"}, {}]";
+        String[] inputs = {
+                "{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":\"b\\r\\nc\"}\n{}\n",
+                "{\"id\":1,\"name\":\"a\"}\r\n{\"id\":2,\"name\":\"b\\r\\nc\"}\r\n{}\r\n",
+                "{\"id\":1,\"name\":\"a\"}\r\n\r\n\r\n{\"id\":2,\"name\":\"b\\r\\nc\"}\n\n{}",
+                "\n\r\n  \t\n{\"id\":1,\"name\":\"a\"}\n   \n{\"id\":2,\"name\":\"b\\r\\nc\"}\r\n\t{}  \r\n\r\n",
+                "{\"id\":1,\"name\":\"a\"} {\"id\":2,\"name\":\"b\\r\\nc\"}{}"
+        };
+        for (String input : inputs) {
+            assertEquals(expected, records(new JsonLines(new StringReader(input))).toString(), input);
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected, records(new JsonLines(new ByteArrayInputStream(bytes))).toString(), input);
+        }
+    }
+
+    public static void testEmptyInput() {
+        for (String input : new String[] {"", "\n", "\r\n\r\n", "  \n\t "}) {
+            JsonLines lines = new JsonLines(new StringReader(input));
+            assertEquals(false, lines.hasNext(), input);
+            assertThrows(NoSuchElementException.class, lines::next);
+            assertThrows(NoSuchElementException.class, () -> lines.next(Record.class));
+        }
+    }
+
+    public static void testBrokenRecord() {
+        JsonLines lines = new JsonLines(new StringReader("{\"id\":1}\n{\"id\":\n{\"id\":3}\n"));
+        assertEquals(1, lines.next().get("id"));
+        assertThrows(RuntimeException.class, lines::next);
+        assertThrows(RuntimeException.class, () -> new JsonLines(new StringReader("[1]\n")).next());
+    }
+
+    public static void testStreamOfObjects() {
+        String input = "{\"id\":1,\"name\":\"a\"}\r\n\r\n{\"id\":2,\"name\":null,\"unknown\":[1]}\r\n";
+        List<String> names = new JsonLines(new StringReader(input)).stream(Record.class)
+                .map(record -> record.id + ":" + record.name).collect(Collectors.toList());
+        assertEquals("[1:a, 2:null]", names.toString());
+    }
+
+    public static void testClosingStreamClosesInput() {
+        boolean[] closed = new boolean[1];
+        Reader in = new StringReader("{}\n{}\n") {
+            @Override
+            public void close() {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        try (Stream<Json> stream = new JsonLines(in).stream()) {
+            assertEquals(2L, stream.count());
+        }
+        assertTrue(closed[0], "input is not closed");
+    }
+
+    public static void testWriter() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonLinesWriter writer = new JsonLinesWriter(out);
+        writer.write(new Json("{\"a\":[1, 2], \"b\":{\"c\":\"line\\nbreak\"}}"));
+        writer.write(new Record(1, "x"));
+        writer.write(new Json());
+        writer.flush();
+        assertEquals("{\"a\":[1,2],\"b\":{\"c\":\"line\\nbreak\"}}\n{\"id\":1,\"name\":\"x\"}\n{}\n", out.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonLinesWriter stream = new JsonLinesWriter(bytes)) {
+            stream.write(new Record(2, "\u00e9"));
+        }
+        assertEquals("{\"id\":2,\"name\":\"\u00e9\"}\n", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    public static void testWriterAppendsToFile() throws IOException {
+        Path path = Files.createTempFile("jmson", ".jsonl");
+        path.toFile().deleteOnExit();
+        try (JsonLinesWriter writer = new JsonLinesWriter(path)) {
+            writer.write(new Record(1, "a"));
+        }
+        try (JsonLinesWriter writer = new JsonLinesWriter(path)) {
+            writer.write(new Record(2, "b")).write(new Record(3, "c"));
+        }
+        assertEquals(3, Files.readAllLines(path).size());
+        try (JsonLines lines = new JsonLines(path)) {
+            List<Integer> ids = new ArrayList<>();
+            while (lines.hasNext()) {
+                ids.add(lines.next(Record.class).id);
+            }
+            assertEquals("[1, 2, 3]", ids.toString());
+        }
+    }
+
+}
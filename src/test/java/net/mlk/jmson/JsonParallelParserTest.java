@@ -0,0 +1,176 @@
+package net.mlk.jmson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class JsonParallelParserTest {
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void testNullElements() {
+        for (boolean ordered : new boolean[] {true, false}) {
+            JsonParallelParser parser = new JsonParallelParser().chunkSize(1).ordered(ordered);
+            try (Stream<Object> stream = parser.streamList(utf8("[1,null,2]"))) {
+                assertTrue(!stream.spliterator().hasCharacteristics(Spliterator.NONNULL), "NONNULL stream");
+            }
+            List<Object> values = parser.streamList(utf8("[1,null,2]")).collect(Collectors.toList());
+            values.sort((a, b) -> String.valueOf(a).compareTo(String.valueOf(b)));
+            assertEquals(Arrays.asList(1, 2, null), values);
+        }
+        assertEquals(new JsonList("[1,null,2]"), new JsonParallelParser().chunkSize(1).parseList(utf8("[1,null,2]")));
+    }
+
+    public static void testWhitespaceAndBomAroundFileArray() throws IOException {
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            padding.append(" \n\t\r".charAt(i % 4));
+        }
+        String text = "\ufeff" + padding + "[1, {\"a\": [2, 3]}, \"x\"]" + padding;
+        Path file = Files.createTempFile("jmson", ".json");
+        try {
+            Files.write(file, utf8(text));
+            JsonList list = new JsonParallelParser().chunkSize(2).parseList(file);
+            assertEquals(new JsonList("[1, {\"a\": [2, 3]}, \"x\"]"), list);
+            assertEquals(list, new JsonParallelParser().parseList(utf8(text)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public static void testChunkErrorIsRethrownAsIs() {
+        byte[] bad = utf8("[1, 2, 3, {\"a\" 1}, 5]");
+        String expected = assertThrows(RuntimeException.class, () -> JsonList.parse(bad)).getMessage();
+        for (boolean ordered : new boolean[] {true, false}) {
+            RuntimeException ex = assertThrows(RuntimeException.class,
+                    () -> new JsonParallelParser().chunkSize(1).ordered(ordered).parseList(bad));
+            assertEquals(RuntimeException.class, ex.getClass());
+            assertEquals(expected, ex.getMessage());
+            assertTrue(ex.getCause() == null, "wrapped " + ex.getCause());
+        }
+    }
+
+    /**
+     * @param random random
+     * @param depth nesting depth left
+     * @return random value with strings full of structural chars and escapes
+     */
+    private static String randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 8 : 5)) {
+            case 0:
+                return String.valueOf(random.nextInt(2000) - 1000);
+            case 1:
+                return random.nextBoolean() ? "null" : "true";
+            case 2:
+                return String.valueOf(random.nextDouble());
+            case 3:
+            case 4:
+                String[] parts = {",", "[", "]", "{", "}", "\\\"", "\\\\", "\\n", ":", "a", " ", "\u00e9", "\\u0041"};
+                StringBuilder string = new StringBuilder("\"");
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    string.append(parts[random.nextInt(parts.length)]);
+                }
+                return string.append('"').toString();
+            case 5:
+            case 6:
+                StringBuilder object = new StringBuilder("{");
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    object.append(object.length() > 1 ? ", " : "").append("\"k").append(i).append("\": ")
+                            .append(randomValue(random, depth - 1));
+                }
+                return object.append('}').toString();
+            default:
+                StringBuilder array = new StringBuilder("[");
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    array.append(array.length() > 1 ? " ,\n" : "").append(randomValue(random, depth - 1));
+                }
+                return array.append(']').toString();
+        }
+    }
+
+    private static List<Object> sorted(List<Object> values) {
+        List<Object> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparing(String::valueOf));
+        return sorted;
+    }
+
+    /**
+     * every chunk size cuts array at different commas, result must be the same as sequential parse
+     */
+    public static void testArrayChunksMatchSequentialParse() throws IOException {
+        Random random = new Random(17);
+        for (int document = 0; document < 40; document++) {
+            StringBuilder text = new StringBuilder(" [ ");
+            for (int i = random.nextInt(30); i >= 0; i--) {
+                text.append(text.length() > 3 ? " , " : "").append(randomValue(random, 3));
+            }
+            byte[] bytes = utf8(text.append(" ]\n").toString());
+            JsonList expected = JsonList.parse(bytes);
+            Path file = Files.createTempFile("jmson", ".json");
+            try {
+                Files.write(file, bytes);
+                for (int chunkSize = 1; chunkSize <= bytes.length + 1; chunkSize += 1 + chunkSize / 4) {
+                    JsonParallelParser parser = new JsonParallelParser().chunkSize(chunkSize);
+                    assertEquals(expected, parser.parseList(bytes));
+                    assertEquals(expected, parser.parseList(file));
+                    assertEquals(expected, parser.compact(true).keyCache(KeyCache.concurrent(64)).parseList(bytes));
+                    List<Object> unordered = new JsonParallelParser().chunkSize(chunkSize).ordered(false)
+                            .streamList(bytes).collect(Collectors.toList());
+                    assertEquals(sorted(expected), sorted(unordered));
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * every chunk size cuts json lines at different newlines, result must be the same as parse of every line
+     */
+    public static void testLineChunksMatchSequentialParse() throws IOException {
+        Random random = new Random(18);
+        for (int document = 0; document < 40; document++) {
+            StringBuilder text = new StringBuilder();
+            JsonList expected = new JsonList();
+            for (int i = random.nextInt(30); i >= 0; i--) {
+                String record = "{\"n\": " + i + ", \"v\": " + randomValue(random, 3).replace('\n', ' ') + "}";
+                expected.add(new Json(record));
+                text.append(record).append(random.nextBoolean() ? "\n" : "\r\n");
+            }
+            if (random.nextBoolean()) {
+                text.setLength(text.length() - 1);
+            }
+            byte[] bytes = utf8(text.toString());
+            Path file = Files.createTempFile("jmson", ".jsonl");
+            try {
+                Files.write(file, bytes);
+                for (int chunkSize = 1; chunkSize <= bytes.length + 1; chunkSize += 1 + chunkSize / 4) {
+                    JsonParallelParser parser = new JsonParallelParser().chunkSize(chunkSize);
+                    assertEquals(expected, parser.parseLines(bytes));
+                    assertEquals(expected, parser.parseLines(file));
+                    List<Object> unordered = new JsonParallelParser().chunkSize(chunkSize).ordered(false)
+                            .streamLines(bytes).collect(Collectors.toList());
+                    assertEquals(sorted(expected), sorted(unordered));
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+}
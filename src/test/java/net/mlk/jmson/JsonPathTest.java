@@ -0,0 +1,110 @@
+package net.mlk.jmson;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * path has to select the same values from a tree and from raw json,
+ * missing keys, indexes and mismatched types select nothing
+ */
+public class JsonPathTest {
+    private static final String DOCUMENT = "{\"meta\":{\"items\":[{\"id\":1, \"tags\":[\"a\"]}, {\"id\":2, \"tags\":[]}, "
+            + "{\"name\":\"no id\"}, {\"id\":null}, 5], \"count\":4}, \"a/b\":\"slash\", \"m~n\":\"tilde\", "
+            + "\"with.dot\":{\"x\":true}, \"3\":\"key three\", \"list\":[[1, 2], [3], []]}";
+
+    /**
+     * @param path path
+     * @return matches of the tree, checked to be the same as matches of raw json and of the reader
+     */
+    private static List<Object> all(String path) {
+        JsonPath compiled = JsonPath.compile(path);
+        List<Object> tree = compiled.readAll(new Json(DOCUMENT));
+        assertEquals(String.valueOf(tree), String.valueOf(compiled.readAll(DOCUMENT)), path);
+        assertEquals(String.valueOf(tree), String.valueOf(compiled.readAll(new JsonReader(DOCUMENT))), path);
+        return tree;
+    }
+
+    /**
+     * @param path path
+     * @return first match of the tree, checked to be the same as first match of raw json and of the reader
+     */
+    private static Object first(String path) {
+        JsonPath compiled = JsonPath.compile(path);
+        Object tree = compiled.read(new Json(DOCUMENT));
+        assertEquals(String.valueOf(tree), String.valueOf(compiled.read(DOCUMENT)), path);
+        assertEquals(String.valueOf(tree), String.valueOf(compiled.read(new JsonReader(DOCUMENT))), path);
+        return tree;
+    }
+
+    public static void testDefinitePaths() {
+        assertEquals(2, first("/meta/items/1/id"));
+        assertEquals(2, first("$.meta.items[1].id"));
+        assertEquals(2, first("$['meta'].items[1]['id']"));
+        assertEquals(4, first("$.meta.count"));
+        assertEquals("slash", first("/a~1b"));
+        assertEquals("tilde", first("/m~0n"));
+        assertEquals(true, first("$['with.dot'].x"));
+        assertEquals("key three", first("/3"));
+        assertEquals(3, first("/list/1/0"));
+        assertEquals(new Json(DOCUMENT).toString(), first("").toString());
+        assertEquals(new Json(DOCUMENT).toString(), first("$").toString());
+    }
+
+    public static void testWildcards() {
+        assertEquals(Arrays.asList(1, 2, null), all("$.meta.items[*].id"));
+        assertEquals(1, first("$.meta.items[*].id"));
+        assertEquals(Arrays.asList(1, 2, 3), all("$.list[*][*]"));
+        assertEquals(Arrays.asList(1, 3), all("$.list[*][0]"));
+        assertEquals(Arrays.asList(1, 2, 3), all("$.list.*.*"));
+        assertEquals("[[\"a\"], []]", all("$.meta.items.*.tags").toString());
+        assertEquals(Collections.singletonList("a"), all("$.meta.items[*].tags[*]"));
+        assertEquals(Arrays.asList(true), all("$.*.x"));
+        assertEquals(5, all("$.meta.items[*]").size());
+    }
+
+    public static void testMissingPaths() {
+        for (String path : new String[] {"/missing", "/meta/missing/id", "/meta/items/9/id", "/meta/items/-1",
+                "/meta/items/01", "/meta/count/x", "/a~1b/0", "/meta/items/x", "$.meta.items['1']",
+                "$.list[3][0]", "$.list[2][0]", "$.meta.count[*]", "$.meta.items[*].missing"}) {
+            assertEquals(null, first(path), path);
+            assertEquals(Collections.emptyList(), all(path), path);
+        }
+        assertEquals(null, JsonPath.compile("/meta/items/0").read(new JsonList("[]")));
+        assertEquals(null, JsonPath.compile("$.a").read("[1, 2]"));
+        assertEquals(null, JsonPath.compile("$.a").read("5"));
+    }
+
+    public static void testNullValueIsMatched() {
+        assertEquals(Collections.singletonList(null), all("/meta/items/3/id"));
+        assertEquals(null, first("/meta/items/3/id"));
+    }
+
+    public static void testReaderContinuesAfterMatch() {
+        JsonPath path = JsonPath.compile("$.items[*].id");
+        JsonReader reader = new JsonReader("{\"items\":[{\"id\":1}, {\"id\":2}], \"after\":[1]}\n{\"items\":[]} {\"items\":[{\"id\":3}]}");
+        assertEquals(1, path.read(reader));
+        assertEquals(null, path.read(reader));
+        assertEquals(Collections.singletonList(3), path.readAll(reader));
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    public static void testRawReadStopsAtFirstMatch() {
+        assertEquals(1, JsonPath.compile("$.a").read("{\"a\":1, \"b\":"));
+        assertThrows(RuntimeException.class, () -> JsonPath.compile("$.a").readAll("{\"a\":1, \"b\":"));
+    }
+
+    public static void testInvalidPaths() {
+        assertThrows(NullPointerException.class, () -> JsonPath.compile(null));
+        for (String path : new String[] {"meta", "$meta", "$..a", "$.", "$[1", "$[x]", "$[-1]", "$['a]"}) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> JsonPath.compile(path));
+            assertTrue(e.getMessage().endsWith(path), e.getMessage());
+        }
+        assertEquals("$.a[*]", JsonPath.compile("$.a[*]").toString());
+    }
+
+}
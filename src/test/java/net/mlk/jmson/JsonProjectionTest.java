@@ -0,0 +1,34 @@
+package net.mlk.jmson;
+
+import java.nio.charset.StandardCharsets;
+
+import static net.mlk.jmson.Assert.assertEquals;
+
+public class JsonProjectionTest {
+    private static final String JSON = "{\"a\":{\"x\":1,\"y\":2,\"z\":3},\"b\":{\"x\":4,\"y\":5},\"c\":[{\"x\":6,\"y\":7}]}";
+
+    private static void assertProjection(String expected, String... paths) {
+        JsonProjection projection = JsonProjection.of(paths);
+        assertEquals(new Json(expected), Json.parse(JSON, projection));
+        assertEquals(new Json(expected), Json.parse(JSON.getBytes(StandardCharsets.UTF_8), projection));
+    }
+
+    public static void testLiteralPaths() {
+        assertProjection("{\"a\":{\"x\":1},\"b\":{\"y\":5}}", "a/x", "b/y");
+    }
+
+    public static void testWildcardIsMergedIntoLiteralKey() {
+        assertProjection("{\"a\":{\"x\":1,\"y\":2},\"b\":{\"y\":5},\"c\":[{\"y\":7}]}", "a/x", "*/y");
+        assertProjection("{\"a\":{\"x\":1,\"y\":2},\"b\":{\"y\":5},\"c\":[{\"y\":7}]}", "*/y", "a/x");
+    }
+
+    public static void testWholeValueWins() {
+        assertProjection("{\"a\":{\"x\":1,\"y\":2,\"z\":3},\"b\":{\"x\":4},\"c\":[{\"x\":6}]}", "a/x", "*/x", "a");
+        assertProjection("{\"a\":{\"x\":1,\"y\":2,\"z\":3},\"b\":{\"x\":4,\"y\":5},\"c\":[{\"x\":6,\"y\":7}]}", "a/x", "*");
+    }
+
+    public static void testNestedWildcard() {
+        assertProjection("{\"a\":{\"x\":1,\"y\":2,\"z\":3},\"b\":{\"x\":4,\"y\":5},\"c\":[{\"x\":6,\"y\":7}]}", "*/*", "a/x");
+    }
+
+}
@@ -0,0 +1,184 @@
+package net.mlk.jmson;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class JsonPublisherTest {
+    private static final String ARRAY = "[{\"a\":1},{\"a\":2},{\"a\":3}]";
+
+    /**
+     * records signals, requests initial count on subscribe and fails onNext if asked
+     */
+    private static final class Recorder implements Flow.Subscriber<Json> {
+        final List<Object> items = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        final long initial;
+        final int failAt;
+        Flow.Subscription subscription;
+        Error error;
+        int completed;
+
+        Recorder(long initial, int failAt) {
+            this.initial = initial;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(this.initial);
+        }
+
+        @Override
+        public void onNext(Json item) {
+            this.items.add(item.get("a"));
+            if (this.items.size() == this.failAt && this.error != null) {
+                throw this.error;
+            } else if (this.items.size() == this.failAt) {
+                throw new IllegalStateException("subscriber failed");
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed++;
+        }
+    }
+
+    /**
+     * reader remembering that it was closed
+     */
+    private static final class ClosingReader extends StringReader {
+        boolean closed;
+
+        ClosingReader(String s) {
+            super(s);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            super.close();
+        }
+    }
+
+    /**
+     * reader giving first part of the text, then failing with error
+     */
+    private static final class FailingReader extends Reader {
+        final String first;
+        final Error error;
+        boolean read;
+        boolean closed;
+
+        FailingReader(String first, Error error) {
+            this.first = first;
+            this.error = error;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (this.read) {
+                throw this.error;
+            }
+            this.read = true;
+            this.first.getChars(0, this.first.length(), buffer, off);
+            return this.first.length();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    private static JsonPublisher<Json> publisher(Reader in) {
+        return JsonPublisher.ofArray(new JsonReader(in)).executor(Runnable::run);
+    }
+
+    public static void testPublishesElementsByDemand() {
+        Recorder recorder = new Recorder(1, 0);
+        publisher(new StringReader(ARRAY)).subscribe(recorder);
+        assertEquals(List.of(1), recorder.items);
+        assertEquals(0, recorder.completed);
+        recorder.subscription.request(5);
+        assertEquals(List.of(1, 2, 3), recorder.items);
+        assertEquals(1, recorder.completed);
+        assertEquals(List.of(), recorder.errors);
+    }
+
+    public static void testParseErrorIsSentToOnError() {
+        ClosingReader in = new ClosingReader("[{\"a\":1},{\"a\" 2}]");
+        Recorder recorder = new Recorder(Long.MAX_VALUE, 0);
+        publisher(in).subscribe(recorder);
+        assertEquals(List.of(1), recorder.items);
+        assertEquals(1, recorder.errors.size());
+        assertEquals(0, recorder.completed);
+        assertTrue(in.closed, "reader is closed");
+    }
+
+    public static void testSubscriberErrorCancelsSilently() {
+        ClosingReader in = new ClosingReader(ARRAY);
+        Recorder recorder = new Recorder(Long.MAX_VALUE, 2);
+        publisher(in).subscribe(recorder);
+        assertEquals(List.of(1, 2), recorder.items);
+        assertEquals(List.of(), recorder.errors);
+        assertEquals(0, recorder.completed);
+        assertTrue(in.closed, "reader is closed");
+        recorder.subscription.request(1);
+        assertEquals(List.of(1, 2), recorder.items);
+    }
+
+    public static void testErrorOfReaderIsSentToOnError() {
+        StackOverflowError error = new StackOverflowError();
+        FailingReader in = new FailingReader("[{\"a\":1},{\"a\"", error);
+        Recorder recorder = new Recorder(Long.MAX_VALUE, 0);
+        publisher(in).subscribe(recorder);
+        assertEquals(List.of(1), recorder.items);
+        assertEquals(List.of(error), recorder.errors);
+        assertEquals(0, recorder.completed);
+        assertTrue(in.closed, "reader is closed");
+    }
+
+    public static void testSubscriberErrorOfAnyKindCancelsSilently() {
+        ClosingReader in = new ClosingReader(ARRAY);
+        Recorder recorder = new Recorder(Long.MAX_VALUE, 1);
+        recorder.error = new StackOverflowError();
+        publisher(in).subscribe(recorder);
+        assertEquals(List.of(1), recorder.items);
+        assertEquals(List.of(), recorder.errors);
+        assertEquals(0, recorder.completed);
+        assertTrue(in.closed, "reader is closed");
+        recorder.subscription.request(1);
+        assertEquals(List.of(1), recorder.items);
+    }
+
+    public static void testInvalidRequestIsSentToOnError() {
+        Recorder recorder = new Recorder(0, 0);
+        publisher(new StringReader(ARRAY)).subscribe(recorder);
+        assertEquals(List.of(), recorder.items);
+        assertEquals(1, recorder.errors.size());
+        assertEquals(IllegalArgumentException.class, recorder.errors.get(0).getClass());
+    }
+
+    public static void testSecondSubscriberIsRejected() {
+        JsonPublisher<Json> publisher = publisher(new StringReader(ARRAY));
+        publisher.subscribe(new Recorder(1, 0));
+        Recorder second = new Recorder(1, 0);
+        publisher.subscribe(second);
+        assertEquals(List.of(), second.items);
+        assertEquals(IllegalStateException.class, second.errors.get(0).getClass());
+    }
+
+}
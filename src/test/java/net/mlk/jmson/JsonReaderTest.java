@@ -0,0 +1,164 @@
+package net.mlk.jmson;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * reader fills its buffer from the stream in parts, every token has to be read the same
+ * wherever buffer ends and however many chars one read returns
+ */
+public class JsonReaderTest {
+    private static final String DOCUMENT = "{\"id\":1234567890123, \"name\":\"a \\\"quoted\\\" \\u00e9\\n name\", "
+            + "\"skipped\":{\"s\":\"x\\\\\\\"y\", \"l\":[1,2,{}]}, \"price\":-12.5e-3, \"flags\":[true,false,null], "
+            + "\"empty\":{}, \"list\":[], \"long key name longer than buffer\":\"\\ud83d\\ude00\", \"last\":0}";
+
+    /**
+     * reader returning at most given count of chars on every read
+     */
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int pos;
+
+        ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (this.pos == this.text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(len, this.chunk), this.text.length() - this.pos);
+            this.text.getChars(this.pos, this.pos + count, buffer, off);
+            this.pos += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * read all tokens of the value, names starting with "skip" are skipped
+     * @param reader reader
+     * @param out tokens
+     */
+    private static void tokens(JsonReader reader, StringBuilder out) {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                out.append('{');
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    out.append(name).append(':');
+                    if (name.startsWith("skip")) {
+                        reader.skipValue();
+                        out.append("skipped ");
+                    } else {
+                        tokens(reader, out);
+                    }
+                }
+                reader.endObject();
+                out.append('}');
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                out.append('[');
+                while (reader.hasNext()) {
+                    tokens(reader, out);
+                }
+                reader.endArray();
+                out.append(']');
+                break;
+            case STRING:
+                out.append('<').append(reader.nextString()).append("> ");
+                break;
+            case NUMBER:
+                out.append(reader.nextNumber()).append(' ');
+                break;
+            case BOOLEAN:
+                out.append(reader.nextBoolean()).append(' ');
+                break;
+            case NULL:
+                reader.nextNull();
+                out.append("null ");
+                break;
+            default:
+                throw new AssertionError("Unexpected " + token);
+        }
+    }
+
+    private static String tokens(JsonReader reader) {
+        StringBuilder out = new StringBuilder();
+        tokens(reader, out);
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+        return out.toString();
+    }
+
+    public static void testTokensSplitAtEveryBufferBoundary() {
+        String expected = tokens(new JsonReader(DOCUMENT));
+        assertTrue(expected.contains("<a \"quoted\" \u00e9\n name>"), expected);
+        assertTrue(expected.contains("skipped:skipped "), expected);
+        assertTrue(expected.contains("<\ud83d\ude00>"), expected);
+        for (int size = 8; size <= 40; size++) {
+            for (int chunk = 1; chunk <= 9; chunk += 4) {
+                String actual = tokens(new JsonReader(new ChunkedReader(DOCUMENT, chunk), size));
+                assertEquals(expected, actual, "buffer " + size + ", chunk " + chunk);
+            }
+        }
+    }
+
+    public static void testTreeSplitAtEveryBufferBoundary() {
+        String expected = new Json(DOCUMENT).toString();
+        for (int size = 8; size <= 40; size++) {
+            assertEquals(expected, new JsonReader(new ChunkedReader(DOCUMENT, 3), size).readJson().toString(), "buffer " + size);
+        }
+    }
+
+    public static void testLiteralLongerThanBuffer() {
+        String digits = "123456789012345678901234567890";
+        JsonReader reader = new JsonReader(new StringReader("[" + digits + ", -" + digits + "]"), 8);
+        reader.beginArray();
+        assertEquals(new BigInteger(digits), reader.nextNumber());
+        assertEquals(new BigInteger("-" + digits), reader.nextNumber());
+        reader.endArray();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    public static void testErrorPositionDoesNotDependOnBuffer() {
+        String broken = "{\"a\":[1, 2, 3], \"b\":\"text\" \"c\":1}";
+        String expected = assertThrows(RuntimeException.class, () -> new JsonReader(broken).readJson()).getMessage();
+        assertEquals("Expected ',' or '}' at 28", expected);
+        for (int size = 8; size <= 16; size++) {
+            JsonReader reader = new JsonReader(new ChunkedReader(broken, 5), size);
+            assertEquals(expected, assertThrows(RuntimeException.class, reader::readJson).getMessage(), "buffer " + size);
+        }
+    }
+
+    public static void testUnterminatedValues() {
+        for (String json : new String[] {"{\"a\":\"abc", "{\"a\":\"\\u00", "[\"skip\\", "{\"a\""}) {
+            for (int size = 8; size <= 12; size++) {
+                JsonReader reader = new JsonReader(new ChunkedReader(json, 2), size);
+                assertThrows(RuntimeException.class, () -> tokens(reader));
+            }
+        }
+    }
+
+    public static void testSeveralRootValues() {
+        JsonReader reader = new JsonReader(new ChunkedReader("{\"a\":1}\n{\"a\":2} [3]", 2), 8);
+        assertEquals(1, reader.readJson().get("a"));
+        assertEquals(2, reader.readJson().get("a"));
+        assertEquals("[3]", reader.readList().toString());
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+}
@@ -0,0 +1,97 @@
+package net.mlk.jmson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class JsonWriterTest {
+
+    private static String write(boolean compact, Consumer<JsonWriter> code) {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out).compact(compact);
+        code.accept(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    public static void testEscapes() {
+        StringBuilder controls = new StringBuilder();
+        for (char c = 0; c < ' '; c++) {
+            controls.append(c);
+        }
+        String written = write(false, w -> w.value(controls + "\"\\/ \u00e9 \u4e2d \ud83d\ude00"));
+        assertEquals("\"\\u0000\\u0001\\u0002\\u0003\\u0004\\u0005\\u0006\\u0007\\b\\t\\n\\u000b\\f\\r"
+                + "\\u000e\\u000f\\u0010\\u0011\\u0012\\u0013\\u0014\\u0015\\u0016\\u0017\\u0018\\u0019"
+                + "\\u001a\\u001b\\u001c\\u001d\\u001e\\u001f\\\"\\\\/ \u00e9 \u4e2d \ud83d\ude00\"", written);
+        assertEquals(controls + "\"\\/ \u00e9 \u4e2d \ud83d\ude00", new JsonList("[" + written + "]").get(0));
+        assertEquals("{\"a\\\"\\nb\":1}", write(false, w -> w.beginObject().name("a\"\nb").value(1).endObject()));
+    }
+
+    public static void testEscapesAcrossBuffer() {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 20000) {
+            builder.append("ab\"\n\u0001\u00e9\ud83d\ude00");
+        }
+        String value = builder.toString();
+        Json json = new Json();
+        json.put("v", value);
+        StringWriter out = new StringWriter();
+        json.writeTo(out);
+        assertTrue(out.toString().equals(json.toString()), "writeTo and toString differ");
+        assertTrue(value.equals(new Json(out.toString()).getString("v")), "value changed by round trip");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        json.writeTo(bytes);
+        assertTrue(value.equals(Json.parse(bytes.toByteArray()).getString("v")), "value changed by utf-8 round trip");
+    }
+
+    public static void testSeparators() {
+        Consumer<JsonWriter> code = w -> w.beginObject().name("a").value(1).name("b").beginArray()
+                .value("x").value(true).nullValue().beginObject().endObject().beginArray().endArray().endArray()
+                .name("c").value(2.5).endObject();
+        assertEquals("{\"a\":1, \"b\":[\"x\", true, null, {}, []], \"c\":2.5}", write(false, code));
+        assertEquals("{\"a\":1,\"b\":[\"x\",true,null,{},[]],\"c\":2.5}", write(true, code));
+        assertEquals("[1, 2]\n[3]", write(false, w -> w.beginArray().value(1).value(2).endArray().beginArray().value(3).endArray()));
+    }
+
+    public static void testNestingErrors() {
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.name("a")));
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.beginObject().value(1)));
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.beginObject().name("a").endObject()));
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.beginArray().endObject()));
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.beginObject().endArray()));
+        assertThrows(IllegalStateException.class, () -> write(false, w -> w.beginArray().name("a")));
+    }
+
+    public static void testOutputStreamIsUtf8() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(bytes)) {
+            writer.beginArray().value("\u00e9\u4e2d\ud83d\ude00").endArray();
+        }
+        assertEquals("[\"\u00e9\u4e2d\ud83d\ude00\"]", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    public static void testNumberLongerThanBuffer() {
+        BigInteger big = BigInteger.TEN.pow(9000);
+        Json json = new Json();
+        json.put("a", "x");
+        json.put("n", big);
+        String expected = "{\"a\":\"x\", \"n\":" + big + "}";
+
+        StringWriter writer = new StringWriter();
+        json.writeTo(writer);
+        assertTrue(expected.equals(writer.toString()), "writeTo(Writer)");
+        assertTrue(expected.equals(json.toString()), "toString");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        json.writeTo(bytes);
+        assertTrue(expected.equals(new String(bytes.toByteArray(), StandardCharsets.UTF_8)), "writeTo(OutputStream)");
+        assertEquals(big, new Json(expected).get("n"));
+    }
+
+}
@@ -0,0 +1,181 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertSame;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * cache must never change the parsed keys: colliding keys replace each other,
+ * non-ascii, escaped and unquoted keys go through the string fallback and still are shared
+ */
+public class KeyCacheTest {
+    // "Aa" and "BB" have the same String.hashCode
+    private static final String COLLIDING = "{\"Aa\":1, \"BB\":2, \"Aa\":3, \"AaAa\":4, \"BBBB\":5, \"AaBB\":6}";
+    private static final String NON_ASCII = "{\"cl\u00e9\":1, \"\u4e2d\u6587\":2, \"\ud83d\ude00\":3, \"a\\u0062\":4, unquoted:5, \"ab\":6}";
+
+    private interface Parser {
+        Json parse(String json, KeyCache cache);
+    }
+
+    private static final Parser[] PARSERS = {
+            (json, cache) -> new JsonReader(json).keyCache(cache).readJson(),
+            (json, cache) -> bytes(json, cache, false),
+            (json, cache) -> bytes(json, cache, true),
+            (json, cache) -> {
+                AsyncJsonParser parser = new AsyncJsonParser().keyCache(cache);
+                for (byte b : json.getBytes(StandardCharsets.UTF_8)) {
+                    parser.feed(new byte[] {b});
+                }
+                return (Json) parser.nextValue();
+            }
+    };
+
+    /**
+     * @param json json
+     * @param cache cache
+     * @param direct if true bytes are given by direct buffer without accessible array
+     * @return json parsed by the byte parser
+     */
+    private static Json bytes(String json, KeyCache cache, boolean direct) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (direct) {
+            buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+            buffer.flip();
+        }
+        return new Utf8Parser(buffer, true).keyCache(cache).parseDocument(new Json());
+    }
+
+    private static List<String> keys(Json json) {
+        return new ArrayList<>(json.keySet());
+    }
+
+    /**
+     * @param first keys of the first document
+     * @param second keys of the second document
+     */
+    private static void assertSameKeys(List<String> first, List<String> second) {
+        assertEquals(first, second);
+        for (int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+    }
+
+    public static void testCollidingKeys() {
+        String expected = new Json(COLLIDING).toString();
+        for (Parser parser : PARSERS) {
+            for (int capacity : new int[] {1, 2, 4096}) {
+                KeyCache cache = new KeyCache(capacity);
+                assertEquals(expected, parser.parse(COLLIDING, cache).toString(), "capacity " + capacity);
+                assertEquals(expected, parser.parse(COLLIDING, cache).toString(), "capacity " + capacity);
+                assertEquals(12L, cache.hits() + cache.misses());
+            }
+            KeyCache one = new KeyCache(1);
+            Json first = parser.parse("{\"Aa\":1}", one);
+            Json second = parser.parse("{\"BB\":1}", one);
+            Json third = parser.parse("{\"Aa\":1}", one);
+            assertEquals("[Aa]", keys(third).toString());
+            assertEquals("[BB]", keys(second).toString());
+            assertTrue(keys(first).get(0) != keys(third).get(0), "replaced key is returned");
+            assertEquals(0L, one.hits());
+            assertEquals(3L, one.misses());
+        }
+    }
+
+    public static void testRepeatedKeysAreShared() {
+        String json = "{\"id\":1, \"name\":\"a\", \"nested\":{\"id\":2}}";
+        for (Parser parser : PARSERS) {
+            KeyCache cache = new KeyCache(64);
+            Json first = parser.parse(json, cache);
+            Json second = parser.parse(json, cache);
+            assertSameKeys(keys(first), keys(second));
+            assertSame(keys(first).get(0), keys(second.getJson("nested")).get(0));
+            assertEquals(3L, cache.misses());
+            assertEquals(5L, cache.hits());
+        }
+    }
+
+    public static void testNonAsciiEscapedAndUnquotedKeys() {
+        String expected = new Json(NON_ASCII).toString();
+        assertTrue(expected.contains("\"ab\":6"), expected);
+        for (Parser parser : PARSERS) {
+            // "cl\u00e9" and "ab" collide in 64 slots
+            KeyCache cache = new KeyCache(4096);
+            Json first = parser.parse(NON_ASCII, cache);
+            Json second = parser.parse(NON_ASCII, cache);
+            assertEquals(expected, first.toString());
+            assertSameKeys(keys(first), keys(second));
+            assertEquals(List.of("cl\u00e9", "\u4e2d\u6587", "\ud83d\ude00", "ab", "unquoted"), keys(second));
+            assertSame(keys(parser.parse("{\"ab\":1}", cache)).get(0), keys(first).get(3));
+        }
+    }
+
+    public static void testLongKeysAreNotCached() {
+        String key = "k".repeat(65);
+        String json = "{\"" + key + "\":1, \"\u00e9" + key + "\":2}";
+        for (Parser parser : PARSERS) {
+            KeyCache cache = new KeyCache(64);
+            Json first = parser.parse(json, cache);
+            Json second = parser.parse(json, cache);
+            assertEquals(keys(first), keys(second));
+            assertTrue(keys(first).get(0) != keys(second).get(0), "long key is cached");
+            assertEquals(0L, cache.hits() + cache.misses());
+        }
+        KeyCache cache = new KeyCache(64);
+        String exact = "k".repeat(64);
+        new JsonReader("{\"" + exact + "\":1}").keyCache(cache).readJson();
+        new JsonReader("{\"" + exact + "\":1}").keyCache(cache).readJson();
+        assertEquals(1L, cache.hits());
+    }
+
+    public static void testClearAndCapacity() {
+        KeyCache cache = new KeyCache(3);
+        new JsonReader("{\"a\":1}").keyCache(cache).readJson();
+        new JsonReader("{\"a\":1}").keyCache(cache).readJson();
+        assertEquals(1L, cache.hits());
+        cache.clear();
+        assertEquals(0L, cache.hits() + cache.misses());
+        new JsonReader("{\"a\":1}").keyCache(cache).readJson();
+        assertEquals(1L, cache.misses());
+        assertThrows(IllegalArgumentException.class, () -> new KeyCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new KeyCache((1 << 30) + 1));
+        assertSame(KeyCache.shared(), KeyCache.shared());
+    }
+
+    public static void testConcurrentCache() throws Exception {
+        KeyCache cache = KeyCache.concurrent(16);
+        int threads = 4;
+        int documents = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < documents; i++) {
+                        Json json = new JsonReader(i % 2 == 0 ? COLLIDING : NON_ASCII).keyCache(cache).readJson();
+                        // both documents repeat one key
+                        assertEquals(5, json.size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals((long) threads * documents * 6, cache.hits() + cache.misses());
+    }
+
+}
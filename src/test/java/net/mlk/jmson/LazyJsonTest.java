@@ -0,0 +1,34 @@
+package net.mlk.jmson;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static net.mlk.jmson.Assert.assertEquals;
+
+public class LazyJsonTest {
+    private static final String JSON = "{\"a\":1,\"b\":{\"c\":[1,2,{\"d\":\"x\"}]},\"e\":\"y\"}";
+
+    public static void testSerializedAsOrdinaryJson() throws IOException, ClassNotFoundException {
+        Json lazy = Json.lazy(JSON.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(lazy);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object copy = in.readObject();
+            assertEquals(Json.class, copy.getClass());
+            assertEquals(new Json(JSON), copy);
+        }
+    }
+
+    public static void testUntouchedValuesAreParsedOnAccess() {
+        Json lazy = Json.lazy(JSON.getBytes(StandardCharsets.UTF_8));
+        assertEquals(new Json(JSON), lazy);
+        assertEquals("x", lazy.getJson("b").getList("c").getJson(2).getString("d"));
+    }
+
+}
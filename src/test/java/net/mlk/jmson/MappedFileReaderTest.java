@@ -0,0 +1,97 @@
+package net.mlk.jmson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * JsonReader(Path) and files too large for Utf8Parser are decoded from mapped windows straight
+ * into the reader buffer, multi-byte sequences and surrogate pairs must survive every window and buffer split
+ */
+public class MappedFileReaderTest {
+    // 1, 2, 3 and 4 byte utf-8 sequences
+    private static final String TEXT = "{\"ascii\":\"abc\", \"latin\":\"\u00e9\u00e8\", \"cjk\":\"\u4e2d\u6587\", "
+            + "\"emoji\":\"\ud83d\ude00\ud83c\udf89\", \"list\":[1, 2.5, true, null]}";
+
+    private static Path write(String text) throws IOException {
+        Path path = Files.createTempFile("jmson", ".json");
+        path.toFile().deleteOnExit();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * @param reader reader
+     * @param length count of chars asked by every read
+     * @return all chars of the reader
+     */
+    private static String readAll(Reader reader, int length) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[length];
+        int count;
+        while ((count = reader.read(buffer, 0, length)) != -1) {
+            builder.append(buffer, 0, count);
+        }
+        return builder.toString();
+    }
+
+    public static void testJsonAndListFromFile() throws IOException {
+        Path path = write(TEXT);
+        String expected = new Json(TEXT).toString();
+        try (JsonReader reader = new JsonReader(path)) {
+            assertEquals(expected, reader.readJson().toString());
+        }
+        assertEquals(expected, new Json(path).toString());
+        assertEquals(expected, new Json(path.toFile()).toString());
+        assertEquals("\ud83d\ude00\ud83c\udf89", new Json(path).getString("emoji"));
+
+        Path list = write("[" + TEXT + ", \"\u4e2d\"]");
+        assertEquals(new JsonList("[" + TEXT + ", \"\u4e2d\"]").toString(), new JsonList(list).toString());
+        assertEquals(2, new JsonList(list.toFile()).size());
+    }
+
+    public static void testSequencesSplitByWindows() throws IOException {
+        Path path = write(TEXT);
+        for (long window = 4; window <= 16; window++) {
+            for (int length = 1; length <= 5; length++) {
+                try (Reader reader = new MappedFileReader(path, window)) {
+                    assertEquals(TEXT, readAll(reader, length), "window " + window + ", read " + length);
+                }
+            }
+        }
+    }
+
+    public static void testSurrogatePairReadByOneChar() throws IOException {
+        Path path = write("\ud83d\ude00x");
+        try (Reader reader = new MappedFileReader(path)) {
+            char[] buffer = new char[1];
+            StringBuilder builder = new StringBuilder();
+            while (reader.read(buffer, 0, 1) == 1) {
+                builder.append(buffer[0]);
+            }
+            assertEquals("\ud83d\ude00x", builder.toString());
+        }
+    }
+
+    public static void testEmptyAndMalformedFiles() throws IOException {
+        try (Reader reader = new MappedFileReader(write(""))) {
+            assertEquals(-1, reader.read(new char[8], 0, 8));
+        }
+        Path malformed = Files.createTempFile("jmson", ".json");
+        malformed.toFile().deleteOnExit();
+        Files.write(malformed, new byte[] {'{', '"', 'a', '"', ':', '"', (byte) 0xc3, '"', '}'});
+        try (JsonReader reader = new JsonReader(malformed)) {
+            RuntimeException ex = assertThrows(RuntimeException.class, reader::readJson);
+            assertTrue(ex.getCause() instanceof IOException, String.valueOf(ex.getCause()));
+        }
+        assertThrows(RuntimeException.class, () -> new Json(new File(malformed + ".missing")));
+    }
+
+}
@@ -0,0 +1,142 @@
+package net.mlk.jmson;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class NumericJsonListTest {
+
+    public static void testParsedArrayKeepsElementTypes() {
+        String text = "{\"a\":[1,2,3],\"b\":[1,5000000000,-3],\"c\":[1,2.5,0.1234567,1e300],\"m\":[1,\"q\",null]}";
+        Json plain = new JsonReader(text).readJson();
+        Json compact = new JsonReader(text).compact(true).readJson();
+        assertEquals(plain, compact);
+        assertEquals(NumericJsonList.class, compact.get("c").getClass());
+        for (String key : plain.keySet()) {
+            JsonList expected = plain.getList(key);
+            JsonList actual = compact.getList(key);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(type(expected.get(i)), type(actual.get(i)));
+            }
+        }
+    }
+
+    public static void testPrimitiveAccessors() {
+        JsonList list = new JsonReader("[1,2,3]").compact(true).readList();
+        assertTrue(Arrays.equals(new int[] {1, 2, 3}, list.toIntArray()), "ints");
+        assertTrue(Arrays.equals(new long[] {1, 2, 3}, list.toLongArray()), "longs");
+        assertEquals(6.0, list.doubleStream().sum());
+        list.add(1.5f);
+        assertEquals(1.5f, list.getFloat(3));
+        assertEquals(Float.class, list.get(3).getClass());
+        list.add("x");
+        assertEquals("x", list.get(4));
+        assertEquals(3L, list.getLong(2));
+    }
+
+    /**
+     * random operations give the same elements, accessor results and exceptions as ordinary list
+     */
+    public static void testRandomOperationsMatchOrdinaryList() {
+        Random random = new Random(1);
+        for (int iteration = 0; iteration < 5000; iteration++) {
+            JsonList compact = JsonList.compact();
+            JsonList plain = new JsonList();
+            int kind = random.nextInt(4);
+            int ops = random.nextInt(40);
+            for (int k = 0; k < ops; k++) {
+                int op = random.nextInt(20);
+                Object value = kind == 0 ? (Object) random.nextInt(100)
+                        : kind == 1 ? (Object) (random.nextBoolean() ? random.nextInt() : random.nextLong()) : randomValue(random);
+                if (op < 12) {
+                    compact.add(value);
+                    plain.add(value);
+                } else if (op < 15 && !plain.isEmpty()) {
+                    int index = random.nextInt(plain.size());
+                    assertEquals(plain.set(index, value), compact.set(index, value));
+                } else if (op == 15 && !plain.isEmpty()) {
+                    int index = random.nextInt(plain.size());
+                    assertEquals(plain.remove(index), compact.remove(index));
+                } else if (op == 16) {
+                    Iterator<Object> compactIterator = compact.iterator();
+                    Iterator<Object> plainIterator = plain.iterator();
+                    while (plainIterator.hasNext()) {
+                        Object element = plainIterator.next();
+                        assertEquals(element, compactIterator.next());
+                        if (element instanceof Integer && (Integer) element % 3 == 0) {
+                            plainIterator.remove();
+                            compactIterator.remove();
+                        }
+                    }
+                } else if (op == 17 && kind == 0) {
+                    compact.sort(null);
+                    plain.sort(null);
+                } else if (op == 18) {
+                    compact.add(compact.size(), value);
+                    plain.add(plain.size(), value);
+                } else if (op == 19 && random.nextInt(10) == 0) {
+                    compact.clear();
+                    plain.clear();
+                }
+            }
+            assertEquals(plain, compact);
+            assertTrue(compact.equals(plain) && plain.hashCode() == compact.hashCode(), "equals and hash code");
+            assertEquals(plain.toString(), compact.toString());
+            assertTrue(Arrays.equals(plain.toArray(), compact.toArray()), "toArray");
+            assertEquals(plain, compact.stream().collect(Collectors.toList()));
+            assertEquals(plain, compact.clone());
+            for (int i = 0; i < plain.size(); i++) {
+                assertEquals(type(plain.get(i)), type(compact.get(i)));
+                final int index = i;
+                assertEquals(result(() -> plain.getLong(index)), result(() -> compact.getLong(index)));
+                assertEquals(result(() -> plain.getDouble(index)), result(() -> compact.getDouble(index)));
+                assertEquals(result(() -> plain.getFloat(index)), result(() -> compact.getFloat(index)));
+            }
+            assertEquals(result(() -> Arrays.toString(plain.toLongArray())), result(() -> Arrays.toString(compact.toLongArray())));
+            assertEquals(result(() -> Arrays.toString(plain.toIntArray())), result(() -> Arrays.toString(compact.toIntArray())));
+            assertEquals(result(() -> Arrays.toString(plain.toDoubleArray())), result(() -> Arrays.toString(compact.toDoubleArray())));
+            assertEquals(result(() -> plain.doubleStream().sum()), result(() -> compact.doubleStream().sum()));
+        }
+    }
+
+    private static Object randomValue(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+            case 1:
+            case 2:
+                return random.nextInt(1000) - 500;
+            case 3:
+                return random.nextLong();
+            case 4:
+                return random.nextFloat();
+            case 5:
+                return random.nextDouble();
+            case 6:
+                return random.nextInt(50) == 0 ? (Object) "s" : (Object) (random.nextInt(1000) + (1L << 40));
+            default:
+                return random.nextInt(30) == 0 ? null : (Object) ((1L << 54) + random.nextInt(10));
+        }
+    }
+
+    private static Class<?> type(Object value) {
+        return value != null ? value.getClass() : null;
+    }
+
+    /**
+     * @param supplier accessor
+     * @return accessor value or class of thrown exception
+     */
+    private static Object result(Supplier<Object> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException ex) {
+            return ex.getClass();
+        }
+    }
+
+}
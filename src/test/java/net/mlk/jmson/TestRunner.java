@@ -0,0 +1,63 @@
+package net.mlk.jmson;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * runs public static void test* methods of every *Test class of the test classes directory,
+ * exits with status 1 if any of them throws. directory of other module can be passed as argument
+ */
+public final class TestRunner {
+
+    private TestRunner() {
+    }
+
+    public static void main(String[] args) throws IOException, URISyntaxException, ClassNotFoundException {
+        Path root = args.length > 0 ? Paths.get(args[0])
+                : Paths.get(TestRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> classes;
+        try (Stream<Path> files = Files.walk(root)) {
+            classes = files.map(root::relativize).map(Path::toString)
+                    .filter(name -> name.endsWith("Test.class"))
+                    .map(name -> name.substring(0, name.length() - 6).replace(root.getFileSystem().getSeparator(), "."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        int passed = 0;
+        List<String> failed = new ArrayList<>();
+        for (String className : classes) {
+            for (Method method : Class.forName(className).getDeclaredMethods()) {
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || !Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+                    continue;
+                }
+                String name = className + "." + method.getName();
+                try {
+                    method.invoke(null);
+                    passed++;
+                } catch (InvocationTargetException ex) {
+                    failed.add(name);
+                    System.err.println("FAILED " + name);
+                    ex.getCause().printStackTrace();
+                } catch (IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failed.size() + " failed");
+        if (!failed.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package net.mlk.jmson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * bytes are tokenized without decoding to string first,
+ * result must be the same as of string parsing for every way bytes can be given
+ */
+public class Utf8ParserTest {
+    private static final String OBJECT = "{\"ascii\":\"abc\", \"cl\u00e9\":\"\u00e9\u00e8 \u4e2d\u6587 \ud83d\ude00\", "
+            + "\"escaped\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t \\u00e9 \\ud83d\\ude00\", \"int\":-42, \"long\":12345678901234, "
+            + "\"big\":123456789012345678901234567890, \"float\":1.5, \"exp\":-2.5E-3, \"t\":true, \"f\":false, \"n\":null, "
+            + "\"nested\":{\"list\":[1, [2, {}], \"x\", []]}}";
+    private static final String LIST = "[1, \"\u4e2d\", {\"a\":[true]}, null, 2.5]";
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void testBytesParseLikeString() {
+        String expected = new Json(OBJECT).toString();
+        assertEquals(expected, Json.parse(utf8(OBJECT)).toString());
+        assertEquals(new Json(OBJECT, false).toString(), Json.parse(utf8(OBJECT), 0, utf8(OBJECT).length, false).toString());
+        assertEquals("\"\\/\b\f\n\r\t \u00e9 \ud83d\ude00", Json.parse(utf8(OBJECT)).getString("escaped"));
+        assertEquals("\u00e9\u00e8 \u4e2d\u6587 \ud83d\ude00", Json.parse(utf8(OBJECT)).getString("cl\u00e9"));
+        assertEquals(new JsonList(LIST).toString(), JsonList.parse(utf8(LIST)).toString());
+    }
+
+    public static void testOffsetAndLength() {
+        byte[] object = utf8(OBJECT);
+        byte[] padded = new byte[object.length + 10];
+        System.arraycopy(object, 0, padded, 3, object.length);
+        padded[0] = '}';
+        padded[padded.length - 1] = '{';
+        assertEquals(new Json(OBJECT).toString(), Json.parse(padded, 3, object.length).toString());
+        assertEquals(new JsonList(LIST).toString(), JsonList.parse(utf8("xx" + LIST + "yy"), 2, utf8(LIST).length).toString());
+    }
+
+    public static void testByteBuffers() {
+        byte[] object = utf8(OBJECT);
+        String expected = new Json(OBJECT).toString();
+
+        ByteBuffer heap = ByteBuffer.allocate(object.length + 8);
+        heap.position(5);
+        heap.put(object);
+        heap.flip().position(5);
+        assertEquals(expected, Json.parse(heap).toString());
+        assertEquals(5, heap.position());
+
+        ByteBuffer slice = heap.duplicate().position(5).slice();
+        assertEquals(expected, Json.parse(slice).toString());
+        assertEquals(expected, Json.parse(slice.asReadOnlyBuffer()).toString());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(object.length);
+        direct.put(object).flip();
+        assertEquals(expected, Json.parse(direct).toString());
+        assertEquals(0, direct.position());
+
+        ByteBuffer list = ByteBuffer.allocateDirect(utf8(LIST).length).put(utf8(LIST)).flip();
+        assertEquals(new JsonList(LIST).toString(), JsonList.parse(list).toString());
+    }
+
+    public static void testByteOrderMarkIsSkipped() {
+        byte[] object = utf8("\ufeff" + "{\"a\":1}");
+        assertEquals(3, object.length - utf8("{\"a\":1}").length);
+        assertEquals(1, Json.parse(object).get("a"));
+        assertEquals("[1]", JsonList.parse(utf8("\ufeff[1]")).toString());
+    }
+
+    public static void testEveryTruncationFails() {
+        byte[] object = utf8(OBJECT);
+        for (int length = 0; length < object.length; length++) {
+            int end = length;
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> Json.parse(object, 0, end));
+            assertEquals(RuntimeException.class, ex.getClass(), "length " + length + ": " + ex);
+        }
+        assertThrows(RuntimeException.class, () -> Json.parse(utf8("{\"a\":1} x")));
+        assertThrows(RuntimeException.class, () -> JsonList.parse(utf8("{\"a\":1}")));
+        assertTrue(Json.parse(utf8(" {} ")).isEmpty(), "whitespace around root");
+    }
+
+}
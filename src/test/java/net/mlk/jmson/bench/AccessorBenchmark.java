@@ -0,0 +1,104 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.utils.CodecHooks;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+/**
+ * instance creation and primitive field writes of ClassCodec against the reflective path
+ * it replaced: Constructor.newInstance and Field.setInt/setLong/setDouble/setBoolean.
+ * fields of Item are final, so generated codec leaves them to the method handle accessors,
+ * Plain measures the same writes through codec generated at runtime if it is enabled.
+ * gradle benchmark -Pbench=AccessorBenchmark -Djmson.generateCodecs=true
+ */
+public final class AccessorBenchmark {
+    private static final int INSTANCES = 1_000_000;
+
+    @SuppressWarnings("unused")
+    public static class Item implements JsonConvertible {
+        private final int id = 0;
+        private final long count = 0;
+        private final double price = 0;
+        private final boolean active = false;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Plain implements JsonConvertible {
+        private int id;
+        private long count;
+        private double price;
+        private boolean active;
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Constructor<Item> constructor = Item.class.getDeclaredConstructor();
+        Field[] fields = new Field[4];
+        String[] names = {"id", "count", "price", "active"};
+        for (int i = 0; i < names.length; i++) {
+            fields[i] = Item.class.getDeclaredField(names[i]);
+            fields[i].setAccessible(true);
+        }
+        Supplier<Object> factory = CodecHooks.factory(Item.class);
+
+        // created instances are kept in a small ring, so they escape but don't pile up in old generation
+        Object[] ring = new Object[1024];
+        Bench.run("reflection newInstance", INSTANCES, () -> {
+            try {
+                for (int i = 0; i < INSTANCES; i++) {
+                    ring[i & 1023] = constructor.newInstance();
+                }
+            } catch (ReflectiveOperationException ex) {
+                throw new RuntimeException(ex);
+            }
+            return ring.length;
+        });
+        Bench.run("lambda factory", INSTANCES, () -> {
+            for (int i = 0; i < INSTANCES; i++) {
+                ring[i & 1023] = factory.get();
+            }
+            return ring.length;
+        });
+
+        Object[] items = new Object[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            items[i] = new Item();
+        }
+        Object[] plains = new Object[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            plains[i] = CodecHooks.newInstance(Plain.class);
+        }
+        long writes = INSTANCES * 4L;
+        Bench.run("reflection Field.setInt/setLong/...", writes, () -> {
+            try {
+                for (int i = 0; i < INSTANCES; i++) {
+                    fields[0].setInt(items[i], i);
+                    fields[1].setLong(items[i], i);
+                    fields[2].setDouble(items[i], i);
+                    fields[3].setBoolean(items[i], true);
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+            return fields[0].hashCode();
+        });
+        Bench.run("reflection Field.set (boxed)", writes, () -> {
+            try {
+                for (int i = 0; i < INSTANCES; i++) {
+                    fields[0].set(items[i], i);
+                    fields[1].set(items[i], (long) i);
+                    fields[2].set(items[i], (double) i);
+                    fields[3].set(items[i], true);
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+            return fields[0].hashCode();
+        });
+        Bench.run("method handle setInt/setLong/...", writes, () -> CodecHooks.writePrimitives(Item.class, names, items));
+        Bench.run("plain fields setInt/setLong/...", writes, () -> CodecHooks.writePrimitives(Plain.class, names, plains));
+    }
+
+}
@@ -0,0 +1,40 @@
+package net.mlk.jmson.bench;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * small benchmark harness, build has no repositories for jmh.
+ * operation is warmed up, then timed in several rounds and median is reported
+ */
+public final class Bench {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 7;
+    public static volatile long sink;
+
+    private Bench() {
+    }
+
+    /**
+     * @param name printed name
+     * @param ops count of operations done by one call of the code
+     * @param code code returning a value that depends on the work, so it isn't eliminated
+     * @return median nanoseconds per operation
+     */
+    public static double run(String name, long ops, LongSupplier code) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += code.getAsLong();
+        }
+        double[] times = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += code.getAsLong();
+            times[i] = (System.nanoTime() - start) / (double) ops;
+        }
+        Arrays.sort(times);
+        double median = times[ROUNDS / 2];
+        System.out.printf("%-48s %12.1f ns/op  (min %.1f, max %.1f)%n", name, median, times[0], times[ROUNDS - 1]);
+        return median;
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.utils.CodecHooks;
+import net.mlk.jmson.utils.JsonCodec;
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * field access of hidden class codec against reflection and method handles,
+ * 4 fields are set and read on every instance.
+ * gradle benchmark -Pbench=CodecBenchmark [-Djmson.generateCodecs=true]
+ */
+public final class CodecBenchmark {
+    private static final int INSTANCES = 1_000_000;
+    private static final String[] NAMES = {"id", "count", "price", "name"};
+
+    public static class Item implements JsonConvertible {
+        private int id;
+        private long count;
+        private double price;
+        private String name;
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Item[] items = new Item[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            items[i] = new Item();
+        }
+
+        Field[] fields = new Field[NAMES.length];
+        MethodHandle[] getters = new MethodHandle[NAMES.length];
+        MethodHandle[] setters = new MethodHandle[NAMES.length];
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(Item.class, MethodHandles.lookup());
+        for (int i = 0; i < NAMES.length; i++) {
+            fields[i] = Item.class.getDeclaredField(NAMES[i]);
+            fields[i].setAccessible(true);
+            getters[i] = lookup.unreflectGetter(fields[i]).asType(MethodType.methodType(Object.class, Object.class));
+            setters[i] = lookup.unreflectSetter(fields[i]).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        }
+        JsonCodec<Object> codec = CodecHooks.generate(Item.class);
+        int[] index = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            index[i] = Arrays.asList(codec.fields()).indexOf(NAMES[i]);
+        }
+        long ops = INSTANCES * NAMES.length * 2L;
+
+        Bench.run("reflection Field.setInt/get", ops, () -> {
+            long sum = 0;
+            try {
+                for (Item item : items) {
+                    fields[0].setInt(item, 1);
+                    fields[1].setLong(item, 2);
+                    fields[2].setDouble(item, 3);
+                    fields[3].set(item, "x");
+                    for (Field field : fields) {
+                        sum += field.get(item).hashCode();
+                    }
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+            return sum;
+        });
+        Bench.run("method handle invokeExact (boxed)", ops, () -> {
+            long sum = 0;
+            try {
+                for (Item item : items) {
+                    setters[0].invokeExact((Object) item, (Object) 1);
+                    setters[1].invokeExact((Object) item, (Object) 2L);
+                    setters[2].invokeExact((Object) item, (Object) 3.0);
+                    setters[3].invokeExact((Object) item, (Object) "x");
+                    for (MethodHandle getter : getters) {
+                        sum += ((Object) getter.invokeExact((Object) item)).hashCode();
+                    }
+                }
+            } catch (Throwable ex) {
+                throw new RuntimeException(ex);
+            }
+            return sum;
+        });
+        Bench.run("hidden class codec setInt/get", ops, () -> {
+            long sum = 0;
+            for (Item item : items) {
+                codec.setInt(item, index[0], 1);
+                codec.setLong(item, index[1], 2);
+                codec.setDouble(item, index[2], 3);
+                codec.set(item, index[3], "x");
+                for (int field : index) {
+                    sum += codec.get(item, field).hashCode();
+                }
+            }
+            return sum;
+        });
+
+        Json json = new Json("{\"id\":1,\"count\":2,\"price\":3.5,\"name\":\"x\"}");
+        Bench.run("convertToObject end to end", 100_000, () -> {
+            long sum = 0;
+            for (int i = 0; i < 100_000; i++) {
+                sum += JsonConverter.convertToObject(json, Item.class).id;
+            }
+            return sum;
+        });
+    }
+
+}
@@ -0,0 +1,73 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonLines;
+import net.mlk.jmson.KeyCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * retained heap of many small records of the same shape held in memory, ordinary json against compact one.
+ * both read keys through key cache, so only storage of the objects differs.
+ * gradle benchmark -Pbench=CompactJsonMemoryBenchmark, count of records can be passed as argument
+ */
+public final class CompactJsonMemoryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(4);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("{\"id\":").append(i).append(",\"user\":").append(random.nextInt(1000))
+                    .append(",\"score\":").append(random.nextInt(100_000) / 100.0)
+                    .append(",\"active\":").append(random.nextBoolean())
+                    .append(",\"tags\":[").append(random.nextInt(10)).append(',').append(random.nextInt(10))
+                    .append("],\"geo\":{\"lat\":").append(random.nextInt(180)).append(",\"lon\":").append(random.nextInt(360))
+                    .append("}}\n");
+        }
+        byte[] input = builder.toString().getBytes(StandardCharsets.UTF_8);
+        builder = null;
+        System.out.println(count + " records, " + input.length + " bytes of json lines");
+
+        long plain = retained(input, false);
+        long compact = retained(input, true);
+        System.out.printf("ordinary %d bytes per record, compact %d bytes per record, %.1fx less%n",
+                plain / count, compact / count, plain / (double) compact);
+    }
+
+    /**
+     * @param input json lines
+     * @param compact storage of the objects
+     * @return bytes retained by parsed records
+     */
+    private static long retained(byte[] input, boolean compact) throws IOException {
+        long before = usedHeap();
+        List<Json> records = new ArrayList<>();
+        long start = System.nanoTime();
+        try (JsonLines lines = new JsonLines(new ByteArrayInputStream(input)).compact(compact).keyCache(new KeyCache(256))) {
+            while (lines.hasNext()) {
+                records.add(lines.next());
+            }
+        }
+        long time = System.nanoTime() - start;
+        long retained = usedHeap() - before;
+        System.out.printf("%-8s parsed in %d ms, retained %d mb%n", compact ? "compact" : "ordinary",
+                time / 1_000_000, retained >> 20);
+        Bench.sink += records.size();
+        return retained;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.utils.JsonConverter;
+import net.mlk.jmson.utils.JsonConvertible;
+
+import java.util.List;
+
+/**
+ * end to end conversion of objects with private fields and no processor codec,
+ * fields are accessed with method handles or with codec generated at runtime.
+ * gradle benchmark -Pbench=ConvertBenchmark [-Djmson.generateCodecs=true]
+ */
+public final class ConvertBenchmark {
+    private static final int COUNT = 200_000;
+    private static final String JSON = "{\"id\":123456789, \"customer\":\"customer name\", "
+            + "\"item\":{\"id\":1, \"name\":\"first item\", \"count\":3, \"price\":12.5, \"active\":true}, "
+            + "\"items\":[{\"id\":2, \"name\":\"second\", \"count\":1, \"price\":3.25, \"active\":false}, "
+            + "{\"id\":3, \"name\":\"third\", \"count\":7, \"price\":99.99, \"active\":true}], \"note\":\"note\"}";
+
+    public static class Item implements JsonConvertible {
+        private int id;
+        private String name;
+        private long count;
+        private double price;
+        private boolean active;
+    }
+
+    public static class Order implements JsonConvertible {
+        private long id;
+        private String customer;
+        private Item item;
+        private List<Item> items;
+        private String note;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("jmson.generateCodecs=" + Boolean.getBoolean("jmson.generateCodecs"));
+        Json json = new Json(JSON);
+        Order order = JsonConverter.convertToObject(json, Order.class);
+        Bench.run("convertToObject", COUNT, () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += JsonConverter.convertToObject(json, Order.class).id;
+            }
+            return sum;
+        });
+        Bench.run("readValue", COUNT, () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += JsonConverter.readValue(JSON, Order.class).id;
+            }
+            return sum;
+        });
+        Bench.run("convertToJson", COUNT, () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += JsonConverter.convertToJson(order).size();
+            }
+            return sum;
+        });
+    }
+
+}
@@ -0,0 +1,84 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.JsonList;
+import net.mlk.jmson.utils.JsonConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * detection of number and literal types in numeric heavy arrays.
+ * regex based detection of the previous autoParseToType is kept here as the baseline
+ * and compared with autoParseToType on the same tokens, then arrays are parsed with and
+ * without parseTypes to show what detection in the tokenizer costs.
+ * gradle benchmark -Pbench=NumberDetectionBenchmark
+ */
+public final class NumberDetectionBenchmark {
+    private static final int VALUES = 200_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(3);
+        String[] tokens = new String[VALUES];
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < VALUES; i++) {
+            switch (i % 4) {
+                case 0: tokens[i] = Integer.toString(random.nextInt()); break;
+                case 1: tokens[i] = Long.toString(random.nextLong()); break;
+                case 2: tokens[i] = Double.toString(random.nextDouble() * 1000); break;
+                default: tokens[i] = Integer.toString(random.nextInt(1000)) + "." + random.nextInt(100); break;
+            }
+            builder.append(i > 0 ? "," : "").append(tokens[i]);
+        }
+        String array = builder.append(']').toString();
+        byte[] bytes = array.getBytes(StandardCharsets.UTF_8);
+
+        double regex = Bench.run("regex detection, per token", VALUES, () -> {
+            long sum = 0;
+            for (String token : tokens) {
+                sum += regexParseToType(token).hashCode();
+            }
+            return sum;
+        });
+        double scan = Bench.run("autoParseToType, per token", VALUES, () -> {
+            long sum = 0;
+            for (String token : tokens) {
+                sum += JsonConverter.autoParseToType(token).hashCode();
+            }
+            return sum;
+        });
+        System.out.printf("detection speedup %.1fx%n", regex / scan);
+
+        Bench.run("JsonList(String) typed, per value", VALUES, () -> new JsonList(array).size());
+        Bench.run("JsonList(String) untyped, per value", VALUES, () -> new JsonList(array, false).size());
+        Bench.run("JsonList.parse(byte[]) typed, per value", VALUES, () -> JsonList.parse(bytes).size());
+    }
+
+    /**
+     * autoParseToType before the tokenizer detected numbers
+     * @param value token
+     * @return typed value
+     */
+    private static Object regexParseToType(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        } else if (value.equalsIgnoreCase("false")) {
+            return false;
+        } else if (value.matches("[+-]?[0-9]+")) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                return Long.parseLong(value);
+            }
+        } else if (value.matches("[+-]?[0-9]*\\.[0-9]+")) {
+            try {
+                return Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                return Double.parseDouble(value);
+            }
+        } else if (value.equals("null")) {
+            return null;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,47 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.JsonParallelParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * throughput of parallel parsing of json lines and top level array by count of pool threads.
+ * gradle benchmark -Pbench=ParallelScalingBenchmark, size of inputs in mb can be passed as argument
+ */
+public final class ParallelScalingBenchmark {
+    private static final int[] THREADS = {1, 4, 16, 32};
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Random random = new Random(1);
+        StringBuilder lines = new StringBuilder();
+        StringBuilder array = new StringBuilder("[");
+        while (lines.length() < megabytes << 20) {
+            String record = "{\"id\":" + random.nextInt() + ",\"name\":\"user " + random.nextInt(1000)
+                    + "\",\"score\":" + random.nextDouble() + ",\"tags\":[\"a\",\"b,c\"],\"active\":" + random.nextBoolean() + "}";
+            lines.append(record).append('\n');
+            array.append(array.length() > 1 ? "," : "").append(record);
+        }
+        byte[] lineBytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] arrayBytes = array.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        System.out.println("cpus " + Runtime.getRuntime().availableProcessors() + ", input " + megabytes + " mb");
+
+        for (int threads : THREADS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                JsonParallelParser parser = new JsonParallelParser().pool(pool);
+                double lineTime = Bench.run("json lines, " + threads + " threads", lineBytes.length,
+                        () -> parser.parseLines(lineBytes).size());
+                double arrayTime = Bench.run("array, " + threads + " threads", arrayBytes.length,
+                        () -> parser.parseList(arrayBytes).size());
+                System.out.printf("%d threads: json lines %.0f mb/s, array %.0f mb/s%n",
+                        threads, 1e9 / lineTime / (1 << 20), 1e9 / arrayTime / (1 << 20));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+}
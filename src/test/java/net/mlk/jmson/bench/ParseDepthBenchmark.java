@@ -0,0 +1,55 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.Json;
+
+/**
+ * parse time by nesting depth. every level of the document has the same fields and one nested
+ * object inside of an array, so size grows linearly with depth and time per level has to stay flat.
+ * gradle benchmark -Pbench=ParseDepthBenchmark
+ */
+public final class ParseDepthBenchmark {
+    private static final int[] DEPTHS = {1, 4, 8, 12, 16, 32, 64, 128, 256};
+    private static final int LEVELS_PER_ROUND = 400_000;
+
+    public static void main(String[] args) {
+        double first = 0;
+        for (int depth : DEPTHS) {
+            String json = document(depth);
+            int count = LEVELS_PER_ROUND / depth;
+            double perLevel = Bench.run("depth " + depth + ", per level", (long) count * depth, () -> {
+                long sum = 0;
+                for (int i = 0; i < count; i++) {
+                    sum += new Json(json).size();
+                }
+                return sum;
+            });
+            if (first == 0) {
+                first = perLevel;
+            }
+            System.out.printf("depth %d: %d chars, %.2fx time per level of depth 1%n", depth, json.length(), perLevel / first);
+        }
+    }
+
+    /**
+     * @param depth count of nested objects
+     * @return json of the given depth
+     */
+    static String document(int depth) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"level ").append(i)
+                    .append("\",\"score\":").append(i * 0.5).append(",\"active\":true");
+            if (i + 1 < depth) {
+                builder.append(",\"children\":[");
+            }
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            builder.append('}');
+            if (i > 0) {
+                builder.append(']');
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,75 @@
+package net.mlk.jmson.bench;
+
+import net.mlk.jmson.IndexHooks;
+import net.mlk.jmson.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * building of the structural index from chars and from utf-8 bytes against the scalar scanner
+ * that tracks level and quotes on every char, like the parser loops did before the index.
+ * full parse and lazy access of one key are measured on the same input for reference.
+ * gradle benchmark -Pbench=StructuralIndexBenchmark, size of input in mb can be passed as argument
+ */
+public final class StructuralIndexBenchmark {
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        Random random = new Random(1);
+        StringBuilder builder = new StringBuilder("{\"items\":[");
+        while (builder.length() < megabytes << 20) {
+            builder.append(builder.length() > 10 ? "," : "")
+                    .append("{\"id\":").append(random.nextInt())
+                    .append(",\"name\":\"user \\\"").append(random.nextInt(1000)).append("\\\" {x, y}\"")
+                    .append(",\"score\":").append(random.nextDouble())
+                    .append(",\"tags\":[\"a\",\"b:c\",\"\u00e9\"],\"nested\":{\"active\":").append(random.nextBoolean()).append("}}");
+        }
+        String json = builder.append("],\"last\":1}").toString();
+        char[] chars = json.toCharArray();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        System.out.println("input " + bytes.length + " bytes");
+
+        report("scalar scan, chars", chars.length,
+                Bench.run("scalar scan, chars", chars.length, () -> scan(chars)));
+        report("index, chars", chars.length,
+                Bench.run("index, chars", chars.length, () -> IndexHooks.index(chars)));
+        report("index, bytes (swar)", bytes.length,
+                Bench.run("index, bytes (swar)", bytes.length, () -> IndexHooks.index(bytes)));
+        report("lazy, one key", bytes.length,
+                Bench.run("lazy, one key", bytes.length, () -> Json.lazy(bytes).getInteger("last")));
+        report("full parse", bytes.length,
+                Bench.run("full parse", bytes.length, () -> Json.parse(bytes).size()));
+    }
+
+    /**
+     * @param chars source
+     * @return position after the root value
+     */
+    private static long scan(char[] chars) {
+        int level = 0;
+        boolean quoted = false;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (quoted) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == '{' || c == '[') {
+                level++;
+            } else if ((c == '}' || c == ']') && --level == 0) {
+                return i + 1;
+            }
+        }
+        return chars.length;
+    }
+
+    private static void report(String name, int length, double nanosPerChar) {
+        System.out.printf("%s: %.0f mb/s%n", name, 1e9 / nanosPerChar / (1 << 20));
+    }
+
+}
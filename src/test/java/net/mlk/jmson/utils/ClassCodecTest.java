@@ -0,0 +1,202 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class ClassCodecTest {
+
+    public static class Visible implements JsonConvertible {
+        static int created;
+
+        public Visible() {
+            created++;
+        }
+    }
+
+    public static class Hidden implements JsonConvertible {
+        private Hidden() {
+        }
+    }
+
+    public static class Failing implements JsonConvertible {
+        public Failing() {
+            throw new IllegalStateException("constructor failed");
+        }
+    }
+
+    public abstract static class Abstract implements JsonConvertible {
+    }
+
+    public static class NoDefaultConstructor implements JsonConvertible {
+        public NoDefaultConstructor(int value) {
+        }
+    }
+
+    /**
+     * final fields are left out of generated codec, so they are accessed with method handles
+     */
+    @SuppressWarnings("unused")
+    public static class Finals implements JsonConvertible {
+        private final int i = 0;
+        private final long l = 0;
+        private final double d = 0;
+        private final boolean b = false;
+        private final String s = null;
+        private static final String CONSTANT = "constant";
+        private static String shared;
+    }
+
+    public static class Unloadable implements JsonConvertible {
+        int value;
+    }
+
+    /**
+     * loads own copy of Unloadable, everything else comes from the parent
+     */
+    private static final class IsolatedLoader extends ClassLoader {
+        IsolatedLoader() {
+            super(ClassCodecTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Unloadable.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (this.getClassLoadingLock(name)) {
+                Class<?> loaded = this.findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try (InputStream in = this.getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    byte[] bytes = in.readAllBytes();
+                    return this.defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException ex) {
+                    throw new ClassNotFoundException(name, ex);
+                }
+            }
+        }
+    }
+
+    private static ClassCodec.FieldCodec field(String name) {
+        for (ClassCodec.FieldCodec field : ClassCodec.of(Finals.class).fields) {
+            if (field.field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new AssertionError("No field " + name);
+    }
+
+    public static void testFactoryOfVisibleConstructorIsLambda() {
+        Supplier<Object> factory = ClassCodec.factory(Visible.class);
+        assertTrue(factory.getClass().isSynthetic(), "Expected generated lambda but was " + factory.getClass());
+        int created = Visible.created;
+        Object first = factory.get();
+        Object second = factory.get();
+        assertTrue(first instanceof Visible && second instanceof Visible && first != second, "new instance on every call");
+        assertEquals(created + 2, Visible.created);
+    }
+
+    public static void testFactoryOfPrivateConstructor() {
+        Supplier<Object> factory = ClassCodec.factory(Hidden.class);
+        assertTrue(factory.get() instanceof Hidden, "instance of private constructor");
+    }
+
+    public static void testFactoryErrors() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> ClassCodec.factory(Failing.class).get());
+        assertEquals("constructor failed", thrown.getMessage());
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> ClassCodec.factory(Abstract.class).get());
+        assertTrue(ex.getCause() instanceof InstantiationException, String.valueOf(ex.getCause()));
+        ex = assertThrows(RuntimeException.class, () -> ClassCodec.factory(NoDefaultConstructor.class).get());
+        assertTrue(ex.getCause() instanceof NoSuchMethodException, String.valueOf(ex.getCause()));
+    }
+
+    public static void testPrimitiveSetters() {
+        Finals finals = new Finals();
+        field("i").setInt(finals, 7);
+        field("l").setLong(finals, 1L << 40);
+        field("d").setDouble(finals, 2.5);
+        field("b").setBoolean(finals, true);
+        assertEquals(7, field("i").get(finals));
+        assertEquals(1L << 40, field("l").get(finals));
+        assertEquals(2.5, field("d").get(finals));
+        assertEquals(true, field("b").get(finals));
+    }
+
+    public static void testBoxedSetterUnboxesAndWidens() {
+        Finals finals = new Finals();
+        field("i").set(finals, 3);
+        field("l").set(finals, 4);
+        field("d").set(finals, 5.5f);
+        field("s").set(finals, "text");
+        assertEquals(3, field("i").get(finals));
+        assertEquals(4L, field("l").get(finals));
+        assertEquals(5.5, field("d").get(finals));
+        assertEquals("text", field("s").get(finals));
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> field("i").set(finals, null));
+        assertEquals("Can not set int field " + Finals.class.getName() + ".i to null value", ex.getMessage());
+        ex = assertThrows(IllegalArgumentException.class, () -> field("i").set(finals, "1"));
+        assertEquals("Can not set int field " + Finals.class.getName() + ".i to java.lang.String", ex.getMessage());
+    }
+
+    public static class Primitives implements JsonConvertible {
+        int count;
+        boolean active;
+    }
+
+    public static void testNullIntoPrimitiveFieldNamesField() {
+        for (String name : new String[] {"count", "active"}) {
+            String json = "{\"" + name + "\":null}";
+            String message = "Can not set " + (name.equals("count") ? "int" : "boolean") + " field "
+                    + Primitives.class.getName() + "." + name + " to null value";
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> JsonConverter.convertToObject(new Json(json), Primitives.class));
+            assertEquals(message, ex.getMessage());
+            ex = assertThrows(IllegalArgumentException.class, () -> JsonConverter.readValue(json, Primitives.class));
+            assertEquals(message, ex.getMessage());
+        }
+    }
+
+    public static void testStaticFields() {
+        field("shared").set(null, "value");
+        assertEquals("value", field("shared").get(new Finals()));
+        assertEquals("constant", field("CONSTANT").get(null));
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> field("CONSTANT").set(null, "other"));
+        assertTrue(ex.getCause() instanceof IllegalAccessException, String.valueOf(ex.getCause()));
+    }
+
+    public static void testCachesDontPinClassLoaders() throws ReflectiveOperationException, InterruptedException {
+        WeakReference<ClassLoader> loader = convertInIsolatedLoader();
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(loader.get() == null, "Class loader of converted class is still reachable");
+    }
+
+    private static WeakReference<ClassLoader> convertInIsolatedLoader() throws ReflectiveOperationException {
+        ClassLoader loader = new IsolatedLoader();
+        Class<?> type = loader.loadClass(Unloadable.class.getName());
+        assertTrue(type != Unloadable.class, "class is loaded again");
+        Object object = JsonConverter.convertToObject(new Json("{\"value\":3}"), type.asSubclass(JsonConvertible.class));
+        Field value = type.getDeclaredField("value");
+        value.setAccessible(true);
+        assertEquals(3, value.get(object));
+        assertEquals("{\"value\":3}", JsonConverter.convertToJson((JsonConvertible) object).toString());
+        return new WeakReference<>(loader);
+    }
+
+    public static void testPrimitiveSetterOfObjectField() {
+        assertThrows(IllegalStateException.class, () -> field("s").setInt(new Finals(), 1));
+    }
+
+}
@@ -0,0 +1,157 @@
+package net.mlk.jmson.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class CodecGeneratorTest {
+
+    /**
+     * tableswitch over 24 fields takes more than 64 bytes,
+     * so the first case and default need same_frame_extended entries
+     */
+    @SuppressWarnings("unused")
+    public static class Wide implements JsonConvertible {
+        private int i0;
+        int i1;
+        private long l0;
+        long l1;
+        private double d0;
+        double d1;
+        private boolean b0;
+        boolean b1;
+        private String s0;
+        String s1;
+        Integer boxed;
+        List<String> list;
+        int[] ints;
+        Object any;
+        private static int ignoredStatic;
+        private final int ignoredFinal = 1;
+        String s2;
+        String s3;
+        String s4;
+        String s5;
+        String s6;
+        String s7;
+        String s8;
+        String s9;
+        String s10;
+        String s11;
+    }
+
+    public static class Empty implements JsonConvertible {
+    }
+
+    public abstract static class Abstract implements JsonConvertible {
+        int value;
+    }
+
+    public static class NoDefaultConstructor implements JsonConvertible {
+        int value;
+
+        public NoDefaultConstructor(int value) {
+            this.value = value;
+        }
+    }
+
+    private static JsonCodec<Object> generate(Class<?> type) {
+        JsonCodec<Object> codec = CodecGenerator.generate(type);
+        assertTrue(codec != null, "Codec of " + type + " is not generated");
+        return codec;
+    }
+
+    private static int index(JsonCodec<Object> codec, String field) {
+        int index = Arrays.asList(codec.fields()).indexOf(field);
+        assertTrue(index != -1, "No field " + field);
+        return index;
+    }
+
+    public static void testFieldsSkipStaticAndFinal() {
+        List<String> fields = Arrays.asList(generate(Wide.class).fields());
+        assertEquals(24, fields.size());
+        assertTrue(!fields.contains("ignoredStatic") && !fields.contains("ignoredFinal"), fields.toString());
+    }
+
+    public static void testBoxedSetAndGetOfEveryField() {
+        JsonCodec<Object> codec = generate(Wide.class);
+        Object instance = codec.newInstance();
+        assertEquals(Wide.class, instance.getClass());
+        Object[] values = {1, 2, 3L, 4L, 5.5, 6.5, true, true, "a", "b", 7, Collections.singletonList("x"), new int[] {1}, new Object()};
+        String[] names = {"i0", "i1", "l0", "l1", "d0", "d1", "b0", "b1", "s0", "s1", "boxed", "list", "ints", "any"};
+        for (int i = 0; i < names.length; i++) {
+            codec.set(instance, index(codec, names[i]), values[i]);
+        }
+        for (int i = 2; i <= 11; i++) {
+            codec.set(instance, index(codec, "s" + i), "s" + i);
+        }
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(values[i], codec.get(instance, index(codec, names[i])));
+        }
+        for (int i = 2; i <= 11; i++) {
+            assertEquals("s" + i, codec.get(instance, index(codec, "s" + i)));
+        }
+        assertEquals(1, ((Wide) instance).i0);
+        assertEquals("a", ((Wide) instance).s0);
+    }
+
+    public static void testPrimitiveSetters() {
+        JsonCodec<Object> codec = generate(Wide.class);
+        Wide instance = (Wide) codec.newInstance();
+        codec.setInt(instance, index(codec, "i0"), 10);
+        codec.setInt(instance, index(codec, "i1"), 11);
+        codec.setLong(instance, index(codec, "l0"), Long.MAX_VALUE);
+        codec.setLong(instance, index(codec, "l1"), Long.MIN_VALUE);
+        codec.setDouble(instance, index(codec, "d0"), 0.1);
+        codec.setDouble(instance, index(codec, "d1"), -0.0);
+        codec.setBoolean(instance, index(codec, "b0"), true);
+        codec.setBoolean(instance, index(codec, "b1"), true);
+        assertEquals(10, instance.i0);
+        assertEquals(11, instance.i1);
+        assertEquals(Long.MAX_VALUE, instance.l0);
+        assertEquals(Long.MIN_VALUE, instance.l1);
+        assertEquals(0.1, instance.d0);
+        assertEquals(-0.0, instance.d1);
+        assertTrue(instance.b0 && instance.b1, "booleans");
+    }
+
+    public static void testWrongIndexThrowsIndexOutOfBounds() {
+        JsonCodec<Object> codec = generate(Wide.class);
+        Object instance = codec.newInstance();
+        int size = codec.fields().length;
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.get(instance, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.get(instance, size));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.set(instance, size, "x"));
+        // primitive setters have cases only for fields of their type
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.setInt(instance, index(codec, "s0"), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.setLong(instance, index(codec, "i0"), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.setDouble(instance, index(codec, "l0"), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.setBoolean(instance, index(codec, "d0"), true));
+        assertThrows(ClassCastException.class, () -> codec.set(instance, index(codec, "s0"), 1));
+        assertThrows(ClassCastException.class, () -> codec.set(instance, index(codec, "i0"), 1L));
+    }
+
+    public static void testClassWithoutFields() {
+        JsonCodec<Object> codec = generate(Empty.class);
+        assertEquals(0, codec.fields().length);
+        assertEquals(Empty.class, codec.newInstance().getClass());
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.get(new Empty(), 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> codec.setInt(new Empty(), 0, 1));
+    }
+
+    public static void testInstantiationErrors() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> generate(Abstract.class).newInstance());
+        assertEquals(InstantiationException.class, ex.getCause().getClass());
+        ex = assertThrows(RuntimeException.class, () -> generate(NoDefaultConstructor.class).newInstance());
+        assertEquals(NoSuchMethodException.class, ex.getCause().getClass());
+        JsonCodec<Object> codec = generate(NoDefaultConstructor.class);
+        NoDefaultConstructor instance = new NoDefaultConstructor(1);
+        codec.setInt(instance, 0, 2);
+        assertEquals(2, instance.value);
+    }
+
+}
@@ -0,0 +1,68 @@
+package net.mlk.jmson.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * package-private parts of ClassCodec and CodecGenerator used by benchmarks of bench package
+ */
+public final class CodecHooks {
+
+    private CodecHooks() {
+    }
+
+    /**
+     * @param type class
+     * @return lambda or method handle factory of the class, without generated codec
+     */
+    public static Supplier<Object> factory(Class<?> type) {
+        return ClassCodec.factory(type);
+    }
+
+    /**
+     * @param type class
+     * @return codec generated at runtime, whether generation is enabled or not
+     */
+    public static JsonCodec<Object> generate(Class<?> type) {
+        return CodecGenerator.generate(type);
+    }
+
+    /**
+     * @param type convertible class
+     * @return new instance created by codec of the class
+     */
+    public static Object newInstance(Class<?> type) {
+        return ClassCodec.of(type).newInstance();
+    }
+
+    /**
+     * write index to int, long and double fields and true to boolean field of every instance
+     * through field codecs of the class
+     * @param type convertible class
+     * @param names names of int, long, double and boolean fields
+     * @param instances instances of the class
+     * @return value depending on the codecs
+     */
+    public static long writePrimitives(Class<?> type, String[] names, Object[] instances) {
+        ClassCodec.FieldCodec[] codecs = fields(ClassCodec.of(type), names);
+        for (int i = 0; i < instances.length; i++) {
+            codecs[0].setInt(instances[i], i);
+            codecs[1].setLong(instances[i], i);
+            codecs[2].setDouble(instances[i], i);
+            codecs[3].setBoolean(instances[i], true);
+        }
+        return codecs[0].hashCode();
+    }
+
+    private static ClassCodec.FieldCodec[] fields(ClassCodec codec, String[] names) {
+        ClassCodec.FieldCodec[] fields = new ClassCodec.FieldCodec[names.length];
+        for (ClassCodec.FieldCodec field : codec.fields) {
+            for (int i = 0; i < names.length; i++) {
+                if (field.field.getName().equals(names[i])) {
+                    fields[i] = field;
+                }
+            }
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,126 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * lists below the parallel threshold are converted in place, larger ones on the fork join pool,
+ * both have to give the same values in the same order and fail the same way
+ */
+public class ConvertAllTest {
+    // JsonConverter.PARALLEL_THRESHOLD
+    private static final int THRESHOLD = 4096;
+    private static final int[] SIZES = {0, 1, 2, THRESHOLD - 1, THRESHOLD, THRESHOLD + 1, 3 * THRESHOLD + 7};
+
+    public static class Item implements JsonConvertible {
+        int id;
+        String name;
+        List<Integer> tags;
+    }
+
+    public static class Special extends Item {
+        boolean special = true;
+    }
+
+    public static class Holder implements JsonConvertible {
+        List<Item> items;
+        Item[] array;
+    }
+
+    private static Json json(int i) {
+        return new Json().append("id", i).append("name", "item " + i).append("tags", new JsonList().append(i).append(-i));
+    }
+
+    private static JsonList jsons(int size) {
+        JsonList list = new JsonList();
+        for (int i = 0; i < size; i++) {
+            list.add(json(i));
+        }
+        return list;
+    }
+
+    private static void checkItems(int size, List<Item> items) {
+        assertEquals(size, items.size());
+        for (int i = 0; i < size; i++) {
+            Item item = items.get(i);
+            assertEquals(i, item.id);
+            assertEquals("item " + i, item.name);
+            assertEquals(Arrays.asList(i, -i), item.tags);
+        }
+    }
+
+    public static void testConvertAllBelowAndAboveThreshold() {
+        for (int size : SIZES) {
+            JsonList list = jsons(size);
+            checkItems(size, JsonConverter.convertAll(list, Item.class));
+            checkItems(size, JsonConverter.convertAll(list, Item.class, 1));
+            checkItems(size, JsonConverter.convertAll(list, Item.class, Integer.MAX_VALUE));
+            assertEquals(size, list.size());
+        }
+    }
+
+    public static void testConvertAllKeepsNulls() {
+        for (int size : SIZES) {
+            JsonList list = jsons(size);
+            for (int i = 0; i < size; i += 3) {
+                list.set(i, null);
+            }
+            List<Item> items = JsonConverter.convertAll(list, Item.class);
+            assertEquals(size, items.size());
+            for (int i = 0; i < size; i++) {
+                assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), items.get(i) == null ? null : items.get(i).id);
+            }
+        }
+    }
+
+    public static void testConvertAllFailsOnValueThatIsNotJson() {
+        for (int size : new int[] {10, THRESHOLD * 2}) {
+            JsonList list = jsons(size);
+            list.set(size - 2, "text");
+            RuntimeException e = assertThrows(RuntimeException.class, () -> JsonConverter.convertAll(list, Item.class));
+            assertTrue(String.valueOf(e.getMessage()).contains("Can't convert text"), String.valueOf(e.getMessage()));
+        }
+    }
+
+    public static void testListAndArrayFields() {
+        for (int size : SIZES) {
+            Json json = new Json().append("items", jsons(size)).append("array", jsons(size));
+            Holder holder = JsonConverter.convertToObject(json, Holder.class);
+            checkItems(size, holder.items);
+            checkItems(size, Arrays.asList(holder.array));
+        }
+    }
+
+    public static void testConvertAllToJsonBelowAndAboveThreshold() {
+        for (int size : SIZES) {
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Item item = i % 5 == 4 ? null : i % 5 == 3 ? new Special() : new Item();
+                if (item != null) {
+                    item.id = i;
+                    item.name = "item " + i;
+                    item.tags = Arrays.asList(i, -i);
+                }
+                items.add(item);
+            }
+            JsonList expected = new JsonList();
+            for (Item item : items) {
+                expected.add(item == null ? null : JsonConverter.convertToJson(item));
+            }
+            assertEquals(expected.toString(), JsonConverter.convertAllToJson(items).toString(), "size " + size);
+            assertEquals(expected.toString(), JsonConverter.convertAllToJson(items, 1).toString(), "size " + size);
+            if (size > 4) {
+                assertEquals(true, JsonConverter.convertAllToJson(items).getJson(3).get("special"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.annotations.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class ConvertFieldTest {
+
+    @JsonObject(dateFormat = "yyyy-MM-dd")
+    public static class Day implements JsonConvertible {
+        LocalDate day;
+    }
+
+    @JsonObject(dateFormat = "yyyy-MM-dd HH:mm")
+    public static class Moment implements JsonConvertible {
+        LocalDateTime moment;
+    }
+
+    public static class Count implements JsonConvertible {
+        int count;
+    }
+
+    /**
+     * @param code conversion expected to fail
+     * @return thrown exception, checked to print nothing to System.err
+     */
+    private static RuntimeException failure(Runnable code) {
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(printed));
+        try {
+            return assertThrows(RuntimeException.class, code::run);
+        } finally {
+            System.setErr(err);
+            assertEquals("", printed.toString());
+        }
+    }
+
+    public static void testDates() {
+        assertEquals(LocalDate.of(2024, 2, 29), JsonConverter.convertToObject(new Json("{\"day\":\"2024-02-29\"}"), Day.class).day);
+        assertEquals(LocalDateTime.of(2024, 2, 29, 10, 5),
+                JsonConverter.convertToObject(new Json("{\"moment\":\"2024-02-29 10:05\"}"), Moment.class).moment);
+    }
+
+    public static void testDateParseErrorKeepsCause() {
+        RuntimeException ex = failure(() -> JsonConverter.convertToObject(new Json("{\"day\":\"29.02.2024\"}"), Day.class));
+        assertTrue(ex.getMessage().startsWith("Can't parse datetime \"29.02.2024\""), ex.getMessage());
+        assertTrue(ex.getCause() instanceof DateTimeParseException, String.valueOf(ex.getCause()));
+
+        ex = failure(() -> JsonConverter.convertToObject(new Json("{\"moment\":\"10:05\"}"), Moment.class));
+        assertTrue(ex.getCause() instanceof DateTimeParseException, String.valueOf(ex.getCause()));
+    }
+
+    public static void testCastErrorKeepsCause() {
+        RuntimeException ex = failure(() -> JsonConverter.convertToObject(new Json("{\"count\":\"many\"}"), Count.class));
+        assertTrue(ex.getCause() instanceof NumberFormatException, String.valueOf(ex.getCause()));
+    }
+
+}
@@ -0,0 +1,151 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonList;
+import net.mlk.jmson.JsonWriter;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public final class NumberCodecTest {
+
+    public static void testIntegerTypes() {
+        assertEquals(0, NumberCodec.parse("0"));
+        assertEquals(-12, NumberCodec.parse("-12"));
+        assertEquals(5, NumberCodec.parse("+5"));
+        assertEquals(Integer.MIN_VALUE, NumberCodec.parse("-2147483648"));
+        assertEquals(2147483648L, NumberCodec.parse("2147483648"));
+        assertEquals(Long.MAX_VALUE, NumberCodec.parse("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, NumberCodec.parse("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), NumberCodec.parse("9223372036854775808"));
+        assertEquals(new BigInteger("-123456789012345678901234567890"), NumberCodec.parse("-123456789012345678901234567890"));
+    }
+
+    public static void testDecimalTypes() {
+        assertEquals(1.5f, NumberCodec.parse("1.5"));
+        assertEquals(0.5f, NumberCodec.parse(".5"));
+        assertEquals(-0.0f, NumberCodec.parse("-0.0"));
+        assertEquals(12345.6f, NumberCodec.parse("12345.6"));
+        assertEquals(123456.0, NumberCodec.parse("123456.0"));
+        assertEquals(1.2345678, NumberCodec.parse("1.2345678"));
+        assertEquals(123456.7, NumberCodec.parse("123456.7"));
+        assertEquals(3.4e39, NumberCodec.parse("3.4e39"));
+    }
+
+    public static void testExponents() {
+        assertEquals(1e9f, NumberCodec.parse("1e9"));
+        assertEquals(1e9f, NumberCodec.parse("1E+9"));
+        assertEquals(0.001f, NumberCodec.parse("1E-3"));
+        assertEquals(-2.5e-7f, NumberCodec.parse("-2.5e-7"));
+        assertEquals(new BigDecimal("1e400"), NumberCodec.parse("1e400"));
+        assertEquals(new BigDecimal("-2.5e-400"), NumberCodec.parse("-2.5e-400"));
+        assertEquals(0.0f, NumberCodec.parse("0e-400"));
+    }
+
+    public static void testNotNumbers() {
+        for (String value : new String[] {"", "-", "+", ".", "1.", "1e", "1e+", "0x10", "1a", "--1", "1.2.3", "NaN", "Infinity", "true"}) {
+            assertEquals(null, NumberCodec.parse(value), value);
+        }
+    }
+
+    public static void testDoubleMatchesJdk() {
+        Random random = new Random(5);
+        NumberCodec codec = new NumberCodec();
+        for (int i = 0; i < 100_000; i++) {
+            double value;
+            switch (i % 4) {
+                case 0: value = Double.longBitsToDouble(random.nextLong()); break;
+                case 1: value = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20); break;
+                case 2: value = random.nextInt(1_000_000) / 1000.0; break;
+                default: value = -random.nextGaussian(); break;
+            }
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+            String text = Double.toString(value);
+            assertEquals(Double.parseDouble(text), NumberCodec.parseDouble(text), text);
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertTrue(codec.scan(bytes, 0, bytes.length), text);
+            assertEquals(Double.parseDouble(text), codec.toDouble(), text);
+        }
+    }
+
+    public static void testLongDigitsMatchJdk() {
+        String[] values = {"0.1000000000000000055511151231257827021181583404541015625",
+                "2.2250738585072011e-308", "4.9e-324", "1.7976931348623157e308",
+                "9007199254740993", "9007199254740993.0", "123456789012345678901234567890.5"};
+        for (String value : values) {
+            assertEquals(Double.parseDouble(value), NumberCodec.parseDouble(value), value);
+        }
+    }
+
+    public static void testOutOfRangeDecimalsRoundTrip() {
+        String raw = "{\"big\":1e400,\"small\":-1.5E-400,\"list\":[1e309]}";
+        for (Json json : new Json[] {new Json(raw), Json.parse(raw.getBytes(StandardCharsets.UTF_8))}) {
+            assertEquals(new BigDecimal("1e400"), json.get("big"));
+            assertEquals(new BigDecimal("-1.5e-400"), json.get("small"));
+            Json copy = new Json(json.toString());
+            assertEquals(json, copy);
+            assertEquals(json.toString(), copy.toString());
+        }
+        assertEquals(new BigDecimal("1e400"), JsonConverter.autoParseToType("1e400"));
+    }
+
+    public static void testNonFiniteNumbersAreNotWritten() {
+        for (Number value : new Number[] {Double.POSITIVE_INFINITY, Double.NaN, Float.NEGATIVE_INFINITY, Float.NaN}) {
+            Json json = new Json();
+            json.put("a", value);
+            assertThrows(IllegalArgumentException.class, json::toString);
+        }
+        StringWriter target = new StringWriter();
+        JsonWriter writer = new JsonWriter(target).beginArray().value(1);
+        assertThrows(IllegalArgumentException.class, () -> writer.value(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Number) Double.POSITIVE_INFINITY));
+        writer.value(2).endArray().flush();
+        assertEquals("[1, 2]", target.toString());
+    }
+
+    public static void testAutoParseToType() {
+        assertEquals(true, JsonConverter.autoParseToType("TRUE"));
+        assertEquals(false, JsonConverter.autoParseToType("false"));
+        assertEquals(null, JsonConverter.autoParseToType("null"));
+        assertEquals("Null", JsonConverter.autoParseToType("Null"));
+        assertEquals(42, JsonConverter.autoParseToType("42"));
+        assertEquals(1e9f, JsonConverter.autoParseToType("1e9"));
+        assertEquals("12ab", JsonConverter.autoParseToType("12ab"));
+        assertEquals("", JsonConverter.autoParseToType(""));
+    }
+
+    public static void testDetectionInDocuments() {
+        String raw = "{\"a\":1,\"b\":true,\"c\":FALSE,\"d\":null,\"e\":1e9,\"f\":abc,\"g\":\"12\",\"h\":-2.5,"
+                + "\"i\":99999999999,\"j\":12345678901234567890,\"k\":[0.1,-3,1E2]}";
+        for (Json json : new Json[] {new Json(raw), Json.parse(raw.getBytes(StandardCharsets.UTF_8))}) {
+            assertEquals(1, json.get("a"));
+            assertEquals(true, json.get("b"));
+            assertEquals(false, json.get("c"));
+            assertTrue(json.containsKey("d") && json.get("d") == null, "null literal");
+            assertEquals(1e9f, json.get("e"));
+            assertEquals("abc", json.get("f"));
+            assertEquals("12", json.get("g"));
+            assertEquals(-2.5f, json.get("h"));
+            assertEquals(99999999999L, json.get("i"));
+            assertEquals(new BigInteger("12345678901234567890"), json.get("j"));
+            JsonList list = json.getList("k");
+            assertEquals(0.1f, list.get(0));
+            assertEquals(-3, list.get(1));
+            assertEquals(100f, list.get(2));
+        }
+        Json raws = new Json(raw, false);
+        assertEquals("1", raws.get("a"));
+        assertEquals("true", raws.get("b"));
+        assertEquals("1e9", raws.get("e"));
+    }
+
+}
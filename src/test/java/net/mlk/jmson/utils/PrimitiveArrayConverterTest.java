@@ -0,0 +1,55 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonReader;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertTrue;
+
+public class PrimitiveArrayConverterTest {
+    private static final String JSON = "{\"ints\":[1,2,3],\"longs\":[1,5000000000],\"doubles\":[1,2.5,0.1234567],\"shorts\":[4,5]}";
+
+    public static class Arrays1 implements JsonConvertible {
+        public int[] ints;
+        public long[] longs;
+        public double[] doubles;
+        public short[] shorts;
+    }
+
+    public static void testReadPlainAndCompactJson() {
+        for (boolean compact : new boolean[] {false, true}) {
+            Json json = new JsonReader(JSON).compact(compact).readJson();
+            Arrays1 value = JsonConverter.convertToObject(json, Arrays1.class);
+            assertTrue(Arrays.equals(new int[] {1, 2, 3}, value.ints), Arrays.toString(value.ints));
+            assertTrue(Arrays.equals(new long[] {1, 5000000000L}, value.longs), Arrays.toString(value.longs));
+            assertTrue(Arrays.equals(new double[] {1, 2.5, 0.1234567}, value.doubles), Arrays.toString(value.doubles));
+            assertTrue(Arrays.equals(new short[] {4, 5}, value.shorts), Arrays.toString(value.shorts));
+        }
+    }
+
+    public static void testConvertToJsonRoundTrip() {
+        Arrays1 value = JsonConverter.convertToObject(new Json(JSON), Arrays1.class);
+        Json json = JsonConverter.convertToJson(value);
+        Arrays1 copy = JsonConverter.convertToObject(json, Arrays1.class);
+        assertTrue(Arrays.equals(value.ints, copy.ints), json.toString());
+        assertTrue(Arrays.equals(value.longs, copy.longs), json.toString());
+        assertTrue(Arrays.equals(value.doubles, copy.doubles), json.toString());
+        assertTrue(Arrays.equals(value.shorts, copy.shorts), json.toString());
+    }
+
+    public static void testWriteValueRoundTrip() {
+        Arrays1 value = JsonConverter.convertToObject(new Json(JSON), Arrays1.class);
+        StringWriter writer = new StringWriter();
+        JsonConverter.writeValue(value, writer);
+        Arrays1 copy = JsonConverter.readValue(writer.toString(), Arrays1.class);
+        assertTrue(Arrays.equals(value.ints, copy.ints), writer.toString());
+        assertTrue(Arrays.equals(value.longs, copy.longs), writer.toString());
+        assertTrue(Arrays.equals(value.doubles, copy.doubles), writer.toString());
+        assertTrue(Arrays.equals(value.shorts, copy.shorts), writer.toString());
+        assertEquals("[1,2,3]", new Json(writer.toString()).getList("ints").toString().replace(" ", ""));
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+import static net.mlk.jmson.Assert.assertThrows;
+import static net.mlk.jmson.Assert.assertTrue;
+
+/**
+ * readValue reads text straight into objects and must give the same result as convertToObject of parsed json
+ */
+public class ReadValueTest {
+
+    public static class Item implements JsonConvertible {
+        public int a;
+
+        @Override
+        public String toString() {
+            return "Item" + this.a;
+        }
+    }
+
+    public static class ItemArray implements JsonConvertible {
+        public Item[] items;
+    }
+
+    public static class ItemList implements JsonConvertible {
+        public List<Item> items;
+    }
+
+    public static class Numbers implements JsonConvertible {
+        public int i;
+        public long l;
+        public double d;
+        public boolean b;
+    }
+
+    private static String convertError(String json) {
+        return assertThrows(RuntimeException.class, () -> JsonConverter.convertToObject(new Json(json), Numbers.class)).getMessage();
+    }
+
+    private static String readError(String json) {
+        return assertThrows(RuntimeException.class, () -> JsonConverter.readValue(json, Numbers.class)).getMessage();
+    }
+
+    public static void testNumbersFollowConvertRules() {
+        String json = "{\"i\":-7, \"l\":9000000000, \"d\":1e3, \"b\":true}";
+        Numbers converted = JsonConverter.convertToObject(new Json(json), Numbers.class);
+        Numbers read = JsonConverter.readValue(json, Numbers.class);
+        assertEquals(-7, read.i);
+        assertEquals(9000000000L, read.l);
+        assertEquals(1000.0, read.d);
+        assertEquals(true, read.b);
+        assertEquals(converted.i + " " + converted.l + " " + converted.d + " " + converted.b,
+                read.i + " " + read.l + " " + read.d + " " + read.b);
+    }
+
+    public static void testNumberErrorsMatchConvert() {
+        for (String json : new String[] {"{\"i\":1e3}", "{\"i\":1.5}", "{\"i\":3000000000}",
+                "{\"l\":1e3}", "{\"l\":99999999999999999999}", "{\"i\":\"x\"}"}) {
+            String message = readError(json);
+            assertEquals(convertError(json), message);
+            assertTrue(message.contains("Numbers." + json.charAt(2)), message);
+        }
+    }
+
+    public static class Named implements JsonConvertible {
+        public String name;
+        public Item item;
+        public List<Item> items;
+    }
+
+    public static void testBytesMatchText() {
+        String json = "{\"skip\":{\"x\":[1,{\"y\":\"\u00e9\"}]}, \"name\":\"J\u00e9r\u00f4me \\u2603\", "
+                + "\"item\":{\"a\":1, \"b\":2}, \"items\":[{\"a\":2},null]}";
+        Named text = JsonConverter.readValue(json, Named.class);
+        Named bytes = JsonConverter.readValue(json.getBytes(StandardCharsets.UTF_8), Named.class);
+        assertEquals("J\u00e9r\u00f4me \u2603", bytes.name);
+        assertEquals(text.name, bytes.name);
+        assertEquals(text.item.a, bytes.item.a);
+        assertEquals(String.valueOf(text.items), String.valueOf(bytes.items));
+        assertThrows(RuntimeException.class, () -> JsonConverter.readValue("{\"name\":\"a\"} 1".getBytes(StandardCharsets.UTF_8), Named.class));
+    }
+
+    public static void testNullElementOfArray() {
+        String json = "{\"items\":[{\"a\":1},null]}";
+        assertEquals(Arrays.toString(JsonConverter.convertToObject(new Json(json), ItemArray.class).items),
+                Arrays.toString(JsonConverter.readValue(json, ItemArray.class).items));
+        assertEquals("[Item1, null]", Arrays.toString(JsonConverter.readValue(json, ItemArray.class).items));
+    }
+
+    public static void testScalarElementOfArrayFails() {
+        String json = "{\"items\":[{\"a\":1},5]}";
+        assertThrows(RuntimeException.class, () -> JsonConverter.convertToObject(new Json(json), ItemArray.class));
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> JsonConverter.readValue(json, ItemArray.class));
+        assertEquals(RuntimeException.class, ex.getClass());
+    }
+
+    public static void testOtherElementsOfCollectionAreKept() {
+        String json = "{\"items\":[{\"a\":1},null,5,\"x\"]}";
+        assertEquals(String.valueOf(JsonConverter.convertToObject(new Json(json), ItemList.class).items),
+                String.valueOf(JsonConverter.readValue(json, ItemList.class).items));
+    }
+
+}
@@ -0,0 +1,140 @@
+package net.mlk.jmson.utils;
+
+import net.mlk.jmson.Json;
+import net.mlk.jmson.JsonList;
+import net.mlk.jmson.JsonWriter;
+import net.mlk.jmson.annotations.JsonField;
+import net.mlk.jmson.annotations.JsonIgnore;
+import net.mlk.jmson.annotations.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.mlk.jmson.Assert.assertEquals;
+
+/**
+ * writeValue writes fields straight to the writer and must give the same text as convertToJson
+ */
+public class WriteValueTest {
+
+    public static class Item implements JsonConvertible {
+        int id;
+        String name;
+
+        Item() {
+        }
+
+        Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Base implements JsonConvertible {
+        long base = 7;
+    }
+
+    @JsonObject(dateFormat = "yyyy-MM-dd HH:mm")
+    public static class Dto extends Base {
+        int number = -3;
+        double price = 2.5;
+        boolean active = true;
+        String text = "quote \" slash \\ line\n \u00e9 \ud83d\ude00";
+        @JsonField(key = "renamed")
+        String original = "value";
+        @JsonIgnore
+        String ignored = "ignored";
+        @JsonField(ignoreNull = true)
+        String skipped;
+        String empty;
+        Item item = new Item(1, "one");
+        List<Item> items = Arrays.asList(new Item(2, "two"), null);
+        Item[] array = {new Item(3, "three")};
+        int[] ints = {1, 2};
+        List<String> strings = Arrays.asList("a", "b");
+        JsonList list = new JsonList("[1, {\"x\":null}]");
+        Json json = new Json("{\"k\":[true]}");
+        @JsonField(dateFormat = "yyyy-MM-dd HH:mm")
+        LocalDateTime moment = LocalDateTime.of(2024, 5, 6, 7, 8);
+        LocalDateTime plain = LocalDateTime.of(2024, 5, 6, 7, 8);
+        LocalDate day = LocalDate.of(2024, 5, 6);
+        Instant instant = Instant.ofEpochSecond(1);
+    }
+
+    /**
+     * only types convertToJson writes in the form it reads back
+     */
+    @JsonObject(dateFormat = "yyyy-MM-dd HH:mm")
+    public static class RoundTrip extends Base {
+        int number = -3;
+        double price = 2.5;
+        boolean active = true;
+        String text = "quote \" slash \\ line\n \u00e9 \ud83d\ude00";
+        @JsonField(key = "renamed")
+        String original = "value";
+        String empty;
+        Item item = new Item(1, "one");
+        List<Item> items = Arrays.asList(new Item(2, "two"), null);
+        Item[] array = {new Item(3, "three")};
+        JsonList list = new JsonList("[1, {\"x\":null}]");
+        Json json = new Json("{\"k\":[true]}");
+        @JsonField(dateFormat = "yyyy-MM-dd HH:mm")
+        LocalDateTime moment = LocalDateTime.of(2024, 5, 6, 7, 8);
+    }
+
+    @JsonObject(key = "wrapper")
+    public static class Wrapped implements JsonConvertible {
+        int inside = 1;
+    }
+
+    private static String written(JsonConvertible instance) {
+        StringWriter out = new StringWriter();
+        JsonConverter.writeValue(instance, out);
+        return out.toString();
+    }
+
+    public static void testSameAsConvertToJson() {
+        Dto dto = new Dto();
+        String expected = JsonConverter.convertToJson(dto).toString();
+        assertEquals(expected, written(dto));
+        assertEquals("value", new Json(written(dto)).get("renamed"));
+        assertEquals(false, new Json(written(dto)).containsKey("skipped"));
+        assertEquals(true, new Json(written(dto)).containsKey("empty"));
+        assertEquals(false, new Json(written(dto)).containsKey("ignored"));
+        assertEquals("2024-05-06 07:08", new Json(written(dto)).get("moment"));
+        assertEquals("2024-05-06T07:08", new Json(written(dto)).get("plain"));
+
+        Wrapped wrapped = new Wrapped();
+        assertEquals(JsonConverter.convertToJson(wrapped).toString(), written(wrapped));
+        assertEquals("{\"wrapper\":{\"inside\":1}}", written(wrapped));
+    }
+
+    public static void testOutputStreamAndWriter() {
+        Dto dto = new Dto();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonConverter.writeValue(dto, bytes);
+        assertEquals(written(dto), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out).compact(true);
+        writer.beginArray();
+        JsonConverter.writeValue(new Item(1, "a"), writer);
+        JsonConverter.writeValue(new Item(2, null), writer);
+        writer.endArray().flush();
+        assertEquals("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":null}]", out.toString());
+    }
+
+    public static void testRoundTrip() {
+        RoundTrip read = JsonConverter.readValue(written(new RoundTrip()), RoundTrip.class);
+        assertEquals(new RoundTrip().text, read.text);
+        assertEquals(new RoundTrip().moment, read.moment);
+        assertEquals(written(new RoundTrip()), written(read));
+    }
+
+}